@@ -19,14 +19,19 @@ package com.kakao.hbase.specific;
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.common.util.Util;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.*;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
 import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
 import org.apache.hadoop.hbase.master.RegionPlan;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionRequest;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.hbase.util.Writables;
 
 import javax.security.auth.Subject;
@@ -42,6 +47,8 @@ public class CommandAdapter {
     private static NavigableMap<HRegionInfo, ServerName> hRegionInfoServerNameMap = null;
     private static long cachedTimestamp = System.currentTimeMillis();
     private static final long CACHE_TTL = 2000;
+    // keyed by the Args of each command invocation so that a cached map never outlives the invocation
+    private static final Map<Args, Map<ServerName, List<HRegionInfo>>> onlineRegionsMaps = new WeakHashMap<>();
 
     private CommandAdapter() {
     }
@@ -51,6 +58,12 @@ public class CommandAdapter {
         throw new IllegalStateException("This rule is not supported in hbase 0.94");
     }
 
+    @SuppressWarnings("UnusedParameters")
+    public static List<RegionPlan> makePlan(ClusterStatus clusterStatus,
+        Map<ServerName, List<HRegionInfo>> clusterState, Configuration conf) throws IOException {
+        throw new IllegalStateException("This rule is not supported in hbase 0.94");
+    }
+
     @SuppressWarnings("UnusedParameters")
     public static List<RegionPlan> makePlan(HBaseAdmin admin, List<RegionPlan> newRegionPlan) throws IOException {
         // should be empty list
@@ -78,6 +91,31 @@ public class CommandAdapter {
         return hRegionInfoList;
     }
 
+    /**
+     * Online regions of all region servers from the meta table. Cached per args until regions are moved by this
+     * process. Not cached if args is null.
+     */
+    public static synchronized Map<ServerName, List<HRegionInfo>> getOnlineRegionsMap(Args args, HBaseAdmin admin)
+        throws IOException {
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = args == null ? null : onlineRegionsMaps.get(args);
+        if (onlineRegionsMap == null) {
+            Map<ServerName, List<HRegionInfo>> regionMap = initializeRegionMap(admin);
+            for (Map.Entry<HRegionInfo, ServerName> entry :
+                regionServerMap(args, admin.getConfiguration(), null, false).entrySet()) {
+                List<HRegionInfo> hRegionInfoList = regionMap.get(entry.getValue());
+                if (hRegionInfoList != null) hRegionInfoList.add(entry.getKey());
+            }
+            onlineRegionsMap = Collections.unmodifiableMap(regionMap);
+            if (args != null) onlineRegionsMaps.put(args, onlineRegionsMap);
+        }
+        return onlineRegionsMap;
+    }
+
+    public static synchronized void invalidateOnlineRegionsMap() {
+        onlineRegionsMaps.clear();
+        hRegionInfoServerNameMap = null;
+    }
+
     public static boolean isMetaTable(String tableName) {
         return tableName.equals(".META.");
     }
@@ -231,6 +269,47 @@ public class CommandAdapter {
         return regions;
     }
 
+    /**
+     * Regions of the table in the key range from the region containing the start key.
+     *
+     * @param endKey exclusive. empty for the end of the table.
+     */
+    public static NavigableMap<HRegionInfo, ServerName> regionServerMap(Args args, Configuration conf,
+        HConnection connection, final String tableNameParam, byte[] startKey, final byte[] endKey,
+        final boolean offlined) throws IOException {
+        long timestamp = System.currentTimeMillis();
+
+        final NavigableMap<HRegionInfo, ServerName> regions = new TreeMap<>();
+        MetaScanner.MetaScannerVisitor visitor = new MetaScanner.TableMetaScannerVisitor(conf, tableNameParam.getBytes()) {
+            @Override
+            public boolean processRowInternal(Result rowResult) throws IOException {
+                HRegionInfo info = Writables.getHRegionInfo(rowResult.getValue(HConstants.CATALOG_FAMILY, HConstants.REGIONINFO_QUALIFIER));
+                if (endKey.length > 0 && Bytes.compareTo(info.getStartKey(), endKey) >= 0) return false;
+
+                byte[] value = rowResult.getValue(HConstants.CATALOG_FAMILY, HConstants.SERVER_QUALIFIER);
+                String hostAndPort = null;
+                if (value != null && value.length > 0) {
+                    hostAndPort = Bytes.toString(value);
+                }
+                value = rowResult.getValue(HConstants.CATALOG_FAMILY, HConstants.STARTCODE_QUALIFIER);
+                long startcode = -1L;
+                if (value != null && value.length > 0) startcode = Bytes.toLong(value);
+                if (!(info.isOffline() || info.isSplit())) {
+                    ServerName sn = null;
+                    if (hostAndPort != null && hostAndPort.length() > 0) {
+                        sn = new ServerName(hostAndPort, startcode);
+                    }
+                    regions.put(info, sn);
+                }
+                return true;
+            }
+        };
+        MetaScanner.metaScan(conf, visitor, tableNameParam.getBytes(), startKey, Integer.MAX_VALUE);
+
+        Util.printVerboseMessage(args, "CommandAdapter.regionServerMap", timestamp);
+        return regions;
+    }
+
     public static String getTableName(HRegionInfo hRegionInfo) {
         return hRegionInfo.getTableNameAsString();
     }
@@ -239,6 +318,17 @@ public class CommandAdapter {
         throw new IllegalStateException("Not supported in this HBase version.");
     }
 
+    @SuppressWarnings("UnusedParameters")
+    public static Set<String> mergeQualifiedRegions(Args args, Configuration conf, HConnection connection,
+        String tableName) throws IOException {
+        throw new IllegalStateException("Not supported in this HBase version.");
+    }
+
+    @SuppressWarnings("UnusedParameters")
+    public static void runCatalogScan(HBaseAdmin admin) throws IOException {
+        throw new IllegalStateException("Not supported in this HBase version.");
+    }
+
     public static List<HRegionInfo> adjacentEmptyRegions(List<HRegionInfo> emptyRegions) {
         throw new IllegalStateException("Not supported in this HBase version.");
     }
@@ -249,11 +339,49 @@ public class CommandAdapter {
         return !(compactionState == CompactionState.NONE || compactionState == CompactionState.MINOR);
     }
 
+    public static boolean isMajorCompacting(Args args, HBaseAdmin admin, byte[] tableNameOrRegionName)
+        throws IOException, InterruptedException {
+        CompactionState compactionState = admin.getCompactionState(tableNameOrRegionName);
+        return !(compactionState == CompactionState.NONE || compactionState == CompactionState.MINOR);
+    }
+
+    /**
+     * @return sum of the key lengths and the value lengths of a result scanned with KeyOnlyFilter(true)
+     */
+    public static long keyOnlyResultSize(Result result) {
+        long size = 0;
+        for (KeyValue keyValue : result.raw()) {
+            // the value is replaced with its length by the filter
+            size += keyValue.getKeyLength() + Bytes.toInt(keyValue.getValue());
+        }
+        return size;
+    }
+
     public static boolean isReallyEmptyRegion(HConnection connection,
         String tableName, HRegionInfo regionInfo) throws IOException {
         throw new IllegalStateException("Not supported in this HBase version.");
     }
 
+    /**
+     * Reference files are left in the daughters of a split until they are compacted.
+     * A region holding them can not be split again.
+     */
+    public static boolean hasReferences(Configuration conf, HRegionInfo regionInfo) throws IOException {
+        FileSystem fs = FSUtils.getCurrentFileSystem(conf);
+        Path regionDir = new Path(HTableDescriptor.getTableDir(FSUtils.getRootDir(conf), regionInfo.getTableName()),
+            regionInfo.getEncodedName());
+        if (!fs.exists(regionDir)) return false;
+
+        for (Path familyDir : FSUtils.getFamilyDirs(fs, regionDir)) {
+            FileStatus[] fileStatuses = fs.listStatus(familyDir);
+            if (fileStatuses == null) continue;
+            for (FileStatus fileStatus : fileStatuses) {
+                if (StoreFile.isReference(fileStatus.getPath())) return true;
+            }
+        }
+        return false;
+    }
+
     public static Map<String, Map<String, String>> versionedRegionMap(HBaseAdmin admin, long timestamp)
         throws IOException {
         Map<String, Map<String, String>> regionLocationMap = new HashMap<>();
@@ -44,6 +44,10 @@ public class RegionLoadDelegator {
         return regionLoad.getStorefiles();
     }
 
+    public int getStores() {
+        return regionLoad.getStores();
+    }
+
     public int getStoreUncompressedSizeMB() {
         // todo test
         String str = regionLoad.toString();
@@ -72,6 +76,15 @@ public class RegionLoadDelegator {
         return regionLoad.getCurrentCompactedKVs();
     }
 
+    public long getTotalCompactingKVs() {
+        return regionLoad.getTotalCompactingKVs();
+    }
+
+    public long getLastMajorCompactionTs() {
+        // not supported
+        return 0;
+    }
+
     public int getRegions() {
         return 1;
     }
@@ -164,6 +164,7 @@ public class TestBase extends SecureTestUtil {
     @Before
     public void setUp() throws Exception {
         additionalTables.clear();
+        CommandAdapter.invalidateOnlineRegionsMap();
         tableName = tablePrefix + "_" + testName.getMethodName();
         recreateTable(tableName);
     }
@@ -174,6 +175,7 @@ public class TestBase extends SecureTestUtil {
         for (String additionalTable : additionalTables) {
             dropTable(additionalTable);
         }
+        CommandAdapter.invalidateOnlineRegionsMap();
     }
 
     protected void dropTable(String tableName) throws IOException {
@@ -325,6 +327,7 @@ public class TestBase extends SecureTestUtil {
     protected void move(HRegionInfo regionInfo, ServerName serverName) throws Exception {
         admin.move(regionInfo.getEncodedName().getBytes(), serverName.getServerName().getBytes());
         waitForMoving(regionInfo, serverName);
+        CommandAdapter.invalidateOnlineRegionsMap();
     }
 
     protected void waitForMoving(HRegionInfo hRegionInfo, ServerName serverName) throws Exception {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.benchmark;
+
+import com.google.protobuf.ByteString;
+import org.apache.hadoop.hbase.*;
+import org.apache.hadoop.hbase.master.RegionState;
+import org.apache.hadoop.hbase.protobuf.generated.ClusterStatusProtos;
+import org.apache.hadoop.hbase.protobuf.generated.HBaseProtos;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.*;
+
+/**
+ * Region locations and region loads of a fake cluster. No HBase cluster is needed.
+ * Regions are spread over the tables and the region servers in round robin.
+ */
+public class SyntheticCluster {
+    public static final int TABLES = 100;
+    public static final int SERVERS = 100;
+    private static final String TABLE_PREFIX = "benchmark_";
+    private final NavigableMap<HRegionInfo, ServerName> regionServerMap = new TreeMap<>();
+    private final List<ServerName> serverNames = new ArrayList<>();
+
+    public SyntheticCluster(int regions) {
+        for (int i = 0; i < SERVERS; i++) {
+            serverNames.add(ServerName.valueOf("rs" + i + ".benchmark", 60020, 1L));
+        }
+
+        int regionsPerTable = (regions + TABLES - 1) / TABLES;
+        for (int i = 0; i < regions; i++) {
+            int indexInTable = i / TABLES;
+            byte[] startKey = indexInTable == 0 ? HConstants.EMPTY_START_ROW : rowKey(indexInTable);
+            byte[] endKey = indexInTable == regionsPerTable - 1 ? HConstants.EMPTY_END_ROW : rowKey(indexInTable + 1);
+            HRegionInfo hRegionInfo = new HRegionInfo(TableName.valueOf(TABLE_PREFIX + (i % TABLES)),
+                startKey, endKey, false, 1L);
+            regionServerMap.put(hRegionInfo, serverNames.get(i % SERVERS));
+        }
+    }
+
+    private static byte[] rowKey(int index) {
+        return Bytes.toBytes(String.format("%010d", index));
+    }
+
+    public NavigableMap<HRegionInfo, ServerName> getRegionServerMap() {
+        return regionServerMap;
+    }
+
+    /**
+     * Loads of the given tick. About a half of the regions get requests between two ticks.
+     */
+    public ClusterStatus clusterStatus(int tick) {
+        Map<ServerName, List<ClusterStatusProtos.RegionLoad>> regionLoadsMap = new HashMap<>();
+        for (ServerName serverName : serverNames) {
+            regionLoadsMap.put(serverName, new ArrayList<ClusterStatusProtos.RegionLoad>());
+        }
+
+        int i = 0;
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+            regionLoadsMap.get(entry.getValue()).add(regionLoad(entry.getKey(), i++, tick));
+        }
+
+        Map<ServerName, ServerLoad> serverLoadMap = new HashMap<>();
+        for (Map.Entry<ServerName, List<ClusterStatusProtos.RegionLoad>> entry : regionLoadsMap.entrySet()) {
+            ClusterStatusProtos.ServerLoad serverLoad = ClusterStatusProtos.ServerLoad.newBuilder()
+                .addAllRegionLoads(entry.getValue()).build();
+            serverLoadMap.put(entry.getKey(), new ServerLoad(serverLoad));
+        }
+
+        return new ClusterStatus("0.98", "benchmark", serverLoadMap, Collections.<ServerName>emptyList(),
+            serverNames.get(0), Collections.<ServerName>emptyList(), Collections.<String, RegionState>emptyMap(),
+            new String[0], false);
+    }
+
+    private ClusterStatusProtos.RegionLoad regionLoad(HRegionInfo hRegionInfo, int index, int tick) {
+        long requests = index % 2 == 0 ? (long) tick * (index % 100) : 0;
+        HBaseProtos.RegionSpecifier regionSpecifier = HBaseProtos.RegionSpecifier.newBuilder()
+            .setType(HBaseProtos.RegionSpecifier.RegionSpecifierType.REGION_NAME)
+            .setValue(ByteString.copyFrom(hRegionInfo.getRegionName())).build();
+        return ClusterStatusProtos.RegionLoad.newBuilder()
+            .setRegionSpecifier(regionSpecifier)
+            .setStores(1)
+            .setStorefiles(1 + index % 5)
+            .setStorefileSizeMB(index % 1000)
+            .setStoreUncompressedSizeMB(index % 1000 * 2)
+            .setMemstoreSizeMB((int) ((index + tick) % 128))
+            .setReadRequestsCount(index + requests * 10)
+            .setWriteRequestsCount(index + requests)
+            .setCurrentCompactedKVs(index % 10)
+            .build();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    private static final SortKey SORT_KEY_VALUE = new SortKey("2");
+    private static final SortKey SORT_KEY_DIFF = new SortKey("@");
+
+    @Benchmark
+    public Map<Level, LoadRecord> update(LoadState state) {
+        state.load.prepare();
+        state.load.update(state.ticks[state.tick++ & 1], state.args);
+        return state.load.getLoadMap();
+    }
+
+    @Benchmark
+    public Load updateChangeMap(LoadState state) {
+        state.load.updateChangeMap();
+        return state.load;
+    }
+
+    @Benchmark
+    public List<Level> sortByValue(LoadState state) {
+        return SORT_KEY_VALUE.sortedLevels(state.load);
+    }
+
+    @Benchmark
+    public List<Level> sortByDiff(LoadState state) {
+        return SORT_KEY_DIFF.sortedLevels(state.load);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import com.kakao.hbase.benchmark.SyntheticCluster;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.stat.StatArgs;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CSV files are written into the stat_saved directory of the working directory.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadIOBenchmark {
+    @Benchmark
+    public String save(LoadIOState state) {
+        return state.load.save(state.args);
+    }
+
+    @Benchmark
+    public Load load(LoadIOState state) {
+        state.load.load(state.args, "0");
+        return state.load;
+    }
+
+    /**
+     * Loading a saved file looks up the level of each line in a linear scan,
+     * so 100k regions are not included.
+     */
+    @State(Scope.Thread)
+    public static class LoadIOState {
+        @Param({"1000", "10000"})
+        public int regions;
+
+        @Param({"table", "server", "region"})
+        public String levelType;
+
+        Args args;
+        Load load;
+        private PrintStream out;
+
+        @Setup
+        public void setup() throws Exception {
+            args = new StatArgs(new String[]{"zookeeper", LoadState.TABLE});
+
+            SyntheticCluster cluster = new SyntheticCluster(regions);
+            LevelClass levelClass = LoadState.levelClass(levelType);
+            TableInfo tableInfo = new TableInfo(LoadState.TABLE, args, levelClass, cluster.clusterStatus(0),
+                cluster.getRegionServerMap());
+            load = new Load(levelClass, args);
+            load.prepare();
+            load.update(tableInfo, args);
+
+            load.save(args);
+            load.showFiles(args);
+
+            // loading prints a message for each file
+            out = System.out;
+            System.setOut(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+        }
+
+        @TearDown
+        public void tearDown() {
+            System.setOut(out);
+        }
+    }
+}
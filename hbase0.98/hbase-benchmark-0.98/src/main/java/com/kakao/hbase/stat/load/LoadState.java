@@ -0,0 +1,77 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import com.kakao.hbase.benchmark.SyntheticCluster;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.stat.StatArgs;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Load of a synthetic cluster updated by two ticks, so that the previous and the current load maps exist.
+ */
+@State(Scope.Thread)
+public class LoadState {
+    public static final String TABLE = "benchmark";
+
+    @Param({"1000", "10000", "100000"})
+    public int regions;
+
+    @Param({"table", "server", "region"})
+    public String levelType;
+
+    public Args args;
+    public Load load;
+    TableInfo[] ticks;
+    int tick = 0;
+
+    static LevelClass levelClass(String levelType) {
+        switch (levelType) {
+            case "table":
+                return new LevelClass(TableName.class);
+            case "server":
+                return new LevelClass(org.apache.hadoop.hbase.ServerName.class);
+            case "region":
+                return new LevelClass(RegionName.class);
+            default:
+                throw new IllegalArgumentException("invalid level type - " + levelType);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        args = new StatArgs(new String[]{"zookeeper", TABLE});
+
+        SyntheticCluster cluster = new SyntheticCluster(regions);
+        LevelClass levelClass = levelClass(levelType);
+        ticks = new TableInfo[2];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = new TableInfo(TABLE, args, levelClass, cluster.clusterStatus(i),
+                cluster.getRegionServerMap());
+        }
+
+        load = new Load(levelClass, args);
+        for (TableInfo tableInfo : ticks) {
+            load.prepare();
+            load.update(tableInfo, args);
+        }
+        load.updateChangeMap();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.print;
+
+import com.kakao.hbase.stat.load.LoadState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormatterBenchmark {
+    @Benchmark
+    public String buildStringAnsi(FormatterState state) {
+        return state.formatter.buildString(false, Formatter.Type.ANSI);
+    }
+
+    @Benchmark
+    public String buildStringHtml(FormatterState state) {
+        return state.formatter.buildString(false, Formatter.Type.HTML);
+    }
+
+    @State(Scope.Thread)
+    public static class FormatterState {
+        /**
+         * 0 for all rows
+         */
+        @Param({"0", "50"})
+        public int rowsPerPage;
+
+        Formatter formatter;
+
+        @Setup
+        public void setup(LoadState loadState) {
+            loadState.load.setRowsPerPage(rowsPerPage);
+            formatter = new Formatter(LoadState.TABLE, loadState.load);
+        }
+    }
+}
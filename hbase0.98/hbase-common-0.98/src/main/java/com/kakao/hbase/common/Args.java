@@ -31,6 +31,7 @@ public abstract class Args {
     public static final String OPTION_REGION = "region";
     public static final String OPTION_OUTPUT = "output";
     public static final String OPTION_SKIP_EXPORT = "skip-export";
+    public static final String OPTION_BINARY = "binary";
     public static final String OPTION_VERBOSE = "verbose";
     public static final String OPTION_DEBUG = "debug";
     public static final String OPTION_KERBEROS_CONFIG = "krbconf";
@@ -56,8 +57,23 @@ public abstract class Args {
     public static final String OPTION_TEST = "test";    // for test cases only
     public static final String OPTION_HTTP_PORT = "port";
     public static final String OPTION_INTERVAL = "interval";
+    public static final String OPTION_INCREMENTAL = "incremental";
+    public static final String OPTION_ROWS = "rows";
+    public static final String OPTION_STORE = "store";
+    public static final String OPTION_STORE_SIZE = "store-size";
     public static final String OPTION_MOVE_ASYNC = "move-async";
+    public static final String OPTION_MOVE_PARALLEL = "move-parallel";
+    public static final String OPTION_MOVE_ORDER = "move-order";
+    public static final String OPTION_MAX_PER_RS = "max-per-rs";
     public static final String OPTION_MAX_ITERATION = "max-iteration";
+    public static final String OPTION_MERGE_TIMEOUT = "merge-timeout";
+    public static final String OPTION_SCAN_TARGET_LATENCY = "scan-target-latency";
+    public static final String OPTION_MC_START_TIMEOUT = "mc-start-timeout";
+    public static final String OPTION_TOP = "top";
+    public static final String OPTION_SPLIT = "split";
+    public static final String OPTION_SPLIT_TIMEOUT = "split-timeout";
+    public static final String OPTION_SPLITS_PER_MINUTE = "splits-per-minute";
+    public static final String OPTION_BUDGET = "budget";
     public static final String OPTION_LOCALITY_THRESHOLD = "locality";
     public static final String OPTION_CF = "cf";
     public static final String OPTION_WAIT_UNTIL_FINISH = "wait";
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.common;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HConnection;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies that regions of zero size are really empty by scanning them.
+ * <p>
+ * Candidates are grouped by the hosting region server and each server is scanned by at most
+ * MAX_SCANS_PER_SERVER batches at a time. The pool size is adjusted once per round of scans, that is once for every
+ * poolSize scans. It grows while scans are fast and is halved when the scan latency exceeds the target, but never
+ * below THREAD_POOL_SIZE. Empty regions are passed to the listener as soon as they are verified.
+ */
+public class EmptyRegionVerifier {
+    public static int THREAD_POOL_SIZE = 10;
+    public static int MAX_THREAD_POOL_SIZE = 40;
+    public static int MAX_SCANS_PER_SERVER = 2;
+    public static int BATCH_SIZE = 10;
+    public static final long DEFAULT_TARGET_LATENCY_MS = 1000;
+    private static final double LATENCY_WEIGHT = 0.2;
+    private final Args args;
+    private final HConnection connection;
+    private final String tableName;
+    private final Listener listener;
+    private final long targetLatencyMs;
+    private final int minPoolSize = Math.min(THREAD_POOL_SIZE, MAX_THREAD_POOL_SIZE);
+    private final AtomicLong emptyCount = new AtomicLong();
+    private ThreadPoolExecutor executorService;
+    private CountDownLatch latch;
+    private double latencyMs = 0;
+    private int poolSize = minPoolSize;
+    private int scans = 0;
+
+    public EmptyRegionVerifier(Args args, HConnection connection, String tableName, Listener listener,
+        long targetLatencyMs) {
+        if (targetLatencyMs <= 0) throw new IllegalArgumentException("Invalid target latency - " + targetLatencyMs);
+
+        this.args = args;
+        this.connection = connection;
+        this.tableName = tableName;
+        this.listener = listener;
+        this.targetLatencyMs = targetLatencyMs;
+    }
+
+    /**
+     * Blocks until all candidates are verified.
+     *
+     * @param candidates key: region, value: hosting region server. null if not assigned.
+     * @return the number of empty regions
+     */
+    public long verify(Map<HRegionInfo, ServerName> candidates) throws IOException {
+        long timestamp = System.currentTimeMillis();
+
+        Map<ServerName, Queue<HRegionInfo>> serverQueueMap = new HashMap<>();
+        for (Map.Entry<HRegionInfo, ServerName> entry : candidates.entrySet()) {
+            Queue<HRegionInfo> queue = serverQueueMap.get(entry.getValue());
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+                serverQueueMap.put(entry.getValue(), queue);
+            }
+            queue.add(entry.getKey());
+        }
+
+        emptyCount.set(0);
+        latch = new CountDownLatch(candidates.size());
+        poolSize = minPoolSize;
+        scans = 0;
+        executorService = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>());
+        try {
+            for (Queue<HRegionInfo> queue : serverQueueMap.values()) {
+                for (int i = 0; i < Math.min(MAX_SCANS_PER_SERVER, queue.size()); i++) {
+                    executorService.execute(new Batch(queue));
+                }
+            }
+
+            if (!latch.await(30, TimeUnit.MINUTES))
+                Util.printMessage("Verifying empty regions is timed out - " + latch.getCount() + " regions left");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Verifying empty regions is interrupted");
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Util.printMessage(emptyCount.get() + " empty regions are found in " + candidates.size()
+            + " candidates of " + serverQueueMap.size() + " region servers.");
+        Util.printVerboseMessage(args, "EmptyRegionVerifier.verify", timestamp);
+        return emptyCount.get();
+    }
+
+    /**
+     * @return the pool size after the adjustment
+     */
+    @VisibleForTesting
+    synchronized int adjustPoolSize(long elapsedMs) {
+        latencyMs = latencyMs == 0 ? elapsedMs : latencyMs * (1 - LATENCY_WEIGHT) + elapsedMs * LATENCY_WEIGHT;
+        if (++scans < poolSize) return poolSize;
+        scans = 0;
+
+        int poolSizeNew;
+        if (latencyMs > targetLatencyMs) {
+            poolSizeNew = Math.max(minPoolSize, poolSize / 2);
+        } else {
+            poolSizeNew = Math.min(MAX_THREAD_POOL_SIZE, poolSize + 1);
+        }
+        if (poolSizeNew == poolSize) return poolSize;
+
+        if (executorService == null) {
+            poolSize = poolSizeNew;
+            return poolSize;
+        } else if (poolSizeNew > poolSize) {
+            executorService.setMaximumPoolSize(poolSizeNew);
+            executorService.setCorePoolSize(poolSizeNew);
+        } else {
+            executorService.setCorePoolSize(poolSizeNew);
+            executorService.setMaximumPoolSize(poolSizeNew);
+        }
+        poolSize = poolSizeNew;
+        return poolSize;
+    }
+
+    public interface Listener {
+        /**
+         * Called by the verifying threads concurrently.
+         */
+        void onEmptyRegion(HRegionInfo regionInfo);
+    }
+
+    /**
+     * Scans up to BATCH_SIZE regions of a region server and resubmits itself for the rest.
+     */
+    private class Batch implements Runnable {
+        private final Queue<HRegionInfo> queue;
+
+        private Batch(Queue<HRegionInfo> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                HRegionInfo regionInfo = queue.poll();
+                if (regionInfo == null) return;
+
+                try {
+                    long timestamp = System.currentTimeMillis();
+                    boolean empty = CommandAdapter.isReallyEmptyRegion(connection, tableName, regionInfo);
+                    adjustPoolSize(System.currentTimeMillis() - timestamp);
+
+                    if (empty) {
+                        long count = emptyCount.incrementAndGet();
+                        if (count % 100 == 0) {
+                            Util.printMessage("Finding empty regions in progress - " + count + " empty regions");
+                        }
+                        listener.onEmptyRegion(regionInfo);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    latch.countDown();
+                }
+            }
+
+            if (!queue.isEmpty()) {
+                try {
+                    executorService.execute(this);
+                } catch (RejectedExecutionException ignore) {
+                    // shut down
+                }
+            }
+        }
+    }
+}
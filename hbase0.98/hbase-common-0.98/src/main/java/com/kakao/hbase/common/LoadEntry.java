@@ -20,12 +20,17 @@ import com.kakao.hbase.specific.RegionLoadDelegator;
 import org.apache.hadoop.util.StringUtils;
 
 public enum LoadEntry {
-    Reads {
+    Reads(ValueType.LONG) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getReadRequestsCount();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getReadRequestsCount();
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateLong(value, duration);
@@ -57,12 +62,17 @@ public enum LoadEntry {
             return Long.valueOf(string);
         }
     },
-    Writes {
+    Writes(ValueType.LONG) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getWriteRequestsCount();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getWriteRequestsCount();
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateLong(value, duration);
@@ -94,12 +104,17 @@ public enum LoadEntry {
             return Long.valueOf(string);
         }
     },
-    Regions {
+    Regions(ValueType.INTEGER) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getRegions();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getRegions();
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateInt(value, duration);
@@ -131,12 +146,17 @@ public enum LoadEntry {
             return Integer.valueOf(string);
         }
     },
-    Files {
+    Files(ValueType.INTEGER) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getStorefiles();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getStorefiles();
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateInt(value, duration);
@@ -168,17 +188,32 @@ public enum LoadEntry {
             return Integer.valueOf(string);
         }
     },
-    FileSize {
+    FileSize(ValueType.INTEGER) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getStorefileSizeMB();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getStorefileSizeMB();
+        }
+
         @Override
         public String toString(Number value) {
             return value == null ? NOT_AVAILABLE : (value.toString() + "m");
         }
 
+        @Override
+        public String toString(long value) {
+            return value + "m";
+        }
+
+        @Override
+        public String toRateString(long value, long duration) {
+            return duration == 0 ? NOT_AVAILABLE : (rateString(value, duration) + "m/s");
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateInt(value, duration);
@@ -210,17 +245,32 @@ public enum LoadEntry {
             return Integer.valueOf(string);
         }
     },
-    FileSizeUncomp {
+    FileSizeUncomp(ValueType.INTEGER) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getStoreUncompressedSizeMB();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getStoreUncompressedSizeMB();
+        }
+
         @Override
         public String toString(Number value) {
             return value == null ? NOT_AVAILABLE : (value.toString() + "m");
         }
 
+        @Override
+        public String toString(long value) {
+            return value + "m";
+        }
+
+        @Override
+        public String toRateString(long value, long duration) {
+            return duration == 0 ? NOT_AVAILABLE : (rateString(value, duration) + "m/s");
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateInt(value, duration);
@@ -252,7 +302,7 @@ public enum LoadEntry {
             return Integer.valueOf(string);
         }
     },
-    DataLocality {
+    DataLocality(ValueType.RATIO) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return new RatioNumber(regionLoad.getStorefileSizeMB(), regionLoad.getDataLocality());
@@ -269,6 +319,18 @@ public enum LoadEntry {
             return value == null ? NOT_AVAILABLE : StringUtils.formatPercent(value.doubleValue(), 2);
         }
 
+        @Override
+        public String toString(double value) {
+            return StringUtils.formatPercent(value, 2);
+        }
+
+        @Override
+        public String toRateString(double value, long duration) {
+            if (duration == 0) return NOT_AVAILABLE;
+            double rate = value == 0.0 ? 0.0 : value / (duration / 1000.0);
+            return StringUtils.formatPercent(rate, 2) + "/s";
+        }
+
         @Override
         public Number add(Number one, Number two) {
             return addRatioNumber(one, two);
@@ -294,17 +356,32 @@ public enum LoadEntry {
             return RatioNumber.valueOf(string);
         }
     },
-    MemstoreSize {
+    MemstoreSize(ValueType.INTEGER) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getMemStoreSizeMB();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getMemStoreSizeMB();
+        }
+
         @Override
         public String toString(Number value) {
             return value == null ? NOT_AVAILABLE : (value.toString() + "m");
         }
 
+        @Override
+        public String toString(long value) {
+            return value + "m";
+        }
+
+        @Override
+        public String toRateString(long value, long duration) {
+            return duration == 0 ? NOT_AVAILABLE : (rateString(value, duration) + "m/s");
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateInt(value, duration);
@@ -336,12 +413,17 @@ public enum LoadEntry {
             return Integer.valueOf(string);
         }
     },
-    CompactedKVs {
+    CompactedKVs(ValueType.LONG) {
         @Override
         public Number getValue(RegionLoadDelegator regionLoad) {
             return regionLoad.getCurrentCompactedKVs();
         }
 
+        @Override
+        public long getLongValue(RegionLoadDelegator regionLoad) {
+            return regionLoad.getCurrentCompactedKVs();
+        }
+
         @Override
         public String toRateString(Number value, long duration) {
             Number rate = rateLong(value, duration);
@@ -375,6 +457,11 @@ public enum LoadEntry {
     };
 
     public static final String NOT_AVAILABLE = "N/A";
+    private final ValueType valueType;
+
+    LoadEntry(ValueType valueType) {
+        this.valueType = valueType;
+    }
 
     private static Number diffLong(Number one, Number two) {
         if (one == null) {
@@ -528,6 +615,20 @@ public enum LoadEntry {
         return number / (duration / 1000.0);
     }
 
+    /**
+     * Same as rateLong and rateInt without boxing
+     */
+    private static String rateString(long value, long duration) {
+        if (value == 0) return "0";
+
+        double rate = value / (duration / 1000.0);
+        if (rate < 10.0) {
+            return Double.toString(Math.round(rate * 10.0) / 10.0);
+        } else {
+            return Long.toString(Math.round(rate));
+        }
+    }
+
     private static int compareInt(Number one, Number two) {
         int intOne = one == null ? 0 : one.intValue();
         int intTwo = two == null ? 0 : two.intValue();
@@ -548,12 +649,51 @@ public enum LoadEntry {
 
     public abstract Number getValue(RegionLoadDelegator regionLoad);
 
+    /**
+     * Same as getValue but without boxing. Not supported for ratio entries.
+     */
+    public long getLongValue(RegionLoadDelegator regionLoad) {
+        throw new IllegalStateException("Not supported for " + name());
+    }
+
+    public ValueType getValueType() {
+        return valueType;
+    }
+
     public String toString(Number value) {
         return value == null ? NOT_AVAILABLE : value.toString();
     }
 
     public abstract String toRateString(Number value, long duration);
 
+    /**
+     * Same as toString(Number) but without boxing. Only for long and integer entries.
+     */
+    public String toString(long value) {
+        return Long.toString(value);
+    }
+
+    /**
+     * Same as toRateString(Number, long) but without boxing. Only for long and integer entries.
+     */
+    public String toRateString(long value, long duration) {
+        return duration == 0 ? NOT_AVAILABLE : (rateString(value, duration) + "/s");
+    }
+
+    /**
+     * Same as toString(Number) but without boxing. Only for ratio entries.
+     */
+    public String toString(double value) {
+        throw new IllegalStateException("Not supported for " + name());
+    }
+
+    /**
+     * Same as toRateString(Number, long) but without boxing. Only for ratio entries.
+     */
+    public String toRateString(double value, long duration) {
+        throw new IllegalStateException("Not supported for " + name());
+    }
+
     public abstract Number add(Number one, Number two);
 
     public abstract Number diff(Number one, Number two);
@@ -563,4 +703,6 @@ public enum LoadEntry {
     public abstract int compare(Number one, Number two);
 
     public abstract Number toNumber(String string);
+
+    public enum ValueType {LONG, INTEGER, RATIO}
 }
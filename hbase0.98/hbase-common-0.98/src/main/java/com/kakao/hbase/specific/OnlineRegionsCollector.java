@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.specific;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Collects the online regions of region servers in parallel.
+ * A region server that does not respond within the timeout or fails is reported as a straggler and
+ * its regions are read from the meta table instead. Catalog regions of stragglers are not collected.
+ */
+public class OnlineRegionsCollector {
+    public static int THREAD_POOL_SIZE = 20;
+    public static long TIMEOUT_MS = 30000;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private OnlineRegionsCollector() {
+    }
+
+    public static Map<ServerName, List<HRegionInfo>> collect(Args args, final HBaseAdmin admin,
+        Collection<ServerName> serverNames) throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = new TreeMap<>();
+        if (serverNames.isEmpty()) return onlineRegionsMap;
+
+        Set<ServerName> stragglers = new TreeSet<>();
+        ExecutorService executorService =
+            Executors.newFixedThreadPool(Math.min(THREAD_POOL_SIZE, serverNames.size()));
+        try {
+            CompletionService<List<HRegionInfo>> completionService =
+                new ExecutorCompletionService<>(executorService);
+            final Map<ServerName, Long> callStartMap = new ConcurrentHashMap<>();
+            Map<Future<List<HRegionInfo>>, ServerName> futureMap = new HashMap<>();
+            for (final ServerName serverName : serverNames) {
+                Future<List<HRegionInfo>> future = completionService.submit(new Callable<List<HRegionInfo>>() {
+                    @Override
+                    public List<HRegionInfo> call() throws Exception {
+                        callStartMap.put(serverName, System.currentTimeMillis());
+                        return admin.getOnlineRegions(serverName);
+                    }
+                });
+                futureMap.put(future, serverName);
+            }
+
+            while (!futureMap.isEmpty()) {
+                Future<List<HRegionInfo>> future = completionService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (future != null) {
+                    ServerName serverName = futureMap.remove(future);
+                    if (serverName == null) continue;   // cancelled straggler
+
+                    try {
+                        onlineRegionsMap.put(serverName, future.get());
+                    } catch (ExecutionException e) {
+                        System.out.println("getOnlineRegions failed - " + serverName.getServerName()
+                            + " - " + e.getCause().getMessage());
+                        stragglers.add(serverName);
+                    }
+                    continue;
+                }
+
+                long now = System.currentTimeMillis();
+                Iterator<Map.Entry<Future<List<HRegionInfo>>, ServerName>> iterator = futureMap.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Future<List<HRegionInfo>>, ServerName> entry = iterator.next();
+                    Long callStart = callStartMap.get(entry.getValue());
+                    if (callStart != null && now - callStart > TIMEOUT_MS) {
+                        System.out.println("getOnlineRegions timed out - " + entry.getValue().getServerName()
+                            + " - " + (now - callStart) + " ms");
+                        entry.getKey().cancel(true);
+                        stragglers.add(entry.getValue());
+                        iterator.remove();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("getOnlineRegions is interrupted");
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (stragglers.size() > 0) {
+            System.out.println("Regions of " + stragglers.size() + " region servers are read from meta table.");
+            for (ServerName serverName : stragglers) {
+                onlineRegionsMap.put(serverName, new ArrayList<HRegionInfo>());
+            }
+            NavigableMap<HRegionInfo, ServerName> regionServerMap =
+                CommandAdapter.regionServerMap(args, admin.getConfiguration(), admin.getConnection(), false);
+            for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+                if (entry.getValue() != null && stragglers.contains(entry.getValue()))
+                    onlineRegionsMap.get(entry.getValue()).add(entry.getKey());
+            }
+        }
+
+        Util.printVerboseMessage(args, "OnlineRegionsCollector.collect", startTimestamp);
+        return onlineRegionsMap;
+    }
+}
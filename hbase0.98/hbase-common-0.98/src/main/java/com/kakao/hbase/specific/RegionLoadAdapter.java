@@ -21,12 +21,10 @@ import com.kakao.hbase.common.LoadEntry;
 import com.kakao.hbase.common.util.Util;
 import org.apache.hadoop.hbase.*;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 /**
  * For HBase 0.98/0.96/1.0
@@ -34,17 +32,27 @@ import java.util.Map;
 public class RegionLoadAdapter {
     public static final LoadEntry[] loadEntries = RegionLoadDelegator.loadEntries();
     private final Map<HRegionInfo, RegionLoadDelegator> regionLoadMap = new HashMap<>();
+    private final Map<HRegionInfo, ServerName> regionLocationMap = new HashMap<>();
+    private final Set<byte[]> unknownRegionNames = new TreeSet<>(Bytes.BYTES_COMPARATOR);
 
     public RegionLoadAdapter(HBaseAdmin admin, Map<byte[], HRegionInfo> regionMap, Args args) throws IOException {
+        this(admin.getClusterStatus(), regionMap, args);
+    }
+
+    public RegionLoadAdapter(ClusterStatus clusterStatus, Map<byte[], HRegionInfo> regionMap, Args args) {
         long timestamp = System.currentTimeMillis();
 
-        ClusterStatus clusterStatus = admin.getClusterStatus();
         Collection<ServerName> serverNames = clusterStatus.getServers();
         for (ServerName serverName : serverNames) {
             ServerLoad serverLoad = clusterStatus.getLoad(serverName);
             for (Map.Entry<byte[], RegionLoad> entry : serverLoad.getRegionsLoad().entrySet()) {
-                if (regionMap.get(entry.getKey()) != null)
-                    regionLoadMap.put(regionMap.get(entry.getKey()), new RegionLoadDelegator(entry.getValue()));
+                HRegionInfo hRegionInfo = regionMap.get(entry.getKey());
+                if (hRegionInfo != null) {
+                    regionLoadMap.put(hRegionInfo, new RegionLoadDelegator(entry.getValue()));
+                    regionLocationMap.put(hRegionInfo, serverName);
+                } else {
+                    unknownRegionNames.add(entry.getKey());
+                }
             }
         }
 
@@ -58,4 +66,18 @@ public class RegionLoadAdapter {
     public RegionLoadDelegator get(HRegionInfo hRegionInfo) {
         return regionLoadMap.get(hRegionInfo);
     }
+
+    /**
+     * @return region servers of the regions in the given region map, as reported by the region servers
+     */
+    public Map<HRegionInfo, ServerName> getRegionLocations() {
+        return regionLocationMap;
+    }
+
+    /**
+     * @return names of the regions reported by the region servers but not in the given region map
+     */
+    public Set<byte[]> getUnknownRegionNames() {
+        return unknownRegionNames;
+    }
 }
@@ -32,6 +32,10 @@ public class RegionLoadDelegator {
         return regionLoad.getStorefiles();
     }
 
+    public int getStores() {
+        return regionLoad.getStores();
+    }
+
     public int getStoreUncompressedSizeMB() {
         return regionLoad.getStoreUncompressedSizeMB();
     }
@@ -56,6 +60,15 @@ public class RegionLoadDelegator {
         return regionLoad.getCurrentCompactedKVs();
     }
 
+    public long getTotalCompactingKVs() {
+        return regionLoad.getTotalCompactingKVs();
+    }
+
+    public long getLastMajorCompactionTs() {
+        // not supported
+        return 0;
+    }
+
     public int getRegions() {
         return 1;
     }
@@ -21,6 +21,7 @@ import com.kakao.hbase.common.Constant;
 import com.kakao.hbase.common.HBaseClient;
 import com.kakao.hbase.common.InvalidTableException;
 import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
 import com.kakao.hbase.specific.HBaseAdminWrapper;
 import joptsimple.OptionParser;
 import org.apache.commons.logging.Log;
@@ -194,11 +195,13 @@ public class TestBase extends SecureTestUtil {
     protected void move(HRegionInfo regionInfo, ServerName serverName) throws Exception {
         admin.move(regionInfo.getEncodedName().getBytes(), serverName.getServerName().getBytes());
         waitForMoving(regionInfo, serverName);
+        CommandAdapter.invalidateOnlineRegionsMap();
     }
 
     @Before
     public void setUp() throws Exception {
         additionalTables.clear();
+        CommandAdapter.invalidateOnlineRegionsMap();
         deleteSnapshots(tableName);
         tableName = tablePrefix + "_" + testName.getMethodName();
         recreateTable(tableName);
@@ -212,6 +215,7 @@ public class TestBase extends SecureTestUtil {
             dropTable(additionalTable);
             deleteSnapshots(additionalTable);
         }
+        CommandAdapter.invalidateOnlineRegionsMap();
     }
 
     protected void deleteSnapshots(String tableName) throws Exception {
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EmptyRegionVerifierTest {
+    private int adjust(EmptyRegionVerifier verifier, int scans, long elapsedMs) {
+        int poolSize = 0;
+        for (int i = 0; i < scans; i++) poolSize = verifier.adjustPoolSize(elapsedMs);
+        return poolSize;
+    }
+
+    @Test
+    public void testAdjustPoolSize() {
+        int minPoolSize = EmptyRegionVerifier.THREAD_POOL_SIZE;
+        EmptyRegionVerifier verifier = new EmptyRegionVerifier(null, null, "table", null, 100);
+
+        // adjusted once per round of scans
+        Assert.assertEquals(minPoolSize, adjust(verifier, minPoolSize - 1, 10));
+        Assert.assertEquals(minPoolSize + 1, adjust(verifier, 1, 10));
+        Assert.assertEquals(minPoolSize + 1, adjust(verifier, minPoolSize, 10));
+        Assert.assertEquals(minPoolSize + 2, adjust(verifier, 1, 10));
+
+        // slow scans do not shrink the pool below the initial size
+        for (int i = 0; i < 10; i++) adjust(verifier, EmptyRegionVerifier.MAX_THREAD_POOL_SIZE, 1000);
+        Assert.assertEquals(minPoolSize, adjust(verifier, minPoolSize, 1000));
+    }
+
+    @Test
+    public void testTargetLatency() {
+        int minPoolSize = EmptyRegionVerifier.THREAD_POOL_SIZE;
+        EmptyRegionVerifier verifier = new EmptyRegionVerifier(null, null, "table", null, 2000);
+
+        // usual scan latency is under the target
+        Assert.assertEquals(minPoolSize + 1, adjust(verifier, minPoolSize, 500));
+    }
+}
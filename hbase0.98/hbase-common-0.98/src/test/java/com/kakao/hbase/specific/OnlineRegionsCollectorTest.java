@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.specific;
+
+import com.kakao.hbase.TestBase;
+import com.kakao.hbase.common.Args;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class OnlineRegionsCollectorTest extends TestBase {
+    public OnlineRegionsCollectorTest() {
+        super(OnlineRegionsCollectorTest.class);
+    }
+
+    @Test
+    public void testCollect() throws Exception {
+        createAdditionalTable(tableName + "2");
+
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap =
+            OnlineRegionsCollector.collect(null, admin, admin.getClusterStatus().getServers());
+        assertEquals(admin.getClusterStatus().getServers().size(), onlineRegionsMap.size());
+        for (ServerName serverName : admin.getClusterStatus().getServers()) {
+            assertEquals(new HashSet<>(admin.getOnlineRegions(serverName)),
+                new HashSet<>(onlineRegionsMap.get(serverName)));
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Args args = new TestArgs(new String[]{"zookeeper"});
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = CommandAdapter.getOnlineRegionsMap(args, admin);
+        assertSame(onlineRegionsMap, CommandAdapter.getOnlineRegionsMap(args, admin));
+
+        CommandAdapter.invalidateOnlineRegionsMap();
+        assertNotSame(onlineRegionsMap, CommandAdapter.getOnlineRegionsMap(args, admin));
+    }
+
+    @Test
+    public void testCachePerArgs() throws Exception {
+        Args args = new TestArgs(new String[]{"zookeeper"});
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = CommandAdapter.getOnlineRegionsMap(args, admin);
+
+        // another command invocation does not see the map cached by the previous one
+        Args argsNext = new TestArgs(new String[]{"zookeeper"});
+        assertNotSame(onlineRegionsMap, CommandAdapter.getOnlineRegionsMap(argsNext, admin));
+        assertSame(onlineRegionsMap, CommandAdapter.getOnlineRegionsMap(args, admin));
+
+        // not cached without args
+        assertNotSame(CommandAdapter.getOnlineRegionsMap(null, admin), CommandAdapter.getOnlineRegionsMap(null, admin));
+    }
+}
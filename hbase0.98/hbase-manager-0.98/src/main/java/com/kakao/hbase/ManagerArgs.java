@@ -34,13 +34,26 @@ public class ManagerArgs extends Args {
         optionParser.accepts(OPTION_REGION_SERVER).withRequiredArg().ofType(String.class);
         optionParser.accepts(OPTION_TURN_BALANCER_OFF);
         optionParser.accepts(OPTION_MOVE_ASYNC);
+        optionParser.accepts(OPTION_MOVE_PARALLEL).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_MOVE_ORDER).withRequiredArg().ofType(String.class);
+        optionParser.accepts(OPTION_MAX_PER_RS).withRequiredArg().ofType(Integer.class);
         optionParser.accepts(OPTION_MAX_ITERATION).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_MERGE_TIMEOUT).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_SCAN_TARGET_LATENCY).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_MC_START_TIMEOUT).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_SPLIT_TIMEOUT).withRequiredArg().ofType(Integer.class);
         optionParser.accepts(OPTION_SKIP_EXPORT);
+        optionParser.accepts(OPTION_BINARY);
         optionParser.accepts(OPTION_WAIT_UNTIL_FINISH);
         optionParser.accepts(OPTION_LOCALITY_THRESHOLD).withRequiredArg().ofType(Double.class);
         optionParser.accepts(OPTION_CF).withRequiredArg().ofType(String.class);
         optionParser.accepts(OPTION_INTERACTIVE);
         optionParser.accepts(OPTION_PHOENIX);
+        optionParser.accepts(OPTION_INTERVAL).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_TOP).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_SPLIT);
+        optionParser.accepts(OPTION_SPLITS_PER_MINUTE).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_BUDGET).withRequiredArg().ofType(String.class);
         return optionParser;
     }
 }
@@ -40,10 +40,18 @@ public class Assign implements Command {
             + "    balancer <on or off> : Turn automatic balancer on or off.\n"
             + "    empty <region server regex> <export output file>: Move all regions out of these region servers.\n"
             + "      --" + Args.OPTION_SKIP_EXPORT + ": Empty RS without exporting assignments.\n"
+            + "      --" + Args.OPTION_MOVE_PARALLEL + "=<number>: Empty all of the RSs at once"
+            + " keeping this number of region moves in flight.\n"
+            + "      --" + Args.OPTION_MAX_PER_RS + "=<number>: With --" + Args.OPTION_MOVE_PARALLEL
+            + ", the maximum number of concurrent moves from or to a single RS.\n"
+            + "      --" + Args.OPTION_BINARY + ": Export assignments to a binary snapshot.\n"
             + "    export <output file>: Export assignment of regions to a file.\n"
             + "      --" + Args.OPTION_REGION_SERVER + "=<region server regex>: Export these region servers only.\n"
+            + "      --" + Args.OPTION_BINARY + ": Export to a compact binary snapshot by scanning meta table once.\n"
+            + "        Regions of the system tables(hbase:meta, hbase:namespace) are not included.\n"
             + "    import <input file>: Import assignment of regions from a file.\n"
             + "      --" + Args.OPTION_REGION_SERVER + "=<region server regex>: Import these region servers only.\n"
+            + "      A binary snapshot is detected automatically and imported concurrently per region server.\n"
             + "    restore <table | rs> <regex> <timestamp>: Restore region assignments by using the versioned records of meta table.\n"
             + "      <timestamp> : In yyyyMMddHHmmss format\n"
             + "      --" + Args.OPTION_INTERACTIVE + ": Ask whether to proceed for each region.\n"
@@ -28,14 +28,16 @@ import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.UnknownRegionException;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.master.RegionPlan;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.ipc.RemoteException;
 
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings("unused")
 enum AssignAction {
@@ -75,6 +77,11 @@ enum AssignAction {
                     export(args, admin, expFileName, sourceRsRegex);
                 }
 
+                if (args.has(Args.OPTION_MOVE_PARALLEL)) {
+                    emptyConcurrently(admin, args, targetList, sourceServerNames);
+                    return;
+                }
+
                 for (ServerName sourceServerName : sourceServerNames) {
                     List<Triple<String, String, String>> plan = plan(args, admin, targetList, sourceServerName);
 
@@ -93,6 +100,64 @@ enum AssignAction {
             }
         }
 
+        /**
+         * Drains all of the source RSs at once. The moves of the sources are interleaved and run by MoveExecutor.
+         */
+        private void emptyConcurrently(HBaseAdmin admin, Args args, List<ServerName> targetList,
+            List<ServerName> sourceServerNames) throws IOException, InterruptedException {
+            int i;
+            for (i = 0; i < Constant.TRY_MAX; i++) {
+                List<RegionPlan> regionPlanList = planConcurrently(args, admin, targetList, sourceServerNames);
+                if (regionPlanList.size() == 0) break;
+
+                if (i == 0) {
+                    if (!args.isForceProceed()) {
+                        int progress = 1;
+                        for (RegionPlan regionPlan : regionPlanList) {
+                            System.out.println(progress++ + "/" + regionPlanList.size() + " - move "
+                                + regionPlan.getRegionInfo().getEncodedName()
+                                + " of " + CommandAdapter.getTableName(regionPlan.getRegionInfo())
+                                + " from " + regionPlan.getSource().getServerName()
+                                + " to " + regionPlan.getDestination().getServerName());
+                        }
+                        System.out.println(regionPlanList.size() + " regions will be moved.");
+                        if (!Util.askProceed()) return;
+                    }
+                } else {
+                    // regions split or not moved
+                    System.out.println("There are some regions not moved. Move again.");
+                }
+
+                MoveExecutor.create(args, admin).run(regionPlanList);
+                CommandAdapter.invalidateOnlineRegionsMap();
+            }
+
+            if (i >= Constant.TRY_MAX)
+                throw new IllegalStateException("Cannot empty all regions. Some regions are remained.");
+        }
+
+        private List<RegionPlan> planConcurrently(Args args, HBaseAdmin admin, List<ServerName> targetList,
+            List<ServerName> sourceServerNames) throws IOException {
+            Map<ServerName, List<HRegionInfo>> sourceRegions = new LinkedHashMap<>();
+            List<HRegionInfo> regions = new ArrayList<>();
+            for (ServerName sourceServerName : sourceServerNames) {
+                List<HRegionInfo> onlineRegions = CommandAdapter.getOnlineRegions(args, admin, sourceServerName);
+                sourceRegions.put(sourceServerName, onlineRegions);
+                regions.addAll(onlineRegions);
+            }
+            Map<HRegionInfo, ServerName> targets = new DrainPlanner(admin, args, targetList).assign(regions);
+
+            Map<ServerName, List<RegionPlan>> sourcePlans = new LinkedHashMap<>();
+            for (Map.Entry<ServerName, List<HRegionInfo>> entry : sourceRegions.entrySet()) {
+                List<RegionPlan> plans = new ArrayList<>();
+                for (HRegionInfo hRegionInfo : entry.getValue()) {
+                    plans.add(new RegionPlan(hRegionInfo, entry.getKey(), targets.get(hRegionInfo)));
+                }
+                sourcePlans.put(entry.getKey(), plans);
+            }
+            return DrainPlanner.interleave(sourcePlans);
+        }
+
         private void printSourceRSs(List<ServerName> sourceServerNames) {
             int i = 0;
             for (ServerName sourceServerName : sourceServerNames) {
@@ -187,20 +252,16 @@ enum AssignAction {
             Util.printVerboseMessage(args, "plan.getOnlineRegions - start");
             List<HRegionInfo> onlineRegions = CommandAdapter.getOnlineRegions(args, admin, sourceServerName);
             Util.printVerboseMessage(args, "plan.getOnlineRegions - end", startTimestamp);
-            List<ServerName> targetListToMove = new ArrayList<>();
             if (onlineRegions.size() > 0) {
+                Map<HRegionInfo, ServerName> targets = new DrainPlanner(admin, args, targetList).assign(onlineRegions);
                 for (HRegionInfo hRegionInfo : onlineRegions) {
-                    if (targetListToMove.size() == 0)
-                        targetListToMove = new ArrayList<>(targetList);
-
-                    ServerName targetServerName =
-                        targetListToMove.remove(new Random().nextInt(targetListToMove.size()));
+                    ServerName targetServerName = targets.get(hRegionInfo);
                     String encodedRegionName = hRegionInfo.getEncodedName();
                     plan.add(new ImmutableTriple<>(CommandAdapter.getTableName(hRegionInfo),
                         targetServerName.getServerName(), encodedRegionName));
                 }
             }
-            Util.printVerboseMessage(args, "plan.targetListToMove - end", startTimestamp);
+            Util.printVerboseMessage(args, "plan.targets - end", startTimestamp);
 
             return plan;
         }
@@ -286,9 +347,13 @@ enum AssignAction {
 
         private void importInternal(HBaseAdmin admin, String fileName, String regionServerRegex, Args args)
             throws IOException, InterruptedException {
+            if (AssignmentSnapshot.isSnapshot(fileName)) {
+                importSnapshot(admin, fileName, regionServerRegex, args);
+                return;
+            }
+
             Map<String, ServerName> serverNameMap = Common.serverNameMap(admin);
 
-            Set<String> importingServers = new HashSet<>();
             List<Triple<String, String, String>> assignmentList = new ArrayList<>();
             for (String assignment : Files.readAllLines(Paths.get(fileName), Constant.CHARSET)) {
                 String[] split = assignment.split(DELIMITER);
@@ -305,7 +370,6 @@ enum AssignAction {
                 if (!(serverNameStr == null || regionServerRegex != null
                     && !serverNameStr.matches(removeTimestamp(regionServerRegex)))) {
                     assignmentList.add(new ImmutableTriple<>(tableName, serverNameStr, encodedRegionName));
-                    importingServers.add(serverNameStr);
                 }
             }
 
@@ -319,18 +383,139 @@ enum AssignAction {
             move(admin, args, assignmentList);
             AssignAction.sleep(args, assignmentList.size());
 
-            retryImport(admin, args, importingServers, assignmentList);
+            retryImport(admin, args, assignmentList);
+        }
+
+        /**
+         * Reads the binary snapshot entry by entry into a single list per destination RS and moves regions
+         * concurrently per destination RS.
+         * Moves are verified in batch by scanning meta table.
+         */
+        private void importSnapshot(HBaseAdmin admin, String fileName, String regionServerRegex, Args args)
+            throws IOException, InterruptedException {
+            long startTimestamp = System.currentTimeMillis();
+            Map<String, ServerName> serverNameMap = Common.serverNameMap(admin);
+
+            // key: server name in the snapshot, value: server name of the running RS or null
+            Map<String, String> resolvedMap = new HashMap<>();
+            // key: target server name, value: assignments of the target server
+            Map<String, List<Triple<String, String, String>>> targetMap = new TreeMap<>();
+            Set<String> tableNames = new HashSet<>();
+            int size = 0;
+            try (AssignmentSnapshot.Reader reader = new AssignmentSnapshot.Reader(
+                new BufferedInputStream(new FileInputStream(fileName)))) {
+                System.out.println(reader.size() + " regions are in the snapshot.");
+                AssignmentSnapshot.Entry entry;
+                while ((entry = reader.next()) != null) {
+                    String serverNameOrg = entry.getServerName();
+                    if (!resolvedMap.containsKey(serverNameOrg)) {
+                        ServerName serverName = serverNameMap.get(Common.getServerNameKey(serverNameOrg));
+                        if (serverName == null) {
+                            System.out.println("RS " + serverNameOrg + " may be not running or invalid.");
+                            resolvedMap.put(serverNameOrg, null);
+                        } else if (regionServerRegex != null
+                            && !serverName.getServerName().matches(removeTimestamp(regionServerRegex))) {
+                            resolvedMap.put(serverNameOrg, null);
+                        } else {
+                            resolvedMap.put(serverNameOrg, serverName.getServerName());
+                        }
+                    }
+                    String serverNameStr = resolvedMap.get(serverNameOrg);
+                    if (serverNameStr == null) continue;
+
+                    List<Triple<String, String, String>> assignmentList = targetMap.get(serverNameStr);
+                    if (assignmentList == null) {
+                        assignmentList = new ArrayList<>();
+                        targetMap.put(serverNameStr, assignmentList);
+                    }
+                    assignmentList.add(new ImmutableTriple<>(entry.getTableName(), serverNameStr,
+                        entry.getEncodedRegionName()));
+                    size++;
+                    tableNames.add(entry.getTableName());
+                }
+            }
+            Util.printVerboseMessage(args, "importSnapshot - read", startTimestamp);
+
+            System.out.println(size + " regions will be imported to " + targetMap.size() + " RSs.");
+            if (!args.isForceProceed()) {
+                if (!Util.askProceed()) {
+                    return;
+                }
+            }
+
+            Map<String, Boolean> tableEnabledMap = new HashMap<>();
+            for (String tableName : tableNames) {
+                tableEnabledMap.put(tableName, Common.isTableEnabled(args, admin, tableName));
+            }
+
+            MoveTracker moveTracker = new MoveTracker(args, admin);
+            for (List<Triple<String, String, String>> assignmentList : targetMap.values()) {
+                Iterator<Triple<String, String, String>> iterator = assignmentList.iterator();
+                while (iterator.hasNext()) {
+                    Triple<String, String, String> triple = iterator.next();
+                    if (tableEnabledMap.get(triple.getLeft()) && !CommandAdapter.isMetaTable(triple.getLeft()))
+                        moveTracker.add(triple.getLeft(), triple.getRight(), triple.getMiddle());
+                    else
+                        iterator.remove();
+                }
+            }
+
+            RegionMover regionMover = regionMover(admin);
+            Set<String> done = new HashSet<>();
+            for (int i = 0; i < Constant.TRY_MAX; i++) {
+                if (i > 0) {
+                    System.out.println("Retry importing " + count(targetMap) + " regions");
+                    if (i > 1) assign(admin, targetMap);
+                }
+
+                for (String encodedRegionName : moveConcurrently(targetMap, regionMover)) {
+                    moveTracker.remove(encodedRegionName);
+                    done.add(encodedRegionName);
+                }
+                Util.printVerboseMessage(args, "importSnapshot - iteration - " + i + " - move", startTimestamp);
+
+                Thread.sleep(i == 0 ? Constant.WAIT_INTERVAL_MS : Constant.SMALL_WAIT_INTERVAL_MS);
+                done.addAll(moveTracker.confirm());
+                CommandAdapter.invalidateOnlineRegionsMap();
+
+                targetMap = remaining(targetMap, done);
+                if (targetMap.isEmpty()) {
+                    Util.printVerboseMessage(args, "importSnapshot - verified", startTimestamp);
+                    return;
+                }
+            }
+            throw new IllegalStateException(Constant.MESSAGE_CANNOT_MOVE + " - " + targetMap.toString());
         }
 
-        private void retryImport(HBaseAdmin admin, Args args, Set<String> importingServers
-            , List<Triple<String, String, String>> assignmentList) throws IOException, InterruptedException {
+        private void assign(HBaseAdmin admin, Map<String, List<Triple<String, String, String>>> targetMap) {
+            for (List<Triple<String, String, String>> assignmentList : targetMap.values()) {
+                for (Triple<String, String, String> triple : assignmentList) {
+                    try {
+                        admin.assign(triple.getRight().getBytes());
+                    } catch (IOException | java.lang.reflect.UndeclaredThrowableException e) {
+                        System.out.println("assign " + triple.getRight() + " - failed - " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        private RegionMover regionMover(final HBaseAdmin admin) {
+            return new RegionMover() {
+                @Override
+                public void move(String encodedRegionName, String serverName) throws IOException {
+                    admin.move(encodedRegionName.getBytes(), serverName.getBytes());
+                }
+            };
+        }
+
+        private void retryImport(HBaseAdmin admin, Args args, List<Triple<String, String, String>> assignmentList) throws IOException, InterruptedException {
             if (!args.has(Args.OPTION_MOVE_ASYNC)) return;
             long startTimestamp = System.currentTimeMillis();
 
             int i;
             List<Triple<String, String, String>> assignmentListRemaining = null;
             for (i = 0; i < Constant.TRY_MAX; i++) {
-                assignmentListRemaining = regionsNotImportedYet(args, admin, importingServers, assignmentList);
+                assignmentListRemaining = regionsNotImportedYet(args, admin, assignmentList);
                 if (assignmentListRemaining.size() == 0)
                     break;
 
@@ -357,27 +542,23 @@ enum AssignAction {
             }
         }
 
-        @SuppressWarnings("deprecation")
         private List<Triple<String, String, String>> regionsNotImportedYet(
-            Args args, HBaseAdmin admin, Set<String> importingServers,
-            List<Triple<String, String, String>> assignmentList) throws IOException, InterruptedException {
+            Args args, HBaseAdmin admin, List<Triple<String, String, String>> assignmentList)
+            throws IOException, InterruptedException {
             List<Triple<String, String, String>> assignmentListRemaining = new ArrayList<>();
-            Set<String> onlineRegions = new HashSet<>();
-            for (String server : importingServers) {
-                for (HRegionInfo hRegionInfo :
-                    CommandAdapter.getOnlineRegions(args, admin, CommandAdapter.create(server))) {
-                    onlineRegions.add(hRegionInfo.getEncodedName());
-                }
-            }
-
             Map<String, Boolean> tableEnabledMap = createTableEnabledMap(args, admin, assignmentList);
 
+            MoveTracker moveTracker = new MoveTracker(args, admin);
             for (Triple<String, String, String> triple : assignmentList) {
-                if (tableEnabledMap.get(triple.getLeft())) {
-                    if (onlineRegions.contains(triple.getRight())) {
-                        if (!onlineRegions.contains(triple.getRight()))
-                            assignmentListRemaining.add(triple);
-                    }
+                if (tableEnabledMap.get(triple.getLeft()) && !CommandAdapter.isMetaTable(triple.getLeft()))
+                    moveTracker.add(triple.getLeft(), triple.getRight(), triple.getMiddle());
+            }
+            Set<String> moved = moveTracker.confirm();
+
+            for (Triple<String, String, String> triple : assignmentList) {
+                if (tableEnabledMap.get(triple.getLeft()) && !CommandAdapter.isMetaTable(triple.getLeft())) {
+                    if (!moved.contains(triple.getRight()))
+                        assignmentListRemaining.add(triple);
                 }
             }
             return assignmentListRemaining;
@@ -601,6 +782,7 @@ enum AssignAction {
     static final String DELIMITER = "/";
     private static int processedCount = 0;
     private static int progress = 1;
+    public static int IMPORT_THREAD_POOL_SIZE = 10;
 
     private static void setBalancerRunning(HBaseAdmin admin, boolean targetStatus) throws IOException {
         boolean balancerRunning = admin.setBalancerRunning(targetStatus, true);
@@ -640,12 +822,17 @@ enum AssignAction {
     private static void export(Args args, HBaseAdmin admin, String fileName, String regionServerRegex)
         throws IOException {
         processedCount = 0;
+        if (args.has(Args.OPTION_BINARY)) {
+            exportSnapshot(args, admin, fileName, regionServerRegex);
+            return;
+        }
 
         try (PrintWriter writer = new PrintWriter(fileName, Constant.CHARSET.name())) {
-            List<ServerName> serverNameList = Common.regionServers(admin);
-            for (ServerName serverName : serverNameList) {
+            Map<ServerName, List<HRegionInfo>> onlineRegionsMap = CommandAdapter.getOnlineRegionsMap(args, admin);
+            for (Map.Entry<ServerName, List<HRegionInfo>> entry : onlineRegionsMap.entrySet()) {
+                ServerName serverName = entry.getKey();
                 if (regionServerRegex == null || serverName.getServerName().matches(regionServerRegex)) {
-                    for (HRegionInfo hRegionInfo : CommandAdapter.getOnlineRegions(args, admin, serverName)) {
+                    for (HRegionInfo hRegionInfo : entry.getValue()) {
                         String assignment = serverName.getServerName() + DELIMITER + hRegionInfo.getEncodedName()
                             + DELIMITER + CommandAdapter.getTableName(hRegionInfo);
                         System.out.println(assignment);
@@ -657,5 +844,117 @@ enum AssignAction {
         }
     }
 
+    /**
+     * Moves regions concurrently, one task per target RS.
+     * A failed move is left to be verified and retried by the caller.
+     *
+     * @param targetMap key: target server name, value: (table name, target server name, encoded region name)
+     * @return encoded names of the regions that do not exist any more
+     */
+    @VisibleForTesting
+    static Set<String> moveConcurrently(Map<String, List<Triple<String, String, String>>> targetMap,
+        final RegionMover regionMover) throws InterruptedException {
+        final int totalRegions = count(targetMap);
+        final AtomicInteger progress = new AtomicInteger();
+        final Set<String> skipped = Collections.synchronizedSet(new HashSet<String>());
+
+        ExecutorService executorService = Executors.newFixedThreadPool(IMPORT_THREAD_POOL_SIZE);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (final List<Triple<String, String, String>> assignmentList : targetMap.values()) {
+                futures.add(executorService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (Triple<String, String, String> triple : assignmentList) {
+                            String tableName = triple.getLeft();
+                            String serverName = triple.getMiddle();
+                            String encodedRegionName = triple.getRight();
+                            String message = progress.incrementAndGet() + "/" + totalRegions + " - move "
+                                + encodedRegionName + " of " + tableName + " to " + serverName;
+                            try {
+                                regionMover.move(encodedRegionName, serverName);
+                                System.out.println(message);
+                            } catch (UnknownRegionException e) {
+                                skipped.add(encodedRegionName);
+                                System.out.println(message + " - skipped - " + e.getMessage());
+                            } catch (IOException | java.lang.reflect.UndeclaredThrowableException e) {
+                                System.out.println(message + " - failed - " + e.getMessage());
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return skipped;
+    }
+
+    /**
+     * @return assignments of the regions not done yet. Target servers without any of them are removed.
+     */
+    @VisibleForTesting
+    static Map<String, List<Triple<String, String, String>>> remaining(
+        Map<String, List<Triple<String, String, String>>> targetMap, Set<String> done) {
+        Map<String, List<Triple<String, String, String>>> remainingMap = new TreeMap<>();
+        for (Map.Entry<String, List<Triple<String, String, String>>> entry : targetMap.entrySet()) {
+            List<Triple<String, String, String>> remainingList = new ArrayList<>();
+            for (Triple<String, String, String> triple : entry.getValue()) {
+                if (!done.contains(triple.getRight())) remainingList.add(triple);
+            }
+            if (!remainingList.isEmpty()) remainingMap.put(entry.getKey(), remainingList);
+        }
+        return remainingMap;
+    }
+
+    private static int count(Map<String, List<Triple<String, String, String>>> targetMap) {
+        int count = 0;
+        for (List<Triple<String, String, String>> assignmentList : targetMap.values()) {
+            count += assignmentList.size();
+        }
+        return count;
+    }
+
+    /**
+     * Exports assignments as a binary snapshot built from a single scan of meta table.
+     * Regions of the system tables such as meta and namespace tables are not exported.
+     */
+    private static void exportSnapshot(Args args, HBaseAdmin admin, String fileName, String regionServerRegex)
+        throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+
+        NavigableMap<HRegionInfo, ServerName> regionServerMap =
+            CommandAdapter.regionServerMap(args, admin.getConfiguration(), admin.getConnection(), false);
+        List<AssignmentSnapshot.Entry> entries = new ArrayList<>(regionServerMap.size());
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+            ServerName serverName = entry.getValue();
+            if (serverName == null) continue;
+            if (regionServerRegex == null || serverName.getServerName().matches(regionServerRegex)) {
+                entries.add(new AssignmentSnapshot.Entry(serverName.getServerName(),
+                    entry.getKey().getEncodedName(), CommandAdapter.getTableName(entry.getKey())));
+            }
+        }
+
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(fileName))) {
+            AssignmentSnapshot.write(outputStream, entries);
+        }
+        processedCount = entries.size();
+
+        System.out.println(processedCount + " regions are exported to " + fileName + ".");
+        Util.printVerboseMessage(args, "exportSnapshot", startTimestamp);
+    }
+
     public abstract void run(HBaseAdmin admin, Args args) throws IOException, InterruptedException;
+
+    interface RegionMover {
+        void move(String encodedRegionName, String serverName) throws IOException;
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Binary snapshot of region assignments.
+ * <p>
+ * Format: magic, version, string table of the server and table names, number of entries and the entries.
+ * An entry is the indexes of its server and table name in the string table and its encoded region name.
+ * Encoded region names in 32 hex digits are written in 16 bytes.
+ */
+class AssignmentSnapshot {
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = new byte[]{'H', 'B', 'A', 'S'};
+    private static final int ENCODED_NAME_HEX_LENGTH = 32;
+    private static final byte ENCODED_NAME_HEX = 0;
+    private static final byte ENCODED_NAME_STRING = 1;
+
+    private AssignmentSnapshot() {
+    }
+
+    static boolean isSnapshot(String fileName) throws IOException {
+        try (InputStream in = new FileInputStream(fileName)) {
+            byte[] magic = new byte[MAGIC.length];
+            int read = 0;
+            while (read < magic.length) {
+                int n = in.read(magic, read, magic.length - read);
+                if (n < 0) return false;
+                read += n;
+            }
+            return Arrays.equals(MAGIC, magic);
+        }
+    }
+
+    static void write(OutputStream outputStream, List<Entry> entries) throws IOException {
+        Map<String, Integer> stringIndexMap = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            intern(stringIndexMap, entry.serverName);
+            intern(stringIndexMap, entry.tableName);
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.write(MAGIC);
+        WritableUtils.writeVInt(out, VERSION);
+        WritableUtils.writeVInt(out, stringIndexMap.size());
+        for (String string : stringIndexMap.keySet()) Text.writeString(out, string);
+
+        WritableUtils.writeVInt(out, entries.size());
+        for (Entry entry : entries) {
+            WritableUtils.writeVInt(out, stringIndexMap.get(entry.serverName));
+            WritableUtils.writeVInt(out, stringIndexMap.get(entry.tableName));
+            writeEncodedName(out, entry.encodedRegionName);
+        }
+        out.flush();
+    }
+
+    private static void intern(Map<String, Integer> stringIndexMap, String string) {
+        if (!stringIndexMap.containsKey(string)) stringIndexMap.put(string, stringIndexMap.size());
+    }
+
+    private static void writeEncodedName(DataOutput out, String encodedRegionName) throws IOException {
+        if (encodedRegionName.length() == ENCODED_NAME_HEX_LENGTH && encodedRegionName.matches("[0-9a-f]+")) {
+            out.writeByte(ENCODED_NAME_HEX);
+            for (int i = 0; i < ENCODED_NAME_HEX_LENGTH; i += 2) {
+                out.writeByte(Integer.parseInt(encodedRegionName.substring(i, i + 2), 16));
+            }
+        } else {
+            out.writeByte(ENCODED_NAME_STRING);
+            Text.writeString(out, encodedRegionName);
+        }
+    }
+
+    private static String readEncodedName(DataInput in) throws IOException {
+        byte type = in.readByte();
+        if (type == ENCODED_NAME_HEX) {
+            StringBuilder sb = new StringBuilder(ENCODED_NAME_HEX_LENGTH);
+            for (int i = 0; i < ENCODED_NAME_HEX_LENGTH / 2; i++) {
+                String hex = Integer.toHexString(in.readByte() & 0xff);
+                if (hex.length() == 1) sb.append('0');
+                sb.append(hex);
+            }
+            return sb.toString();
+        } else if (type == ENCODED_NAME_STRING) {
+            return Text.readString(in);
+        } else {
+            throw new IOException("Invalid assignment snapshot - unknown encoded name type " + type);
+        }
+    }
+
+    static class Entry {
+        private final String serverName;
+        private final String encodedRegionName;
+        private final String tableName;
+
+        Entry(String serverName, String encodedRegionName, String tableName) {
+            this.serverName = serverName;
+            this.encodedRegionName = encodedRegionName;
+            this.tableName = tableName;
+        }
+
+        String getServerName() {
+            return serverName;
+        }
+
+        String getEncodedRegionName() {
+            return encodedRegionName;
+        }
+
+        String getTableName() {
+            return tableName;
+        }
+    }
+
+    /**
+     * Reads the entries one by one.
+     */
+    static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final String[] strings;
+        private final int size;
+        private int read = 0;
+
+        Reader(InputStream inputStream) throws IOException {
+            in = new DataInputStream(inputStream);
+            byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(MAGIC, magic)) throw new IOException("Invalid assignment snapshot");
+            int version = WritableUtils.readVInt(in);
+            if (version != VERSION)
+                throw new IOException("Unsupported assignment snapshot version - " + version);
+
+            strings = new String[WritableUtils.readVInt(in)];
+            for (int i = 0; i < strings.length; i++) strings[i] = Text.readString(in);
+            size = WritableUtils.readVInt(in);
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return null if there is no more entry
+         */
+        Entry next() throws IOException {
+            if (read >= size) return null;
+            read++;
+            String serverName = strings[WritableUtils.readVInt(in)];
+            String tableName = strings[WritableUtils.readVInt(in)];
+            return new Entry(serverName, readEncodedName(in), tableName);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
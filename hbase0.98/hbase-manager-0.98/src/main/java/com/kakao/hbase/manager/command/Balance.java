@@ -63,17 +63,30 @@ public class Balance implements Command {
                 " <table name(regex)> <rule> [options]\n"
                 + "  rule:\n"
                 + "    default  - HBase default balancer. Asynchronous\n"
-                + "    rr       - Round robin\n"
-                + "    rd       - Random\n"
+                + "    rr       - Round robin. Regions stay on their servers as long as round robin allows.\n"
+                + "    rd       - Random. Regions stay on their servers as long as random assignment allows.\n"
                 + "    st       - Stochastic load balancer for all tables. "
                 + "The regions of a single table may not be distributed well across the region servers.\n"
                 + "    st2      - Stochastic load balancer for every single table. "
                 + "The regions of a single table may be distributed well across the region servers.\n"
+                + "    sim      - Offline balance simulator. Runs parallel annealing on a snapshot of the cluster for "
+                + BalanceSimulator.TIME_BUDGET_MS / 1000 + " secs.\n"
+                + "    ld       - Load aware. Samples region loads for the interval and evens out the requests in it "
+                + "with the balance simulator.\n"
                 + "  options:\n"
                 + "    --" + ManagerArgs.OPTION_TURN_BALANCER_OFF + ": During balancing turn balancer off.\n"
                 + "    --" + ManagerArgs.OPTION_BALANCE_FACTOR + "=<factor>:" +
-                " Stochastic load balancer will balance by this single highly weighted factor.\n"
+                " Stochastic load balancer or simulator will balance by this single highly weighted factor.\n"
+                + "    --" + Args.OPTION_INTERVAL + "=<secs>: With " + BalanceRule.LD.name().toLowerCase()
+                + ", the interval to sample region loads. Default 10 secs.\n"
                 + "    --" + Args.OPTION_MOVE_ASYNC + ": Move regions asynchronously.\n"
+                + "    --" + Args.OPTION_MOVE_PARALLEL + "=<number>: Keep this number of region moves in flight.\n"
+                + "    --" + Args.OPTION_MOVE_ORDER + "=<" + MoveScheduler.Order.usage() + ">: Preferred order of moves."
+                + " Moves are interleaved so that no RS receives regions or requests much before others leave it."
+                + " Default is plan.\n"
+                + "    --" + Args.OPTION_MAX_PER_RS + "=<number>: With --" + Args.OPTION_MOVE_PARALLEL
+                + ", the maximum number of concurrent moves from or to a single region server. Default is "
+                + MoveExecutor.DEFAULT_MAX_PER_RS + ".\n"
                 + "  factors:\n"
                 + BalanceFactor.usage(4)
                 + Args.commonUsage();
@@ -137,7 +150,8 @@ public class Balance implements Command {
                 admin.balancer();
                 System.out.println("Run hbase default balancer. This is an asynchronous operation.");
             } else {
-                List<RegionPlan> regionPlanList = rule.makePlan(admin, tableNameSet, args);
+                List<RegionPlan> regionPlanList =
+                    MoveScheduler.schedule(admin, args, rule.makePlan(admin, tableNameSet, args));
                 BalanceFactor.printFactor(BalanceFactor.parseArg(args));
 
                 boolean asynchronous = args.has(Args.OPTION_MOVE_ASYNC);
@@ -195,6 +209,11 @@ public class Balance implements Command {
 
     @SuppressWarnings("deprecation")
     private void balance(Args args, List<RegionPlan> regionPlanList, Phase phase, boolean asynchronous) throws IOException, InterruptedException {
+        if (phase == Phase.BALANCE && !asynchronous && args.has(Args.OPTION_MOVE_PARALLEL)) {
+            MoveExecutor.create(args, admin).run(regionPlanList);
+            return;
+        }
+
         int progress = 1;
         for (RegionPlan regionPlan : regionPlanList) {
             String tableName = Bytes.toString(regionPlan.getRegionInfo().getTableName());
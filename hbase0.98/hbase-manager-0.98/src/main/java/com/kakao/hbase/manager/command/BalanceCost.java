@@ -0,0 +1,107 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.LoadEntry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Built-in cost functions of the balance simulator. Default weights follow the stochastic load balancer of HBase.
+ */
+enum BalanceCost implements BalanceSimulator.CostFunction {
+    REGION_COUNT(BalanceFactor.MINIMIZE_REGION_COUNT_SKEW, null, 500, 50),
+    TABLE_SKEW(BalanceFactor.MINIMIZE_TABLE_SKEW, null, 35, 5) {
+        @Override
+        public int groups(ClusterSnapshot snapshot) {
+            return snapshot.getNumTables();
+        }
+
+        @Override
+        public int group(ClusterSnapshot snapshot, int region) {
+            return snapshot.getTable(region);
+        }
+    },
+    READ_REQUEST(BalanceFactor.MINIMIZE_READ_REQUEST_SKEW, LoadEntry.Reads, 5, 500),
+    WRITE_REQUEST(BalanceFactor.MINIMIZE_WRITE_REQUEST_SKEW, LoadEntry.Writes, 5, 500),
+    MEMSTORE_SIZE(BalanceFactor.MINIMIZE_MEMSTORE_SIZE_SKEW, LoadEntry.MemstoreSize, 5, 5),
+    STOREFILE_SIZE(BalanceFactor.MINIMIZE_STOREFILE_SIZE_SKEW, LoadEntry.FileSize, 5, 5);
+
+    static final double DEFAULT_MOVE_WEIGHT = 7;
+
+    private final BalanceFactor balanceFactor;
+    private final LoadEntry loadEntry;
+    private final double defaultWeight;
+    // weights to even out the current requests
+    private final double loadWeight;
+
+    BalanceCost(BalanceFactor balanceFactor, LoadEntry loadEntry, double defaultWeight, double loadWeight) {
+        this.balanceFactor = balanceFactor;
+        this.loadEntry = loadEntry;
+        this.defaultWeight = defaultWeight;
+        this.loadWeight = loadWeight;
+    }
+
+    /**
+     * @return the default weights or the weights highly weighted to the given factor
+     */
+    static Map<BalanceSimulator.CostFunction, Double> weights(BalanceFactor balanceFactor) {
+        Map<BalanceSimulator.CostFunction, Double> weights = new LinkedHashMap<>();
+        for (BalanceCost balanceCost : values()) {
+            if (balanceFactor == BalanceFactor.EMPTY) {
+                weights.put(balanceCost, balanceCost.defaultWeight);
+            } else {
+                weights.put(balanceCost, (double) (balanceCost.balanceFactor == balanceFactor ?
+                    BalanceFactor.WEIGHT_HIGH : BalanceFactor.WEIGHT_LOW));
+            }
+        }
+        return weights;
+    }
+
+    static Map<BalanceSimulator.CostFunction, Double> loadWeights() {
+        Map<BalanceSimulator.CostFunction, Double> weights = new LinkedHashMap<>();
+        for (BalanceCost balanceCost : values()) {
+            weights.put(balanceCost, balanceCost.loadWeight);
+        }
+        return weights;
+    }
+
+    static double moveWeight(BalanceFactor balanceFactor) {
+        if (balanceFactor == BalanceFactor.EMPTY) return DEFAULT_MOVE_WEIGHT;
+        return balanceFactor == BalanceFactor.MINIMIZE_MOVE_COUNT ? BalanceFactor.WEIGHT_HIGH : BalanceFactor.WEIGHT_LOW;
+    }
+
+    LoadEntry getLoadEntry() {
+        return loadEntry;
+    }
+
+    @Override
+    public int groups(ClusterSnapshot snapshot) {
+        return 1;
+    }
+
+    @Override
+    public int group(ClusterSnapshot snapshot, int region) {
+        return 0;
+    }
+
+    @Override
+    public double value(ClusterSnapshot snapshot, int region) {
+        return loadEntry == null ? 1 : snapshot.getLoad(loadEntry, region);
+    }
+}
@@ -119,7 +119,8 @@ public enum BalanceFactor {
     }
 
     public static BalanceFactor parseArg(Args args) {
-        if (((String) args.getOptionSet().nonOptionArguments().get(2)).toUpperCase().equals(BalanceRule.ST.name())) {
+        String rule = ((String) args.getOptionSet().nonOptionArguments().get(2)).toUpperCase();
+        if (rule.equals(BalanceRule.ST.name()) || rule.equals(BalanceRule.SIM.name())) {
             if (args.getOptionSet().has(ManagerArgs.OPTION_BALANCE_FACTOR)) {
                 String factor = ((String) args.getOptionSet().valueOf(ManagerArgs.OPTION_BALANCE_FACTOR)).toUpperCase();
                 try {
@@ -16,6 +16,7 @@
 
 package com.kakao.hbase.manager.command;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.specific.CommandAdapter;
 import org.apache.hadoop.conf.Configuration;
@@ -24,51 +25,25 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.master.RegionPlan;
+import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.*;
 
 @SuppressWarnings("unused")
 enum BalanceRule {
     RR {
         @Override
         List<RegionPlan> makePlan(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
-            List<ServerName> serverNames = getServerNames(admin);
-            Map<HRegionInfo, ServerName> regionLocations = Balance.getRegionAssignmentMap(admin, tableNameSet);
-
-            int i = 0;
-            List<RegionPlan> regionPlanList = new ArrayList<>();
-            for (String tableName : tableNameSet) {
-                for (HRegionInfo hRegionInfo : admin.getTableRegions(tableName.getBytes())) {
-                    ServerName source = regionLocations.get(hRegionInfo);
-                    ServerName dest = serverNames.get((i++) % serverNames.size());
-                    if (source == null || !source.equals(dest))
-                        regionPlanList.add(new RegionPlan(hRegionInfo, source, dest));
-                }
-            }
-            return regionPlanList;
+            return makeWindowPlan(admin, tableNameSet, null);
         }
     },
     RD {
         @Override
         List<RegionPlan> makePlan(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
-            List<ServerName> serverNames = getServerNames(admin);
-            List<ServerName> serverNamesToMove = new ArrayList<>(serverNames);
-            Map<HRegionInfo, ServerName> regionLocations = Balance.getRegionAssignmentMap(admin, tableNameSet);
-
-            List<RegionPlan> regionPlanList = new ArrayList<>();
-            for (String tableName : tableNameSet) {
-                for (HRegionInfo hRegionInfo : admin.getTableRegions(tableName.getBytes())) {
-                    if (serverNamesToMove.size() == 0)
-                        serverNamesToMove = new ArrayList<>(serverNames);
-
-                    ServerName source = regionLocations.get(hRegionInfo);
-                    ServerName dest = serverNamesToMove.remove(new Random().nextInt(serverNamesToMove.size()));
-                    if (!source.equals(dest))
-                        regionPlanList.add(new RegionPlan(hRegionInfo, source, dest));
-                }
-            }
-            return regionPlanList;
+            return makeWindowPlan(admin, tableNameSet, new Random());
         }
     },
     ST {
@@ -80,15 +55,22 @@ enum BalanceRule {
     ST2 {
         @Override
         List<RegionPlan> makePlan(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
-            List<RegionPlan> regionPlanList = new ArrayList<>();
-            for (final String tableName : tableNameSet) {
-                HashSet<String> singleTableName = new HashSet<>();
-                singleTableName.add(tableName);
-                List<RegionPlan> regionPlans = makeStochasticPlan(admin, singleTableName, BalanceFactor.parseArg(args));
-                regionPlanList.addAll(regionPlans);
-            }
-
-            return regionPlanList;
+            return makeTablePlan(admin, tableNameSet, BalanceFactor.parseArg(args));
+        }
+    },
+    SIM {
+        @Override
+        List<RegionPlan> makePlan(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
+            BalanceFactor balanceFactor = BalanceFactor.parseArg(args);
+            return makeSimulatedPlan(ClusterSnapshot.create(admin, tableNameSet, args),
+                BalanceCost.weights(balanceFactor), BalanceCost.moveWeight(balanceFactor));
+        }
+    },
+    LD {
+        @Override
+        List<RegionPlan> makePlan(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
+            return makeSimulatedPlan(ClusterSnapshot.create(admin, tableNameSet, args, args.getIntervalMS()),
+                BalanceCost.loadWeights(), BalanceCost.DEFAULT_MOVE_WEIGHT);
         }
     },
     DEFAULT {
@@ -98,6 +80,10 @@ enum BalanceRule {
         }
     };
 
+    private static final String MAX_RUNNING_TIME_KEY = "hbase.master.balancer.stochastic.maxRunningTime";
+    public static int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    public static long TABLE_TIME_BUDGET_MS = 5000;
+
     private static List<RegionPlan> makeStochasticPlan(
             HBaseAdmin admin, Set<String> tableNameSet, BalanceFactor balanceFactor) throws IOException
     {
@@ -118,6 +104,227 @@ enum BalanceRule {
         return CommandAdapter.makePlan(admin, clusterState, conf);
     }
 
+    /**
+     * Plans every single table in parallel on a single snapshot of the cluster and moves the surplus regions of the
+     * tables between region servers so that the total number of regions of each region server is also balanced.
+     */
+    private static List<RegionPlan> makeTablePlan(HBaseAdmin admin, Set<String> tableNameSet,
+        BalanceFactor balanceFactor) throws IOException {
+        final ClusterStatus clusterStatus = admin.getClusterStatus();
+        final Map<HRegionInfo, ServerName> regionAssignmentMap = Balance.getRegionAssignmentMap(admin, tableNameSet);
+        final Configuration conf = new Configuration(admin.getConfiguration());
+        conf.setFloat("hbase.regions.slop", 0f);
+        conf.setLong(MAX_RUNNING_TIME_KEY, TABLE_TIME_BUDGET_MS);
+        balanceFactor.setConf(conf);
+
+        Map<HRegionInfo, String> regionTableMap = new HashMap<>();
+        final Map<String, List<HRegionInfo>> tableRegionsMap = new TreeMap<>();
+        for (HRegionInfo regionInfo : regionAssignmentMap.keySet()) {
+            @SuppressWarnings("deprecation")
+            String tableName = Bytes.toString(regionInfo.getTableName());
+            regionTableMap.put(regionInfo, tableName);
+            List<HRegionInfo> regions = tableRegionsMap.get(tableName);
+            if (regions == null) {
+                regions = new ArrayList<>();
+                tableRegionsMap.put(tableName, regions);
+            }
+            regions.add(regionInfo);
+        }
+
+        List<Callable<List<RegionPlan>>> tasks = new ArrayList<>();
+        for (final List<HRegionInfo> regions : tableRegionsMap.values()) {
+            tasks.add(new Callable<List<RegionPlan>>() {
+                @Override
+                public List<RegionPlan> call() throws Exception {
+                    Map<ServerName, List<HRegionInfo>> clusterState = new TreeMap<>();
+                    for (ServerName serverName : clusterStatus.getServers())
+                        clusterState.put(serverName, new ArrayList<HRegionInfo>());
+                    for (HRegionInfo regionInfo : regions) {
+                        List<HRegionInfo> hRegionInfos = clusterState.get(regionAssignmentMap.get(regionInfo));
+                        if (hRegionInfos != null) hRegionInfos.add(regionInfo);
+                    }
+                    return CommandAdapter.makePlan(clusterStatus, clusterState, new Configuration(conf));
+                }
+            });
+        }
+
+        Map<HRegionInfo, ServerName> assignment = new HashMap<>(regionAssignmentMap);
+        ForkJoinPool pool = new ForkJoinPool(THREAD_POOL_SIZE);
+        try {
+            for (Future<List<RegionPlan>> future : pool.invokeAll(tasks)) {
+                for (RegionPlan regionPlan : future.get()) {
+                    assignment.put(regionPlan.getRegionInfo(), regionPlan.getDestination());
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Balance planning is interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        balanceServerCounts(regionAssignmentMap, assignment, regionTableMap, getServerNames(admin));
+
+        List<RegionPlan> regionPlanList = new ArrayList<>();
+        for (List<HRegionInfo> regions : tableRegionsMap.values()) {
+            for (HRegionInfo regionInfo : regions) {
+                ServerName source = regionAssignmentMap.get(regionInfo);
+                ServerName dest = assignment.get(regionInfo);
+                if (dest != null && !dest.equals(source)) regionPlanList.add(new RegionPlan(regionInfo, source, dest));
+            }
+        }
+        return regionPlanList;
+    }
+
+    /**
+     * Moves a region of a table from the region server with the most regions to the one with the fewest regions,
+     * as long as the table has more regions on the former, until the region counts differ by at most one.
+     * Prefers the regions that are moved back to their initial servers or moved anyway.
+     */
+    @VisibleForTesting
+    static <R, S> void balanceServerCounts(Map<R, S> initial, Map<R, S> assignment, Map<R, String> tables,
+        List<S> servers) {
+        Map<S, Integer> counts = new HashMap<>();
+        Map<S, Map<String, List<R>>> serverTableRegions = new HashMap<>();
+        for (S server : servers) {
+            counts.put(server, 0);
+            serverTableRegions.put(server, new HashMap<String, List<R>>());
+        }
+        for (Map.Entry<R, S> entry : assignment.entrySet()) {
+            Map<String, List<R>> tableRegions = serverTableRegions.get(entry.getValue());
+            if (tableRegions == null) continue;
+            counts.put(entry.getValue(), counts.get(entry.getValue()) + 1);
+            String table = tables.get(entry.getKey());
+            List<R> regions = tableRegions.get(table);
+            if (regions == null) {
+                regions = new ArrayList<>();
+                tableRegions.put(table, regions);
+            }
+            regions.add(entry.getKey());
+        }
+        if (servers.isEmpty()) return;
+
+        while (true) {
+            S max = servers.get(0), min = servers.get(0);
+            for (S server : servers) {
+                if (counts.get(server) > counts.get(max)) max = server;
+                if (counts.get(server) < counts.get(min)) min = server;
+            }
+            if (counts.get(max) - counts.get(min) <= 1) return;
+
+            List<R> candidates = null;
+            Map<String, List<R>> minTableRegions = serverTableRegions.get(min);
+            for (Map.Entry<String, List<R>> entry : serverTableRegions.get(max).entrySet()) {
+                List<R> regions = minTableRegions.get(entry.getKey());
+                if (entry.getValue().size() > (regions == null ? 0 : regions.size())) {
+                    candidates = entry.getValue();
+                    break;
+                }
+            }
+            if (candidates == null) return;
+
+            int index = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                S source = initial.get(candidates.get(i));
+                if (min.equals(source)) {
+                    index = i;
+                    break;
+                }
+                if (!max.equals(source)) index = i;
+            }
+
+            R region = candidates.remove(index);
+            String table = tables.get(region);
+            List<R> regions = minTableRegions.get(table);
+            if (regions == null) {
+                regions = new ArrayList<>();
+                minTableRegions.put(table, regions);
+            }
+            regions.add(region);
+            assignment.put(region, min);
+            counts.put(max, counts.get(max) - 1);
+            counts.put(min, counts.get(min) + 1);
+        }
+    }
+
+    private static List<RegionPlan> makeSimulatedPlan(ClusterSnapshot snapshot,
+        Map<BalanceSimulator.CostFunction, Double> weights, double moveWeight) throws IOException {
+        BalanceSimulator simulator = new BalanceSimulator(snapshot, weights, moveWeight);
+
+        long timestamp = System.currentTimeMillis();
+        int[] assignment;
+        try {
+            assignment = simulator.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Balance simulation is interrupted");
+        }
+        System.out.println("Cost: " + simulator.cost(snapshot.getStartAssignment()) + " -> "
+            + simulator.cost(assignment) + " in " + (System.currentTimeMillis() - timestamp) + " ms");
+
+        return snapshot.toRegionPlans(assignment);
+    }
+
+    private static List<RegionPlan> makeWindowPlan(HBaseAdmin admin, Set<String> tableNameSet, Random random)
+        throws IOException {
+        List<ServerName> serverNames = getServerNames(admin);
+        Map<HRegionInfo, ServerName> regionLocations = Balance.getRegionAssignmentMap(admin, tableNameSet);
+
+        List<HRegionInfo> regions = new ArrayList<>();
+        for (String tableName : tableNameSet) {
+            regions.addAll(admin.getTableRegions(tableName.getBytes()));
+        }
+
+        List<RegionPlan> regionPlanList = new ArrayList<>();
+        for (Map.Entry<HRegionInfo, ServerName> entry
+            : assignInWindows(regions, regionLocations, serverNames, random).entrySet()) {
+            regionPlanList.add(new RegionPlan(entry.getKey(), regionLocations.get(entry.getKey()), entry.getValue()));
+        }
+        return regionPlanList;
+    }
+
+    /**
+     * Assigns every window of n consecutive regions to n distinct servers as round robin does, but keeps as many
+     * regions of the window on their current servers as possible. The remaining servers of the window are given
+     * to the other regions in order, or randomly if random is not null.
+     * <p>
+     * Only a cluster that is already laid out in windows, for example by a previous run of rr or rd, needs no moves.
+     * A cluster balanced only by count, as the stock balancer does, is not: its regions are placed regardless of
+     * their order and about a third of them share a server with another region of their window, so about a third
+     * of the regions are moved.
+     *
+     * @return destination servers of the regions to be moved, in the order of the regions
+     */
+    @VisibleForTesting
+    static <R, S> Map<R, S> assignInWindows(List<R> regions, Map<R, S> locations, List<S> servers, Random random) {
+        Map<R, S> result = new LinkedHashMap<>();
+        for (int i = 0; i < regions.size(); i += servers.size()) {
+            List<R> window = regions.subList(i, Math.min(i + servers.size(), regions.size()));
+
+            // a server can keep only one of the regions on it
+            List<R> candidates = new ArrayList<>(window);
+            if (random != null) Collections.shuffle(candidates, random);
+            Set<S> freeServers = new LinkedHashSet<>(servers);
+            Set<R> kept = new HashSet<>();
+            for (R region : candidates) {
+                S location = locations.get(region);
+                if (location != null && freeServers.remove(location)) kept.add(region);
+            }
+
+            List<S> destinations = new ArrayList<>(freeServers);
+            if (random != null) Collections.shuffle(destinations, random);
+            int j = 0;
+            for (R region : window) {
+                if (!kept.contains(region)) result.put(region, destinations.get(j++));
+            }
+        }
+        return result;
+    }
+
     static List<ServerName> getServerNames(HBaseAdmin admin) throws IOException {
         ClusterStatus clusterStatus = admin.getClusterStatus();
         List<ServerName> serverNameList = new ArrayList<>(clusterStatus.getServers());
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Plans region assignments offline on a cluster snapshot.
+ * <p>
+ * Runs independent simulated annealing searches on THREAD_POOL_SIZE threads until the time budget is spent and
+ * takes the best assignment of them. Every cost function measures the skew of a per-server sum of region values,
+ * optionally per group such as a table, so that the cost change of a single region move is computed in O(1).
+ */
+class BalanceSimulator {
+    public static int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    public static long TIME_BUDGET_MS = 30000;
+    private static final int CHECK_INTERVAL_STEPS = 4096;
+    private static final int TEMPERATURE_SAMPLES = 1000;
+    private static final double FINAL_TEMPERATURE_RATIO = 0.0001;
+    private final ClusterSnapshot snapshot;
+    private final int numServers;
+    private final int numRegions;
+    // [function][region]
+    private final int[][] groups;
+    private final double[][] values;
+    // [function][group]
+    private final double[][] norms;
+    private final double[][] offsets;
+    private final double moveUnit;
+    private final double totalWeight;
+
+    BalanceSimulator(ClusterSnapshot snapshot, Map<? extends CostFunction, Double> weights, double moveWeight) {
+        this.snapshot = snapshot;
+        numServers = snapshot.getNumServers();
+        numRegions = snapshot.getNumRegions();
+
+        int numFunctions = weights.size();
+        groups = new int[numFunctions][];
+        values = new double[numFunctions][];
+        norms = new double[numFunctions][];
+        offsets = new double[numFunctions][];
+
+        double totalWeight = moveWeight;
+        int f = 0;
+        for (Map.Entry<? extends CostFunction, Double> entry : weights.entrySet()) {
+            CostFunction costFunction = entry.getKey();
+            double weight = entry.getValue();
+            totalWeight += weight;
+
+            int numGroups = costFunction.groups(snapshot);
+            groups[f] = new int[numRegions];
+            values[f] = new double[numRegions];
+            double[] totals = new double[numGroups];
+            for (int r = 0; r < numRegions; r++) {
+                groups[f][r] = costFunction.group(snapshot, r);
+                values[f][r] = costFunction.value(snapshot, r);
+                totals[groups[f][r]] += values[f][r];
+            }
+
+            int nonEmptyGroups = 0;
+            for (double total : totals) if (total > 0) nonEmptyGroups++;
+
+            // (sum of squares - the minimum) / (the maximum - the minimum), averaged over the groups
+            norms[f] = new double[numGroups];
+            offsets[f] = new double[numGroups];
+            for (int g = 0; g < numGroups; g++) {
+                double min = totals[g] * totals[g] / numServers;
+                double max = totals[g] * totals[g];
+                if (max > min) {
+                    norms[f][g] = weight / (nonEmptyGroups * (max - min));
+                    offsets[f][g] = min;
+                }
+            }
+            f++;
+        }
+        this.totalWeight = totalWeight;
+        moveUnit = numRegions == 0 ? 0 : moveWeight / numRegions;
+    }
+
+    /**
+     * @return 0 ~ 1
+     */
+    double cost(int[] assignment) {
+        double cost = 0;
+        for (int f = 0; f < groups.length; f++) {
+            double[][] sums = sums(f, assignment);
+            for (int g = 0; g < sums.length; g++) {
+                if (norms[f][g] == 0) continue;
+                double squares = 0;
+                for (double sum : sums[g]) squares += sum * sum;
+                cost += norms[f][g] * (squares - offsets[f][g]);
+            }
+        }
+        for (int r = 0; r < numRegions; r++) {
+            if (assignment[r] != snapshot.getInitialServer(r)) cost += moveUnit;
+        }
+        return totalWeight == 0 ? 0 : cost / totalWeight;
+    }
+
+    int[] run() throws InterruptedException {
+        return run(TIME_BUDGET_MS);
+    }
+
+    /**
+     * @return the best assignment of regions to servers found in the time budget
+     */
+    int[] run(final long timeBudgetMs) throws InterruptedException {
+        if (numRegions == 0) return new int[0];
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        try {
+            List<Future<int[]>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_POOL_SIZE; i++) {
+                final long seed = System.nanoTime() + i;
+                futures.add(executorService.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() throws Exception {
+                        return new Search(new Random(seed)).run(timeBudgetMs);
+                    }
+                }));
+            }
+
+            int[] best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (Future<int[]> future : futures) {
+                int[] assignment = future.get();
+                double cost = cost(assignment);
+                if (cost < bestCost) {
+                    best = assignment;
+                    bestCost = cost;
+                }
+            }
+            return best;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private double[][] sums(int f, int[] assignment) {
+        double[][] sums = new double[norms[f].length][numServers];
+        for (int r = 0; r < numRegions; r++) {
+            sums[groups[f][r]][assignment[r]] += values[f][r];
+        }
+        return sums;
+    }
+
+    interface CostFunction {
+        int groups(ClusterSnapshot snapshot);
+
+        /**
+         * @return 0 ~ groups - 1
+         */
+        int group(ClusterSnapshot snapshot, int region);
+
+        /**
+         * @return the value of the region to be spread evenly over the servers. Not negative.
+         */
+        double value(ClusterSnapshot snapshot, int region);
+    }
+
+    private class Search {
+        private final Random random;
+        private final int[] assignment = snapshot.getStartAssignment();
+        // [function][group][server]
+        private final double[][][] sums = new double[groups.length][][];
+
+        Search(Random random) {
+            this.random = random;
+            for (int f = 0; f < groups.length; f++) sums[f] = BalanceSimulator.this.sums(f, assignment);
+        }
+
+        int[] run(long timeBudgetMs) {
+            long startTimestamp = System.currentTimeMillis();
+            double initialTemperature = initialTemperature();
+            double temperature = initialTemperature;
+
+            double cost = cost(assignment) * totalWeight;
+            double bestCost = cost;
+            int[] best = assignment.clone();
+            if (numServers < 2) return best;
+
+            for (long step = 1; ; step++) {
+                if (step % CHECK_INTERVAL_STEPS == 0) {
+                    long elapsed = System.currentTimeMillis() - startTimestamp;
+                    if (elapsed >= timeBudgetMs || Thread.currentThread().isInterrupted()) break;
+                    temperature = initialTemperature * Math.pow(FINAL_TEMPERATURE_RATIO, (double) elapsed / timeBudgetMs);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        System.arraycopy(assignment, 0, best, 0, numRegions);
+                    }
+                }
+
+                int region = random.nextInt(numRegions);
+                int from = assignment[region];
+                int to = random.nextInt(numServers);
+                if (from == to) continue;
+
+                double delta = delta(region, from, to);
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    move(region, from, to);
+                    cost += delta;
+                }
+            }
+
+            return cost < bestCost ? assignment : best;
+        }
+
+        private double initialTemperature() {
+            double sum = 0;
+            for (int i = 0; i < TEMPERATURE_SAMPLES; i++) {
+                int region = random.nextInt(numRegions);
+                sum += Math.abs(delta(region, assignment[region], random.nextInt(numServers)));
+            }
+            return sum > 0 ? sum / TEMPERATURE_SAMPLES : Double.MIN_VALUE;
+        }
+
+        private double delta(int region, int from, int to) {
+            if (from == to) return 0;
+
+            double delta = 0;
+            for (int f = 0; f < groups.length; f++) {
+                double value = values[f][region];
+                if (value == 0) continue;
+                int group = groups[f][region];
+                double[] serverSums = sums[f][group];
+                delta += norms[f][group] * 2 * value * (value + serverSums[to] - serverSums[from]);
+            }
+
+            int initial = snapshot.getInitialServer(region);
+            if (from == initial) delta += moveUnit;
+            else if (to == initial) delta -= moveUnit;
+            return delta;
+        }
+
+        private void move(int region, int from, int to) {
+            for (int f = 0; f < groups.length; f++) {
+                double[] serverSums = sums[f][groups[f][region]];
+                serverSums[from] -= values[f][region];
+                serverSums[to] += values[f][region];
+            }
+            assignment[region] = to;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.specific.RegionLoadDelegator;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.master.RegionPlan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+
+/**
+ * In-memory snapshot of region assignments and region loads. Regions, servers and tables are indexed by int.
+ */
+class ClusterSnapshot {
+    // lifetime counters of the region load
+    private static final Set<LoadEntry> COUNTERS = EnumSet.of(LoadEntry.Reads, LoadEntry.Writes);
+    private final int numServers;
+    private final int numTables;
+    // -1 if the region is not assigned to any of the servers
+    private final int[] initial;
+    private final int[] tables;
+    private final Map<LoadEntry, long[]> loads;
+    private final List<HRegionInfo> regionInfos;
+    private final List<ServerName> serverNames;
+
+    ClusterSnapshot(int numServers, int[] initial, int[] tables, Map<LoadEntry, long[]> loads) {
+        this(numServers, initial, tables, loads, null, null);
+    }
+
+    private ClusterSnapshot(int numServers, int[] initial, int[] tables, Map<LoadEntry, long[]> loads,
+        List<HRegionInfo> regionInfos, List<ServerName> serverNames) {
+        if (numServers <= 0) throw new IllegalArgumentException("There is no region server");
+        if (initial.length != tables.length) throw new IllegalArgumentException("Invalid cluster snapshot");
+
+        this.numServers = numServers;
+        this.initial = initial;
+        this.tables = tables;
+        this.loads = loads;
+        this.regionInfos = regionInfos;
+        this.serverNames = serverNames;
+
+        int maxTable = -1;
+        for (int table : tables) maxTable = Math.max(maxTable, table);
+        numTables = maxTable + 1;
+    }
+
+    static ClusterSnapshot create(HBaseAdmin admin, Set<String> tableNameSet, Args args) throws IOException {
+        return create(admin, tableNameSet, args, 0);
+    }
+
+    /**
+     * @param windowMs if positive, request counts are the requests in this window instead of the lifetime counters.
+     *                 Sampled twice with a sleep in between.
+     */
+    static ClusterSnapshot create(HBaseAdmin admin, Set<String> tableNameSet, Args args, long windowMs)
+        throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+        Util.printVerboseMessage(args, "ClusterSnapshot.create - start");
+
+        List<ServerName> serverNames = BalanceRule.getServerNames(admin);
+        Map<ServerName, Integer> serverIndexMap = new HashMap<>();
+        for (ServerName serverName : serverNames) serverIndexMap.put(serverName, serverIndexMap.size());
+
+        Map<HRegionInfo, ServerName> regionAssignmentMap = Balance.getRegionAssignmentMap(admin, tableNameSet);
+        List<HRegionInfo> regionInfos = new ArrayList<>(regionAssignmentMap.keySet());
+        Collections.sort(regionInfos);
+
+        Map<String, Integer> tableIndexMap = new HashMap<>();
+        Map<byte[], HRegionInfo> regionMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        int[] initial = new int[regionInfos.size()];
+        int[] tables = new int[regionInfos.size()];
+        for (int i = 0; i < regionInfos.size(); i++) {
+            HRegionInfo regionInfo = regionInfos.get(i);
+            regionMap.put(regionInfo.getRegionName(), regionInfo);
+
+            Integer server = serverIndexMap.get(regionAssignmentMap.get(regionInfo));
+            initial[i] = server == null ? -1 : server;
+
+            @SuppressWarnings("deprecation")
+            String tableName = Bytes.toString(regionInfo.getTableName());
+            Integer table = tableIndexMap.get(tableName);
+            if (table == null) {
+                table = tableIndexMap.size();
+                tableIndexMap.put(tableName, table);
+            }
+            tables[i] = table;
+        }
+
+        Map<LoadEntry, long[]> loads = loads(new RegionLoadAdapter(admin, regionMap, args), regionInfos);
+        if (windowMs > 0) {
+            System.out.println("Sampling region loads for " + windowMs / 1000 + " secs.");
+            try {
+                Thread.sleep(windowMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Sampling region loads is interrupted");
+            }
+
+            Map<LoadEntry, long[]> lastLoads = loads(new RegionLoadAdapter(admin, regionMap, args), regionInfos);
+            for (LoadEntry loadEntry : COUNTERS) {
+                long[] first = loads.get(loadEntry);
+                long[] last = lastLoads.get(loadEntry);
+                // the counter is reset if the region is reopened in the window
+                for (int i = 0; i < last.length; i++) {
+                    if (last[i] >= first[i]) last[i] -= first[i];
+                }
+            }
+            loads = lastLoads;
+        }
+
+        Util.printVerboseMessage(args, "ClusterSnapshot.create - end", startTimestamp);
+
+        return new ClusterSnapshot(serverNames.size(), initial, tables, loads, regionInfos, serverNames);
+    }
+
+    private static Map<LoadEntry, long[]> loads(RegionLoadAdapter regionLoadAdapter, List<HRegionInfo> regionInfos) {
+        Map<LoadEntry, long[]> loads = new EnumMap<>(LoadEntry.class);
+        for (BalanceCost balanceCost : BalanceCost.values()) {
+            LoadEntry loadEntry = balanceCost.getLoadEntry();
+            if (loadEntry == null) continue;
+
+            long[] values = new long[regionInfos.size()];
+            for (int i = 0; i < regionInfos.size(); i++) {
+                RegionLoadDelegator regionLoad = regionLoadAdapter.get(regionInfos.get(i));
+                if (regionLoad != null) values[i] = loadEntry.getLongValue(regionLoad);
+            }
+            loads.put(loadEntry, values);
+        }
+        return loads;
+    }
+
+    int getNumServers() {
+        return numServers;
+    }
+
+    int getNumTables() {
+        return numTables;
+    }
+
+    int getNumRegions() {
+        return initial.length;
+    }
+
+    int getInitialServer(int region) {
+        return initial[region];
+    }
+
+    int getTable(int region) {
+        return tables[region];
+    }
+
+    /**
+     * @return 0 if the load is not in the snapshot
+     */
+    long getLoad(LoadEntry loadEntry, int region) {
+        long[] values = loads.get(loadEntry);
+        return values == null ? 0 : values[region];
+    }
+
+    /**
+     * @return the initial assignment. Regions not assigned are spread over the servers in round robin.
+     */
+    int[] getStartAssignment() {
+        int[] assignment = new int[initial.length];
+        int next = 0;
+        for (int i = 0; i < initial.length; i++) {
+            assignment[i] = initial[i] < 0 ? (next++) % numServers : initial[i];
+        }
+        return assignment;
+    }
+
+    List<RegionPlan> toRegionPlans(int[] assignment) {
+        if (regionInfos == null) throw new IllegalStateException("Region infos are not in the snapshot");
+
+        List<RegionPlan> regionPlanList = new ArrayList<>();
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] != initial[i]) {
+                ServerName source = initial[i] < 0 ? null : serverNames.get(initial[i]);
+                regionPlanList.add(new RegionPlan(regionInfos.get(i), source, serverNames.get(assignment[i])));
+            }
+        }
+        return regionPlanList;
+    }
+}
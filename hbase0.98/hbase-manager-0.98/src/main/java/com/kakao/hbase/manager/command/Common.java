@@ -47,6 +47,7 @@ class Common {
                 admin.move(encodedRegionName.getBytes(), targetServerName.getBytes());
             } catch (java.lang.reflect.UndeclaredThrowableException ignore) {
             }
+            CommandAdapter.invalidateOnlineRegionsMap();
 
             if (asynchronous)
                 return;
@@ -57,7 +58,7 @@ class Common {
             if (!isTableEnabled(args, admin, tableName))
                 throw new IllegalStateException(Constant.MESSAGE_DISABLED_OR_NOT_FOUND_TABLE);
 
-            if (Util.isMoved(admin, tableName, encodedRegionName, targetServerName)) {
+            if (MoveTracker.isMoved(args, admin, tableName, encodedRegionName, targetServerName)) {
                 return;
             }
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.specific.RegionLoadDelegator;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Plans where the regions of the region servers to be emptied go.
+ * <p>
+ * The load of a region is the sum of 1, its store file size and its requests, the last two relative to the
+ * average region of the cluster. Heavier regions are placed first, each on the target with the least load.
+ */
+class DrainPlanner {
+    private final Map<HRegionInfo, Double> weights = new HashMap<>();
+    private final Map<ServerName, Double> targetLoads = new HashMap<>();
+
+    DrainPlanner(HBaseAdmin admin, Args args, List<ServerName> targets) throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+        Util.printVerboseMessage(args, "DrainPlanner - start");
+
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = CommandAdapter.getOnlineRegionsMap(args, admin);
+        Map<byte[], HRegionInfo> regionMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (List<HRegionInfo> regions : onlineRegionsMap.values()) {
+            for (HRegionInfo regionInfo : regions) regionMap.put(regionInfo.getRegionName(), regionInfo);
+        }
+
+        RegionLoadAdapter regionLoadAdapter = new RegionLoadAdapter(admin, regionMap, args);
+        Map<HRegionInfo, Integer> sizes = new HashMap<>();
+        Map<HRegionInfo, Long> requests = new HashMap<>();
+        long totalSize = 0, totalRequests = 0;
+        for (HRegionInfo regionInfo : regionMap.values()) {
+            RegionLoadDelegator regionLoad = regionLoadAdapter.get(regionInfo);
+            int size = regionLoad == null ? 0 : regionLoad.getStorefileSizeMB();
+            long request = regionLoad == null ? 0 :
+                regionLoad.getReadRequestsCount() + regionLoad.getWriteRequestsCount();
+            sizes.put(regionInfo, size);
+            requests.put(regionInfo, request);
+            totalSize += size;
+            totalRequests += request;
+        }
+
+        double averageSize = regionMap.isEmpty() ? 0 : (double) totalSize / regionMap.size();
+        double averageRequests = regionMap.isEmpty() ? 0 : (double) totalRequests / regionMap.size();
+        for (HRegionInfo regionInfo : regionMap.values()) {
+            weights.put(regionInfo, weight(sizes.get(regionInfo), requests.get(regionInfo),
+                averageSize, averageRequests));
+        }
+
+        for (ServerName target : targets) {
+            double load = 0;
+            List<HRegionInfo> regions = onlineRegionsMap.get(target);
+            if (regions != null) {
+                for (HRegionInfo regionInfo : regions) load += weights.get(regionInfo);
+            }
+            targetLoads.put(target, load);
+        }
+
+        Util.printVerboseMessage(args, "DrainPlanner - end", startTimestamp);
+    }
+
+    static double weight(int sizeMB, long requests, double averageSizeMB, double averageRequests) {
+        return 1 + (averageSizeMB > 0 ? sizeMB / averageSizeMB : 0)
+            + (averageRequests > 0 ? requests / averageRequests : 0);
+    }
+
+    /**
+     * Assigns the regions to the least loaded targets. The loads of the targets are updated.
+     *
+     * @return target of each region in the given order
+     */
+    static <R, S> Map<R, S> assign(List<R> regions, final Map<R, Double> weights, final Map<S, Double> targetLoads) {
+        List<R> heavyFirst = new ArrayList<>(regions);
+        Collections.sort(heavyFirst, new Comparator<R>() {
+            @Override
+            public int compare(R o1, R o2) {
+                return Double.compare(weight(weights, o2), weight(weights, o1));
+            }
+        });
+
+        PriorityQueue<S> targets = new PriorityQueue<>(Math.max(1, targetLoads.size()), new Comparator<S>() {
+            @Override
+            public int compare(S o1, S o2) {
+                return Double.compare(targetLoads.get(o1), targetLoads.get(o2));
+            }
+        });
+        targets.addAll(targetLoads.keySet());
+        if (targets.isEmpty()) throw new IllegalArgumentException("Cannot empty all RS");
+
+        Map<R, S> assignment = new HashMap<>();
+        for (R region : heavyFirst) {
+            S target = targets.poll();
+            assignment.put(region, target);
+            targetLoads.put(target, targetLoads.get(target) + weight(weights, region));
+            targets.add(target);
+        }
+
+        Map<R, S> result = new LinkedHashMap<>();
+        for (R region : regions) result.put(region, assignment.get(region));
+        return result;
+    }
+
+    private static <R> double weight(Map<R, Double> weights, R region) {
+        Double weight = weights.get(region);
+        return weight == null ? 1 : weight;
+    }
+
+    /**
+     * @return the regions of the sources taken one from each source in turn
+     */
+    static <R, S> List<R> interleave(Map<S, List<R>> sourceRegions) {
+        List<R> result = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            boolean added = false;
+            for (List<R> regions : sourceRegions.values()) {
+                if (i < regions.size()) {
+                    result.add(regions.get(i));
+                    added = true;
+                }
+            }
+            if (!added) return result;
+        }
+    }
+
+    Map<HRegionInfo, ServerName> assign(List<HRegionInfo> regions) {
+        return assign(regions, weights, targetLoads);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Samples the row keys of a table to find the split points that divide its data evenly.
+ * <p>
+ * Regions are scanned in parallel with a key-only filter that returns the value lengths only.
+ * Each region keeps a weighted reservoir of bounded size where the weight of a row is the size of its cells.
+ * Each sampled row stands for an equal share of the size of its region.
+ */
+class KeySampler {
+    public static int THREAD_POOL_SIZE = 10;
+    public static int DEFAULT_SAMPLE_SIZE = 100000;
+    private static final int MIN_SAMPLES_PER_REGION = 100;
+    private static final int SCAN_CACHING = 1000;
+
+    private KeySampler() {
+    }
+
+    static List<byte[]> sample(final HBaseAdmin admin, Args args, final String tableName, int numRegions, int sampleSize)
+            throws IOException {
+        long timestamp = System.currentTimeMillis();
+
+        final Set<HRegionInfo> regions;
+        try (HConnection connection = HConnectionManager.createConnection(admin.getConfiguration())) {
+            regions = CommandAdapter.regionServerMap(args, admin.getConfiguration(), connection,
+                    Collections.singleton(tableName), false).keySet();
+        }
+        final int capacity = Math.max(MIN_SAMPLES_PER_REGION, sampleSize / Math.max(1, regions.size()));
+
+        List<Sample> samples = new ArrayList<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        try {
+            List<Future<List<Sample>>> futures = new ArrayList<>();
+            for (final HRegionInfo regionInfo : regions) {
+                futures.add(executorService.submit(new Callable<List<Sample>>() {
+                    @Override
+                    public List<Sample> call() throws Exception {
+                        return sampleRegion(admin, tableName, regionInfo, capacity);
+                    }
+                }));
+            }
+
+            for (Future<List<Sample>> future : futures) {
+                samples.addAll(future.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Sampling is interrupted");
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Util.printMessage(samples.size() + " row keys are sampled from " + regions.size() + " regions of " + tableName);
+        Util.printVerboseMessage(args, "KeySampler.sample", timestamp);
+        return splitPoints(samples, numRegions);
+    }
+
+    /**
+     * @return null if the region can not be split
+     */
+    static byte[] midKey(HBaseAdmin admin, String tableName, HRegionInfo regionInfo) throws IOException {
+        List<Sample> samples = sampleRegion(admin, tableName, regionInfo, MIN_SAMPLES_PER_REGION * 10);
+        List<byte[]> splitPoints = splitPoints(samples, 2);
+        if (splitPoints.isEmpty() || Bytes.equals(splitPoints.get(0), regionInfo.getStartKey())) return null;
+        return splitPoints.get(0);
+    }
+
+    private static List<Sample> sampleRegion(HBaseAdmin admin, String tableName, HRegionInfo regionInfo,
+                                             int capacity) throws IOException {
+        Reservoir reservoir = new Reservoir(capacity, new Random());
+        try (HTable table = new HTable(admin.getConfiguration(), tableName)) {
+            Scan scan = new Scan(regionInfo.getStartKey(), regionInfo.getEndKey());
+            scan.setFilter(new KeyOnlyFilter(true));
+            scan.setCacheBlocks(false);
+            scan.setCaching(SCAN_CACHING);
+
+            try (ResultScanner scanner = table.getScanner(scan)) {
+                for (Result result : scanner) {
+                    reservoir.add(result.getRow(), CommandAdapter.keyOnlyResultSize(result));
+                }
+            }
+        }
+        return reservoir.samples();
+    }
+
+    /**
+     * @return the start keys of the regions except the first one
+     */
+    @VisibleForTesting
+    static List<byte[]> splitPoints(List<Sample> samples, int numRegions) {
+        List<Sample> sorted = new ArrayList<>(samples);
+        Collections.sort(sorted, new Comparator<Sample>() {
+            @Override
+            public int compare(Sample o1, Sample o2) {
+                return Bytes.compareTo(o1.key, o2.key);
+            }
+        });
+
+        double total = 0;
+        for (Sample sample : sorted) total += sample.weight;
+
+        List<byte[]> splitPoints = new ArrayList<>();
+        double cumulative = 0;
+        int next = 1;
+        for (Sample sample : sorted) {
+            // a region starts at the row whose center crosses the quantile
+            while (next < numRegions && cumulative + sample.weight / 2 >= total * next / numRegions) {
+                if (sample.key.length > 0 && (splitPoints.isEmpty()
+                        || !Bytes.equals(splitPoints.get(splitPoints.size() - 1), sample.key)))
+                    splitPoints.add(sample.key);
+                next++;
+            }
+            cumulative += sample.weight;
+        }
+        return splitPoints;
+    }
+
+    @VisibleForTesting
+    static class Sample {
+        private final byte[] key;
+        private final double weight;
+
+        Sample(byte[] key, double weight) {
+            this.key = key;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Weighted reservoir sampling by Efraimidis and Spirakis.
+     * A row is kept with the probability proportional to its weight.
+     */
+    @VisibleForTesting
+    static class Reservoir {
+        private final int capacity;
+        private final Random random;
+        private final PriorityQueue<Entry> heap;
+        private double totalWeight = 0;
+
+        Reservoir(int capacity, Random random) {
+            this.capacity = capacity;
+            this.random = random;
+            this.heap = new PriorityQueue<>(capacity + 1, new Comparator<Entry>() {
+                @Override
+                public int compare(Entry o1, Entry o2) {
+                    return Double.compare(o1.priority, o2.priority);
+                }
+            });
+        }
+
+        void add(byte[] key, long weight) {
+            if (weight <= 0) return;
+            totalWeight += weight;
+
+            // log(u ^ (1 / weight)) to avoid underflow
+            double priority = Math.log(random.nextDouble()) / weight;
+            if (heap.size() < capacity) {
+                heap.add(new Entry(key, priority));
+            } else if (priority > heap.peek().priority) {
+                heap.poll();
+                heap.add(new Entry(key, priority));
+            }
+        }
+
+        List<Sample> samples() {
+            List<Sample> samples = new ArrayList<>(heap.size());
+            for (Entry entry : heap) {
+                samples.add(new Sample(entry.key, totalWeight / heap.size()));
+            }
+            return samples;
+        }
+
+        private static class Entry {
+            private final byte[] key;
+            private final double priority;
+
+            private Entry(byte[] key, double priority) {
+                this.key = key;
+                this.priority = priority;
+            }
+        }
+    }
+}
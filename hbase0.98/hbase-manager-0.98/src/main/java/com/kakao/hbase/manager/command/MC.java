@@ -68,6 +68,14 @@ public class MC implements Command {
             + "    --" + Args.OPTION_CF + "=<CF>: Compact the regions of this CF.\n"
             + "    --" + Args.OPTION_LOCALITY_THRESHOLD
             + "=<threshold%>: Compact only if the data locality of the region is lower than this threshold.\n"
+            + "    --" + Args.OPTION_MAX_PER_RS + "=<number>: Compact regions one by one with at most this number of"
+            + " compactions running on each RS. Waits until all of MCs are finished.\n"
+            + "    --" + Args.OPTION_MC_START_TIMEOUT + "=<secs>: With --" + Args.OPTION_MAX_PER_RS
+            + ", report a MC as not started if it is not done within this time. Default "
+            + MCScheduler.DEFAULT_START_TIMEOUT_SECS + " secs.\n"
+            + "    --" + Args.OPTION_BUDGET + "=<size(500G, 100M) or time(2h, 30min)>: Compact only the regions that"
+            + " gain the most from MC within this budget.\n"
+            + "      Benefit is based on the number of store files and data locality of the region.\n"
             + Args.commonUsage();
     }
 
@@ -113,6 +121,8 @@ public class MC implements Command {
             }
         }
 
+        if (args.has(Args.OPTION_BUDGET)) filterWithBudget(tables);
+
         // todo check compaction queue before running
 
         if (tableLevel) {
@@ -123,44 +133,128 @@ public class MC implements Command {
         if (targets.size() == 0) return;
         if (!args.isForceProceed() && !Util.askProceed()) return;
 
+        if (args.has(Args.OPTION_MAX_PER_RS)) {
+            // compactions are scheduled at region level and finished here
+            mcWithScheduler(tables);
+            return;
+        }
+
         mc(tableLevel, targets);
 
         if (mcCounter.get() > 0)
             waitUntilFinish(tables);
     }
 
+    /**
+     * @return false if the column family does not exist
+     */
+    static boolean majorCompact(HBaseAdmin admin, Args args, byte[] tableOrRegion)
+        throws IOException, InterruptedException {
+        if (args.has(Args.OPTION_CF)) {
+            String cf = (String) args.valueOf(Args.OPTION_CF);
+            try {
+                admin.majorCompact(tableOrRegion, cf.getBytes());
+            } catch (IOException e) {
+                String message = "column family " + cf + " does not exist";
+                if (e.getMessage().contains(message)) {
+                    System.out.println("WARNING - " + message + " on " + Bytes.toStringBinary(tableOrRegion));
+                    return false;
+                } else {
+                    throw e;
+                }
+            }
+        } else {
+            try {
+                admin.majorCompact(tableOrRegion);
+            } catch (NotServingRegionException ignore) {
+            }
+        }
+        return true;
+    }
+
     private void mc(boolean tableLevel, Set<byte[]> targets) throws InterruptedException, IOException {
         int i = 1;
         for (byte[] tableOrRegion : targets) {
             if (args.has(Args.OPTION_CF)) {
                 String cf = (String) args.valueOf(Args.OPTION_CF);
-                try {
-                    System.out.print(i++ + "/" + targets.size() + " - Major compaction on " + cf + " CF of " +
-                        (tableLevel ? "table " : "region ") + Bytes.toStringBinary(tableOrRegion) +
-                        (tableLevel ? "" : " - " + getRegionInfo(tableOrRegion)));
-                    if (!Util.askProceedInteractively(args, true)) continue;
-                    admin.majorCompact(tableOrRegion, cf.getBytes());
-                    mcCounter.getAndIncrement();
-                } catch (IOException e) {
-                    String message = "column family " + cf + " does not exist";
-                    if (e.getMessage().contains(message)) {
-                        System.out.println("WARNING - " + message + " on " + Bytes.toStringBinary(tableOrRegion));
-                    } else {
-                        throw e;
-                    }
-                }
+                System.out.print(i++ + "/" + targets.size() + " - Major compaction on " + cf + " CF of " +
+                    (tableLevel ? "table " : "region ") + Bytes.toStringBinary(tableOrRegion) +
+                    (tableLevel ? "" : " - " + getRegionInfo(tableOrRegion)));
             } else {
                 System.out.print(i++ + "/" + targets.size() + " - Major compaction on "
                     + (tableLevel ? "table " : "region ")
                     + Bytes.toStringBinary(tableOrRegion) + (tableLevel ? "" : " - " + getRegionInfo(tableOrRegion)));
-                if (!Util.askProceedInteractively(args, true)) continue;
-                try {
-                    admin.majorCompact(tableOrRegion);
-                } catch (NotServingRegionException ignore) {
+            }
+            if (!Util.askProceedInteractively(args, true)) continue;
+            if (majorCompact(admin, args, tableOrRegion)) mcCounter.getAndIncrement();
+        }
+    }
+
+    private void mcWithScheduler(Set<String> tables) throws IOException, InterruptedException {
+        int maxPerRs = (Integer) args.valueOf(Args.OPTION_MAX_PER_RS);
+        long pollIntervalMs = args.has(Args.OPTION_TEST) ? Constant.WAIT_INTERVAL_MS : Constant.SMALL_WAIT_INTERVAL_MS;
+        int startTimeoutSecs = args.has(Args.OPTION_MC_START_TIMEOUT) ?
+            (Integer) args.valueOf(Args.OPTION_MC_START_TIMEOUT) : MCScheduler.DEFAULT_START_TIMEOUT_SECS;
+        MCScheduler scheduler = new MCScheduler(admin, args, maxPerRs, pollIntervalMs, startTimeoutSecs * 1000L);
+        for (String table : tables) {
+            for (Map.Entry<HRegionInfo, ServerName> entry : getRegionLocations(table).entrySet()) {
+                byte[] regionName = entry.getKey().getRegionName();
+                if (!targets.contains(regionName) && !targets.contains(table.getBytes())) continue;
+                scheduler.add(entry.getValue() == null ? "" : entry.getValue().getServerName(), entry.getKey());
+            }
+        }
+        mcCounter.addAndGet(scheduler.run());
+    }
+
+    private void filterWithBudget(Set<String> tables) throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+        Util.printVerboseMessage(args, Util.getMethodName() + " - start");
+
+        long budgetMB = MCBudget.parseBudgetMB((String) args.valueOf(Args.OPTION_BUDGET),
+            admin.getClusterStatus().getServersSize());
+
+        Map<byte[], HRegionInfo> regionMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (String table : tables) {
+            for (Map.Entry<HRegionInfo, ServerName> entry : getRegionLocations(table).entrySet()) {
+                byte[] regionName = entry.getKey().getRegionName();
+                if (!targets.contains(regionName) && !targets.contains(table.getBytes())) continue;
+                regionMap.put(regionName, entry.getKey());
+                regionTableMap.put(regionName, table);
+                if (entry.getValue() != null) regionRSMap.put(regionName, entry.getValue().getHostname());
+            }
+        }
+
+        Map<byte[], MCBudget.Candidate> candidates = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        RegionLoadAdapter regionLoadAdapter = new RegionLoadAdapter(admin, regionMap, args);
+        for (HRegionInfo regionInfo : regionMap.values()) {
+            RegionLoadDelegator regionLoad = regionLoadAdapter.get(regionInfo);
+            if (regionLoad == null) continue;
+
+            float dataLocality;
+            try {
+                dataLocality = regionLoad.getDataLocality();
+                regionLocalityMap.put(regionInfo.getRegionName(), dataLocality);
+            } catch (IllegalStateException e) {
+                if (e.getMessage().contains("not implemented")) {
+                    dataLocality = 1;
+                } else {
+                    throw e;
                 }
-                mcCounter.getAndIncrement();
             }
+            regionSizeMap.put(regionInfo.getRegionName(), regionLoad.getStorefileSizeMB());
+            candidates.put(regionInfo.getRegionName(), new MCBudget.Candidate(regionLoad.getStorefiles(),
+                regionLoad.getStorefileSizeMB(), dataLocality, regionLoad.getCurrentCompactedKVs(),
+                regionLoad.getTotalCompactingKVs()));
         }
+
+        List<byte[]> selected = MCBudget.select(candidates, budgetMB);
+        System.out.println(selected.size() + " of " + regionMap.size() + " regions are selected within "
+            + budgetMB + " MB budget.");
+        targets.clear();
+        targets.addAll(selected);
+        tableLevel = false;
+
+        Util.printVerboseMessage(args, Util.getMethodName() + " - end", startTimestamp);
     }
 
     private String getRegionInfo(byte[] regionName) {
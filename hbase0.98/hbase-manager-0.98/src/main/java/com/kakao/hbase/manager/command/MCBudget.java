@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import java.util.*;
+
+/**
+ * Selects the regions that gain the most from a major compaction within a budget.
+ * <p>
+ * The benefit of a region is the number of store files to be removed plus its locality deficit and the cost is
+ * the size to be rewritten. Regions are taken in descending order of benefit per MB while they fit in the budget.
+ * A time budget is converted to a size budget with THROUGHPUT_MB_PER_SEC of each region server.
+ */
+class MCBudget {
+    public static int THROUGHPUT_MB_PER_SEC = 30;
+    // a region with no local data is as bad as a region with this number of extra store files
+    private static final double LOCALITY_WEIGHT = 4;
+    static final String MESSAGE_INVALID_BUDGET = "Invalid budget";
+
+    private MCBudget() {
+    }
+
+    /**
+     * @param budget size(100G, 500M) or time(2h, 30min, 600s). M is megabytes, not minutes.
+     */
+    static long parseBudgetMB(String budget, int numServers) {
+        String value = budget.trim().toLowerCase();
+        try {
+            if (value.endsWith("gb") || value.endsWith("g")) {
+                return (long) (Double.valueOf(value.replaceAll("g?b?$", "")) * 1024);
+            } else if (value.endsWith("mb") || value.endsWith("m")) {
+                return Double.valueOf(value.replaceAll("m?b?$", "")).longValue();
+            } else if (value.endsWith("h")) {
+                return parseSeconds(value, "h", 3600) * THROUGHPUT_MB_PER_SEC * numServers;
+            } else if (value.endsWith("min")) {
+                return parseSeconds(value, "min", 60) * THROUGHPUT_MB_PER_SEC * numServers;
+            } else if (value.endsWith("s")) {
+                return parseSeconds(value, "s", 1) * THROUGHPUT_MB_PER_SEC * numServers;
+            } else {
+                return Double.valueOf(value).longValue();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(MESSAGE_INVALID_BUDGET + " - " + budget);
+        }
+    }
+
+    private static long parseSeconds(String value, String suffix, int unit) {
+        return (long) (Double.valueOf(value.substring(0, value.length() - suffix.length())) * unit);
+    }
+
+    /**
+     * @param locality 0 ~ 1. 1 if unknown.
+     */
+    static double benefit(int storefiles, float locality) {
+        return Math.max(0, storefiles - 1) + (1 - Math.min(1, Math.max(0, locality))) * LOCALITY_WEIGHT;
+    }
+
+    /**
+     * @return the selected regions in descending order of benefit per MB
+     */
+    static <K> List<K> select(Map<K, Candidate> candidates, long budgetMB) {
+        final Map<K, Double> scoreMap = new HashMap<>();
+        for (Map.Entry<K, Candidate> entry : candidates.entrySet()) {
+            Candidate candidate = entry.getValue();
+            if (candidate.isCompacting()) continue;
+
+            double benefit = benefit(candidate.storefiles, candidate.locality);
+            if (benefit > 0) scoreMap.put(entry.getKey(), benefit / Math.max(1, candidate.sizeMB));
+        }
+
+        List<K> sorted = new ArrayList<>(scoreMap.keySet());
+        Collections.sort(sorted, new Comparator<K>() {
+            @Override
+            public int compare(K o1, K o2) {
+                return Double.compare(scoreMap.get(o2), scoreMap.get(o1));
+            }
+        });
+
+        List<K> selected = new ArrayList<>();
+        long remainingMB = budgetMB;
+        for (K key : sorted) {
+            int sizeMB = candidates.get(key).sizeMB;
+            if (sizeMB <= remainingMB) {
+                selected.add(key);
+                remainingMB -= sizeMB;
+            }
+        }
+        return selected;
+    }
+
+    static class Candidate {
+        private final int storefiles;
+        private final int sizeMB;
+        private final float locality;
+        private final long compactedKVs;
+        private final long totalCompactingKVs;
+
+        Candidate(int storefiles, int sizeMB, float locality, long compactedKVs, long totalCompactingKVs) {
+            this.storefiles = storefiles;
+            this.sizeMB = sizeMB;
+            this.locality = locality;
+            this.compactedKVs = compactedKVs;
+            this.totalCompactingKVs = totalCompactingKVs;
+        }
+
+        // the progress of the last compaction remains after it is finished
+        boolean isCompacting() {
+            return totalCompactingKVs > 0 && compactedKVs < totalCompactingKVs;
+        }
+    }
+}
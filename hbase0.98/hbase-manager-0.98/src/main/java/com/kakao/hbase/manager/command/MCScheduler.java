@@ -0,0 +1,257 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.specific.RegionLoadDelegator;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs major compactions of regions with at most maxPerRs running on each region server.
+ * <p>
+ * Compaction states of the running regions are polled concurrently and a slot is refilled as soon as
+ * its region is done. A region is done when it is seen compacting and then stops. Because a compaction of a small
+ * region can be finished between polls, a region is also done when RegionLoad shows that it has one store file per
+ * store, that its last major compaction timestamp is moved forward or that its compaction progress is changed to be
+ * completed after the request. A region that is not done within startTimeoutMs is reported as not started.
+ */
+class MCScheduler {
+    public static int THREAD_POOL_SIZE = 20;
+    static final int DEFAULT_START_TIMEOUT_SECS = 600;
+    // indexes of the values in a progress
+    static final int COMPACTED_KVS = 0;
+    static final int TOTAL_COMPACTING_KVS = 1;
+    static final int STOREFILES = 2;
+    static final int STORES = 3;
+    static final int LAST_MAJOR_COMPACTION_TS = 4;
+    private final HBaseAdmin admin;
+    private final Args args;
+    private final int maxPerRs;
+    private final long pollIntervalMs;
+    private final long startTimeoutMs;
+    // key: region server, value: regions to be compacted
+    private final Map<String, Deque<byte[]>> queueMap = new TreeMap<>();
+    // key: region server, value: running regions
+    private final Map<String, List<Running>> runningMap = new TreeMap<>();
+    private final Map<byte[], HRegionInfo> regionInfoMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private int total = 0;
+    private int requested = 0;
+    private int notStarted = 0;
+
+    MCScheduler(HBaseAdmin admin, Args args, int maxPerRs, long pollIntervalMs, long startTimeoutMs) {
+        if (maxPerRs <= 0) throw new IllegalArgumentException("Invalid " + Args.OPTION_MAX_PER_RS + " - " + maxPerRs);
+        if (startTimeoutMs <= 0)
+            throw new IllegalArgumentException("Invalid " + Args.OPTION_MC_START_TIMEOUT + " - " + startTimeoutMs);
+
+        this.admin = admin;
+        this.args = args;
+        this.maxPerRs = maxPerRs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.startTimeoutMs = startTimeoutMs;
+    }
+
+    void add(String serverName, HRegionInfo regionInfo) {
+        regionInfoMap.put(regionInfo.getRegionName(), regionInfo);
+        add(serverName, regionInfo.getRegionName());
+    }
+
+    void add(String serverName, byte[] regionName) {
+        Deque<byte[]> queue = queueMap.get(serverName);
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            queueMap.put(serverName, queue);
+            runningMap.put(serverName, new ArrayList<Running>());
+        }
+        queue.add(regionName);
+        total++;
+    }
+
+    /**
+     * Blocks until all compactions are finished.
+     *
+     * @return the number of requested compactions
+     */
+    int run() throws IOException, InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
+        try {
+            while (true) {
+                fill();
+                if (runningCount() == 0) break;
+
+                Thread.sleep(pollIntervalMs);
+                poll(executorService);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        if (notStarted > 0) {
+            System.out.println(notStarted + " of MCs are not started within " + startTimeoutMs / 1000 + " secs.");
+        } else {
+            System.out.println("All of MCs are finished.");
+        }
+        System.out.println("Duration: " + (System.currentTimeMillis() - timestamp) / 1000 + " secs");
+        return requested;
+    }
+
+    private int runningCount() {
+        int count = 0;
+        for (List<Running> runningList : runningMap.values()) count += runningList.size();
+        return count;
+    }
+
+    @VisibleForTesting
+    int getNotStarted() {
+        return notStarted;
+    }
+
+    private void fill() throws IOException, InterruptedException {
+        Map<byte[], long[]> progressMap = null;
+        for (Map.Entry<String, Deque<byte[]>> entry : queueMap.entrySet()) {
+            List<Running> runningList = runningMap.get(entry.getKey());
+            while (runningList.size() < maxPerRs && !entry.getValue().isEmpty()) {
+                if (progressMap == null) progressMap = compactionProgress();
+                byte[] regionName = entry.getValue().poll();
+                int index = total - remaining();
+                System.out.print(index + "/" + total + " - Major compaction on region "
+                        + Bytes.toStringBinary(regionName) + " - RS: " + entry.getKey());
+                if (!Util.askProceedInteractively(args, true)) continue;
+
+                if (request(regionName)) {
+                    requested++;
+                    runningList.add(new Running(regionName, progressMap.get(regionName)));
+                }
+            }
+        }
+    }
+
+    private int remaining() {
+        int count = 0;
+        for (Deque<byte[]> queue : queueMap.values()) count += queue.size();
+        return count;
+    }
+
+    private void poll(ExecutorService executorService) throws InterruptedException, IOException {
+        Map<Running, Future<Boolean>> futureMap = new HashMap<>();
+        for (List<Running> runningList : runningMap.values()) {
+            for (final Running running : runningList) {
+                futureMap.put(running, executorService.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return isCompacting(running.regionName);
+                    }
+                }));
+            }
+        }
+
+        Map<byte[], long[]> progressMap = compactionProgress();
+        for (Map.Entry<String, List<Running>> entry : runningMap.entrySet()) {
+            Iterator<Running> iterator = entry.getValue().iterator();
+            while (iterator.hasNext()) {
+                Running running = iterator.next();
+                try {
+                    if (futureMap.get(running).get()) {
+                        running.started = true;
+                    } else if (running.started || isCompleted(running.progress, progressMap.get(running.regionName))) {
+                        iterator.remove();
+                        Util.printVerboseMessage(args, "MC is finished - " + Bytes.toStringBinary(running.regionName));
+                    } else if (System.currentTimeMillis() - running.timestamp > startTimeoutMs) {
+                        iterator.remove();
+                        notStarted++;
+                        System.out.println("MC is not started within " + startTimeoutMs / 1000 + " secs - "
+                                + Bytes.toStringBinary(running.regionName));
+                    }
+                } catch (ExecutionException e) {
+                    // the region is moved, split or merged
+                    iterator.remove();
+                    System.out.println("Can not get compaction state - " + Bytes.toStringBinary(running.regionName)
+                            + " - " + e.getCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the region is skipped
+     */
+    protected boolean request(byte[] regionName) throws IOException, InterruptedException {
+        return MC.majorCompact(admin, args, regionName);
+    }
+
+    protected boolean isCompacting(byte[] regionName) throws IOException, InterruptedException {
+        return CommandAdapter.isMajorCompacting(args, admin, regionName);
+    }
+
+    /**
+     * @param before progress at the request
+     * @param after  current progress
+     * @return true if the region is already compacted or a compaction is completed after the request
+     */
+    @VisibleForTesting
+    static boolean isCompleted(long[] before, long[] after) {
+        if (after == null) return false;
+        if (after[STORES] > 0 && after[STOREFILES] <= after[STORES]) return true;
+        if (before != null && after[LAST_MAJOR_COMPACTION_TS] > before[LAST_MAJOR_COMPACTION_TS]) return true;
+
+        long compactedKVs = after[COMPACTED_KVS], totalCompactingKVs = after[TOTAL_COMPACTING_KVS];
+        if (totalCompactingKVs <= 0 || compactedKVs < totalCompactingKVs) return false;
+        return before == null || before[COMPACTED_KVS] != compactedKVs
+                || before[TOTAL_COMPACTING_KVS] != totalCompactingKVs;
+    }
+
+    /**
+     * @return key: region name, value: current compacted KVs, total compacting KVs, store files, stores and
+     * the last major compaction timestamp of the running regions
+     */
+    protected Map<byte[], long[]> compactionProgress() throws IOException {
+        Map<byte[], long[]> progressMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        if (regionInfoMap.isEmpty()) return progressMap;
+
+        RegionLoadAdapter regionLoadAdapter = new RegionLoadAdapter(admin, regionInfoMap, args);
+        for (HRegionInfo regionInfo : regionInfoMap.values()) {
+            RegionLoadDelegator regionLoad = regionLoadAdapter.get(regionInfo);
+            if (regionLoad == null) continue;
+            progressMap.put(regionInfo.getRegionName(),
+                    new long[]{regionLoad.getCurrentCompactedKVs(), regionLoad.getTotalCompactingKVs(),
+                            regionLoad.getStorefiles(), regionLoad.getStores(), regionLoad.getLastMajorCompactionTs()});
+        }
+        return progressMap;
+    }
+
+    private static class Running {
+        private final byte[] regionName;
+        private final long[] progress;
+        private final long timestamp = System.currentTimeMillis();
+        private boolean started = false;
+
+        private Running(byte[] regionName, long[] progress) {
+            this.regionName = regionName;
+            this.progress = progress;
+        }
+    }
+}
@@ -16,15 +16,17 @@
 
 package com.kakao.hbase.manager.command;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.common.Constant;
-import com.kakao.hbase.common.EmptyRegionChecker;
+import com.kakao.hbase.common.EmptyRegionVerifier;
 import com.kakao.hbase.common.util.Util;
 import com.kakao.hbase.specific.CommandAdapter;
 import com.kakao.hbase.specific.RegionLoadDelegator;
 import com.kakao.hbase.stat.load.TableInfo;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.RegionException;
+import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
 import org.apache.hadoop.hbase.client.HConnection;
 import org.apache.hadoop.hbase.client.HConnectionManager;
@@ -35,6 +37,7 @@ import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Merge implements Command {
     private final HBaseAdmin admin;
@@ -42,13 +45,15 @@ public class Merge implements Command {
     private final String actionParam;
     private final Set<String> tableNameSet;
     private final HConnection connection;
+    private final MergeTracker mergeTracker;
     private boolean proceed = false;
     private boolean test = false;
     private boolean isPhoenixSaltingTable;
+    private int targetSizeMB;
 
     public Merge(HBaseAdmin admin, Args args) throws IOException {
         if (args.getOptionSet().nonOptionArguments().size() < 2
-                || args.getOptionSet().nonOptionArguments().size() > 3) { // todo refactoring
+                || args.getOptionSet().nonOptionArguments().size() > 4) { // todo refactoring
             throw new RuntimeException(Args.INVALID_ARGUMENTS);
         }
 
@@ -56,7 +61,15 @@ public class Merge implements Command {
         this.args = args;
         if (args.has(Args.OPTION_TEST)) this.test = true;
         actionParam = (String) args.getOptionSet().nonOptionArguments().get(2);
+        if (actionParam.toLowerCase().equals("size")) {
+            if (args.getOptionSet().nonOptionArguments().size() < 4)
+                throw new IllegalArgumentException("Target size is required - size <target size in MB>");
+            targetSizeMB = Integer.parseInt((String) args.getOptionSet().nonOptionArguments().get(3));
+            if (targetSizeMB <= 0)
+                throw new IllegalArgumentException("Invalid target size - " + targetSizeMB);
+        }
         this.connection = HConnectionManager.createConnection(admin.getConfiguration());
+        this.mergeTracker = new MergeTracker(args, admin, connection);
 
         tableNameSet = Util.parseTableSet(admin, args);
 
@@ -72,8 +85,12 @@ public class Merge implements Command {
                 + "  actions:\n"
                 + "    empty-fast       - Merge adjacent 2 empty regions only.\n"
                 + "    empty            - Merge all empty regions.\n"
+                + "    size <target MB> - Merge adjacent regions until they approach the target size.\n"
                 + "  options:\n"
                 + "    --" + Args.OPTION_MAX_ITERATION + " - Set max iteration.\n"
+                + "    --" + Args.OPTION_MERGE_TIMEOUT + "=<secs> - Set max wait time for the merges of each iteration. Default 60 secs.\n"
+                + "    --" + Args.OPTION_SCAN_TARGET_LATENCY + "=<ms> - Set target latency of the scans verifying empty regions."
+                + " Default " + EmptyRegionVerifier.DEFAULT_TARGET_LATENCY_MS + " ms.\n"
                 + "    --" + Args.OPTION_PHOENIX + " - Set if the table to be merged is phoenix salted table.\n"
                 + Args.commonUsage();
     }
@@ -117,17 +134,47 @@ public class Merge implements Command {
                 Util.printMessage(i++ + "/" + tableNameSet.size() + " - Table - " + tableName + " - empty - End");
             }
         } else if (actionParam.toLowerCase().equals("size")) {
-            throw new IllegalStateException("Not implemented yet"); //todo
+            for (String tableName : tableNameSet) {
+                TableInfo tableInfo = new TableInfo(admin, tableName, args);
+
+                Util.printMessage(i + "/" + tableNameSet.size() + " - Table - " + tableName + " - size - Start");
+                size(tableInfo);
+                Util.printMessage(i++ + "/" + tableNameSet.size() + " - Table - " + tableName + " - size - End\n");
+            }
         } else {
             throw new IllegalArgumentException("Invalid merge action - " + actionParam);
         }
     }
 
-    private long getMergeWaitIntervalMs() {
+    private long getMergeTimeoutMs() {
+        if (args.has(Args.OPTION_MERGE_TIMEOUT))
+            return (int) args.valueOf(Args.OPTION_MERGE_TIMEOUT) * 1000L;
+        else
+            return Constant.LARGE_WAIT_INTERVAL_MS;
+    }
+
+    private long getScanTargetLatencyMs() {
+        if (args.has(Args.OPTION_SCAN_TARGET_LATENCY))
+            return (int) args.valueOf(Args.OPTION_SCAN_TARGET_LATENCY);
+        else
+            return EmptyRegionVerifier.DEFAULT_TARGET_LATENCY_MS;
+    }
+
+    private long getMergePollIntervalMs() {
         if (test)
             return Constant.WAIT_INTERVAL_MS;
         else
-            return Constant.LARGE_WAIT_INTERVAL_MS;
+            return Constant.SMALL_WAIT_INTERVAL_MS;
+    }
+
+    /**
+     * Waits until the merges requested in this iteration are done in the meta table.
+     */
+    private void waitForMerges(int iteration) throws Exception {
+        Util.printMessage("Iteration " + iteration + "/" + getMaxMaxIteration() + " - Wait for "
+                + mergeTracker.size() + " merges up to " + getMergeTimeoutMs() / 1000 + " seconds");
+        mergeTracker.await(getMergeTimeoutMs(), getMergePollIntervalMs());
+        System.out.println();
     }
 
     private void empty(TableInfo tableInfo) throws Exception {
@@ -142,9 +189,7 @@ public class Merge implements Command {
                 }
 
                 if (emptyInternal(tableInfo)) break;
-                Util.printMessage("Iteration " + i + "/" + getMaxMaxIteration() + " - Wait for "
-                        + getMergeWaitIntervalMs() / 1000 + " seconds\n");
-                Thread.sleep(getMergeWaitIntervalMs());
+                waitForMerges(i);
             } catch (IllegalStateException e) {
                 if (e.getMessage().contains(Constant.MESSAGE_NEED_REFRESH)) {
                     Thread.sleep(Constant.WAIT_INTERVAL_MS);
@@ -182,7 +227,10 @@ public class Merge implements Command {
                             printMergeInfo(region, targetRegion);
                             mergedRegions.add(region);
                             mergedRegions.add(targetRegion);
-                            CommandAdapter.mergeRegions(args, admin, region, targetRegion);
+                            if (CommandAdapter.mergeRegions(args, admin, region, targetRegion)) {
+                                CommandAdapter.invalidateOnlineRegionsMap();
+                                mergeTracker.add(region, targetRegion);
+                            }
                             i++;
                         }
                     } catch (RegionException e) {
@@ -196,6 +244,149 @@ public class Merge implements Command {
         return mergedRegions.size() <= 1;
     }
 
+    private void size(TableInfo tableInfo) throws Exception {
+        for (int i = 1; i <= getMaxMaxIteration(); i++) {
+            try {
+                if (sizeInternal(tableInfo, i)) break;
+                waitForMerges(i);
+            } catch (IllegalStateException e) {
+                if (e.getMessage().contains(Constant.MESSAGE_NEED_REFRESH)) {
+                    Thread.sleep(Constant.WAIT_INTERVAL_MS);
+                } else {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges one round of the planned pairs. All pairs of a round are disjoint, so they are requested at once
+     * and merged by the cluster concurrently. The next round starts as soon as all of them are done.
+     * <p>
+     * The regions merged in the previous round can not be merged again until they are cleaned up. The pairs
+     * having them are postponed and if there are only such pairs, this round waits for them to be cleaned up.
+     *
+     * @return true: stop iteration, false: continue iteration
+     */
+    private boolean sizeInternal(TableInfo tableInfo, int iteration) throws Exception {
+        tableInfo.refresh();
+        Set<String> mergeQualifiedRegions = CommandAdapter.mergeQualifiedRegions(args, admin.getConfiguration(),
+                connection, tableInfo.getTableName());
+
+        List<HRegionInfo> allTableRegions = new ArrayList<>(tableInfo.getRegionInfoSet());
+        int[] sizes = new int[allTableRegions.size()];
+        boolean[] boundaries = new boolean[allTableRegions.size()];
+        for (int i = 0; i < allTableRegions.size(); i++) {
+            HRegionInfo region = allTableRegions.get(i);
+            RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(region);
+            if (regionLoad == null) throw new IllegalStateException(Constant.MESSAGE_NEED_REFRESH);
+
+            sizes[i] = regionLoad.getStorefileSizeMB() + regionLoad.getMemStoreSizeMB();
+            boundaries[i] = isPhoenixSaltingTable && isRegionBoundaryOfPhoenixSaltingTable(region);
+        }
+
+        List<int[]> pairs = planSizeMerge(sizes, boundaries, targetSizeMB);
+        List<int[]> mergeablePairs = new ArrayList<>();
+        Set<String> postponedRegions = new HashSet<>();
+        for (int[] pair : pairs) {
+            String regionA = allTableRegions.get(pair[0]).getEncodedName();
+            String regionB = allTableRegions.get(pair[1]).getEncodedName();
+            if (mergeQualifiedRegions.contains(regionA) || mergeQualifiedRegions.contains(regionB)) {
+                postponedRegions.add(regionA);
+                postponedRegions.add(regionB);
+            } else {
+                mergeablePairs.add(pair);
+            }
+        }
+        postponedRegions.retainAll(mergeQualifiedRegions);
+
+        System.out.println();
+        Util.printMessage("Iteration " + iteration + "/" + getMaxMaxIteration() + " - "
+                + pairs.size() + " merges of " + allTableRegions.size() + " regions are planned"
+                + (mergeablePairs.size() < pairs.size() ?
+                ", " + (pairs.size() - mergeablePairs.size()) + " of them are postponed" : ""));
+        if (pairs.isEmpty()) return true;
+
+        if (!args.isForceProceed()) {
+            if (!proceed)
+                proceed = Util.askProceed();
+            if (!proceed) {
+                return true;
+            }
+        }
+
+        if (mergeablePairs.isEmpty()) {
+            waitForCleanup(tableInfo, iteration, postponedRegions);
+            return false;
+        }
+
+        for (int[] pair : mergeablePairs) {
+            HRegionInfo regionA = allTableRegions.get(pair[0]);
+            HRegionInfo regionB = allTableRegions.get(pair[1]);
+            try {
+                if (CommandAdapter.mergeRegions(args, admin, regionA, regionB)) {
+                    CommandAdapter.invalidateOnlineRegionsMap();
+                    printMergeInfo(regionA, regionB);
+                    mergeTracker.add(regionA, regionB);
+                }
+            } catch (RegionException e) {
+                throw new IllegalStateException(Constant.MESSAGE_NEED_REFRESH);
+            }
+        }
+
+        System.out.println();
+        return false;
+    }
+
+    /**
+     * Waits until the merged regions are cleaned up. The region servers compact the reference files of
+     * a merged region as soon as it is opened and then CatalogJanitor removes its merge qualifiers.
+     * CatalogJanitor is run here not to wait for its next run.
+     */
+    private void waitForCleanup(TableInfo tableInfo, int iteration, Set<String> mergedRegions) throws Exception {
+        Util.printMessage("Iteration " + iteration + "/" + getMaxMaxIteration() + " - Wait for "
+                + mergedRegions.size() + " merged regions to be cleaned up up to " + getMergeTimeoutMs() / 1000
+                + " seconds");
+        long timestamp = System.currentTimeMillis();
+        while (System.currentTimeMillis() - timestamp < getMergeTimeoutMs()) {
+            CommandAdapter.runCatalogScan(admin);
+            Set<String> mergeQualifiedRegions = CommandAdapter.mergeQualifiedRegions(args, admin.getConfiguration(),
+                    connection, tableInfo.getTableName());
+            if (Collections.disjoint(mergedRegions, mergeQualifiedRegions)) break;
+
+            Thread.sleep(getMergePollIntervalMs());
+        }
+        System.out.println();
+    }
+
+    /**
+     * Groups contiguous regions into runs whose total size does not exceed the target size and
+     * pairs up the adjacent regions of each run. A run of n regions is merged in log2(n) rounds.
+     *
+     * @param sizes      sizes of the regions sorted by start key
+     * @param boundaries true if the region must not be merged with the next one
+     * @return indexes of the regions to be merged in this round
+     */
+    @VisibleForTesting
+    static List<int[]> planSizeMerge(int[] sizes, boolean[] boundaries, int targetSizeMB) {
+        List<int[]> pairs = new ArrayList<>();
+        int start = 0;
+        while (start < sizes.length) {
+            long sum = sizes[start];
+            int end = start;
+            while (end + 1 < sizes.length && !boundaries[end] && sum + sizes[end + 1] <= targetSizeMB) {
+                end++;
+                sum += sizes[end];
+            }
+
+            for (int i = start; i + 1 <= end; i += 2) {
+                pairs.add(new int[]{i, i + 1});
+            }
+            start = end + 1;
+        }
+        return pairs;
+    }
+
     private HRegionInfo getTargetRegion(TableInfo tableInfo, List<HRegionInfo> allTableRegions,
                                         int i, Set<HRegionInfo> mergedRegions) {
         HRegionInfo regionPrev = i > 0 ? allTableRegions.get(i - 1) : null;
@@ -244,68 +435,37 @@ public class Merge implements Command {
 
     private void emptyFast(TableInfo tableInfo) throws Exception {
         long timestampPrev;
-        boolean merged;
         for (int j = 1; j <= getMaxMaxIteration(); j++) {
-            merged = false;
-
             timestampPrev = System.currentTimeMillis();
-            List<HRegionInfo> emptyRegions = findEmptyRegions(tableInfo);
-            timestampPrev = Util.printVerboseMessage(args, "Merge.emptyFast.findEmptyRegions", timestampPrev);
-            if (emptyRegions.size() > 1) {
-                List<HRegionInfo> adjacentEmptyRegions = CommandAdapter.adjacentEmptyRegions(emptyRegions);
-                Util.printVerboseMessage(args, "Merge.emptyFast.adjacentEmptyRegions", timestampPrev);
-                System.out.println();
-                Util.printMessage("Iteration " + j + "/" + getMaxMaxIteration() + " - "
-                        + adjacentEmptyRegions.size() + " adjacent empty regions are found");
-                if (adjacentEmptyRegions.size() == 0) return;
-                emptyRegions = adjacentEmptyRegions;
-                if (!args.isForceProceed()) {
-                    if (!proceed)
-                        proceed = Util.askProceed();
-                    if (!proceed) {
-                        return;
-                    }
+            Map<HRegionInfo, ServerName> candidates = findEmptyRegionCandidates(tableInfo);
+            timestampPrev = Util.printVerboseMessage(args, "Merge.emptyFast.findEmptyRegionCandidates", timestampPrev);
+            if (candidates.size() <= 1) break;
+
+            System.out.println();
+            Util.printMessage("Iteration " + j + "/" + getMaxMaxIteration() + " - "
+                    + candidates.size() + " regions of zero size are found");
+            if (!args.isForceProceed()) {
+                if (!proceed)
+                    proceed = Util.askProceed();
+                if (!proceed) {
+                    return;
                 }
-            } else {
-                break;
             }
 
-            for (int i = 0; i < emptyRegions.size(); i++) {
-                HRegionInfo regionA = emptyRegions.get(i);
-                // 첫번째 리전의 endKey가 피닉스 솔팅 테이블의 리전 바운더리가 아니여야 한다.
-                if (isPhoenixSaltingTable && isRegionBoundaryOfPhoenixSaltingTable(regionA)) {
-                    continue;
-                }
-
-                if (i != emptyRegions.size() - 1) {
-                    HRegionInfo regionB = emptyRegions.get(i + 1);
-
-                    boolean mergeRegions = false;
-                    for (int k = 0; k < Constant.TRY_MAX_SMALL; k++) {
-                        try {
-                            mergeRegions = CommandAdapter.mergeRegions(args, admin, regionA, regionB);
-                            break;
-                        } catch (Exception e) {
-                            e.printStackTrace();
-                            Thread.sleep(Constant.WAIT_INTERVAL_MS);
-                        }
-                    }
-                    if (mergeRegions) {
-                        i++;
-                        printMergeInfo(regionA, regionB);
-                        merged = true;
-                    }
-                }
-                if (!merged)
-                    Util.printMessage("Skip merging - " + regionA.getEncodedName()
-                            + " - There is no adjacent empty region");
+            // adjacent empty regions are merged while the others are still being verified
+            EmptyRegionMerger merger = new EmptyRegionMerger(new ArrayList<>(tableInfo.getRegionInfoSet()));
+            try {
+                new EmptyRegionVerifier(args, connection, tableInfo.getTableName(), merger, getScanTargetLatencyMs())
+                    .verify(candidates);
+            } finally {
+                merger.finish();
             }
+            Util.printVerboseMessage(args, "Merge.emptyFast.verify", timestampPrev);
 
-            if (merged) {
-                System.out.println("Sleeping for "
-                        + (getMergeWaitIntervalMs() / 1000) + " seconds.");
-                Thread.sleep(getMergeWaitIntervalMs());
+            if (merger.getMergeCount() > 0) {
+                waitForMerges(j);
             } else {
+                Util.printMessage("There is no adjacent empty region");
                 break;
             }
         }
@@ -317,10 +477,10 @@ public class Merge implements Command {
         System.out.println("  └ " + Util.getRegionInfoString(regionB));
     }
 
-    private List<HRegionInfo> findEmptyRegions(TableInfo tableInfo) throws Exception {
+    private Map<HRegionInfo, ServerName> findEmptyRegionCandidates(TableInfo tableInfo) throws Exception {
         for (int i = 0; i < Constant.TRY_MAX; i++) {
             try {
-                return findEmptyRegionsInternal(tableInfo);
+                return findEmptyRegionCandidatesInternal(tableInfo);
             } catch (IllegalStateException e) {
                 if (e.getMessage().contains(Constant.MESSAGE_NEED_REFRESH)) {
                     Thread.sleep(Constant.WAIT_INTERVAL_MS);
@@ -330,41 +490,118 @@ public class Merge implements Command {
             }
         }
 
-        throw new IllegalStateException("findEmptyRegions failed");
+        throw new IllegalStateException("findEmptyRegionCandidates failed");
     }
 
-    private List<HRegionInfo> findEmptyRegionsInternal(TableInfo tableInfo) throws Exception {
-        long timestamp = System.currentTimeMillis();
+    /**
+     * @return key: region of zero size, value: hosting region server
+     */
+    private Map<HRegionInfo, ServerName> findEmptyRegionCandidatesInternal(TableInfo tableInfo) throws Exception {
+        tableInfo.refresh();
 
-        Set<HRegionInfo> emptyRegions =
-                Collections.synchronizedSet(Collections.newSetFromMap(new TreeMap<HRegionInfo, Boolean>()));
+        Map<HRegionInfo, ServerName> candidates = new TreeMap<>();
+        for (HRegionInfo regionInfo : tableInfo.getRegionInfoSet()) {
+            RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(regionInfo);
+            if (regionLoad == null) {
+                Util.printMessage("RegionLoad is empty - " + regionInfo);
+                throw new IllegalStateException(Constant.MESSAGE_NEED_REFRESH);
+            }
 
-        tableInfo.refresh();
+            if (regionLoad.getStorefileSizeMB() == 0 && regionLoad.getMemStoreSizeMB() == 0) {
+                candidates.put(regionInfo, tableInfo.getServer(regionInfo));
+            }
+        }
+        return candidates;
+    }
 
-        ExecutorService executorService = Executors.newFixedThreadPool(EmptyRegionChecker.THREAD_POOL_SIZE);
-        try {
-            EmptyRegionChecker.resetCounter();
+    /**
+     * Merges a verified empty region with an adjacent empty region as soon as both of them are verified.
+     * Pairs are found by the verifying threads and merged one by one by a separate thread,
+     * so that the verifying threads are not blocked by the merges.
+     */
+    private class EmptyRegionMerger implements EmptyRegionVerifier.Listener {
+        private final List<HRegionInfo> regions;
+        private final Map<HRegionInfo, Integer> indexMap = new HashMap<>();
+        private final Set<HRegionInfo> emptyRegions = new HashSet<>();
+        // regions queued to be merged or merged
+        private final Set<HRegionInfo> pairedRegions = new HashSet<>();
+        private final ExecutorService mergeExecutor = Executors.newSingleThreadExecutor();
+        private final AtomicInteger mergeCount = new AtomicInteger();
+
+        private EmptyRegionMerger(List<HRegionInfo> regions) {
+            this.regions = regions;
+            for (int i = 0; i < regions.size(); i++) {
+                indexMap.put(regions.get(i), i);
+            }
+        }
 
-            Set<HRegionInfo> allTableRegions = tableInfo.getRegionInfoSet();
-            for (HRegionInfo regionInfo : allTableRegions) {
-                RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(regionInfo);
-                if (regionLoad == null) {
-                    Util.printMessage("RegionLoad is empty - " + regionInfo);
-                    throw new IllegalStateException(Constant.MESSAGE_NEED_REFRESH);
+        @Override
+        public synchronized void onEmptyRegion(HRegionInfo regionInfo) {
+            Integer index = indexMap.get(regionInfo);
+            if (index == null) return;
+
+            emptyRegions.add(regionInfo);
+            if (index > 0 && pair(regions.get(index - 1), regionInfo)) return;
+            if (index < regions.size() - 1) pair(regionInfo, regions.get(index + 1));
+        }
+
+        private boolean pair(final HRegionInfo regionA, final HRegionInfo regionB) {
+            if (!emptyRegions.contains(regionA) || !emptyRegions.contains(regionB)) return false;
+            if (pairedRegions.contains(regionA) || pairedRegions.contains(regionB)) return false;
+            // 첫번째 리전의 endKey가 피닉스 솔팅 테이블의 리전 바운더리가 아니여야 한다.
+            if (isPhoenixSaltingTable && isRegionBoundaryOfPhoenixSaltingTable(regionA)) return false;
+
+            pairedRegions.add(regionA);
+            pairedRegions.add(regionB);
+            mergeExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!merge(regionA, regionB)) {
+                        synchronized (EmptyRegionMerger.this) {
+                            pairedRegions.remove(regionA);
+                            pairedRegions.remove(regionB);
+                        }
+                    }
                 }
+            });
+            return true;
+        }
 
-                if (regionLoad.getStorefileSizeMB() == 0 && regionLoad.getMemStoreSizeMB() == 0) {
-                    executorService.execute(
-                            new EmptyRegionChecker(connection, tableInfo.getTableName(), regionInfo, emptyRegions));
+        private boolean merge(HRegionInfo regionA, HRegionInfo regionB) {
+            for (int k = 0; k < Constant.TRY_MAX_SMALL; k++) {
+                try {
+                    if (!CommandAdapter.mergeRegions(args, admin, regionA, regionB)) return false;
+
+                    CommandAdapter.invalidateOnlineRegionsMap();
+                    mergeCount.incrementAndGet();
+                    mergeTracker.add(regionA, regionB);
+                    printMergeInfo(regionA, regionB);
+                    return true;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    try {
+                        Thread.sleep(Constant.WAIT_INTERVAL_MS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
                 }
             }
-        } finally {
-            executorService.shutdown();
-            executorService.awaitTermination(30, TimeUnit.MINUTES);
+            return false;
         }
-        Util.printMessage(emptyRegions.size() + " empty regions are found.");
 
-        Util.printVerboseMessage(args, Util.getMethodName(), timestamp);
-        return new ArrayList<>(emptyRegions);
+        /**
+         * Blocks until all of the queued merges are requested.
+         */
+        private void finish() throws InterruptedException {
+            mergeExecutor.shutdown();
+            while (!mergeExecutor.awaitTermination(Constant.LARGE_WAIT_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                Util.printMessage("Waiting for the merges to be requested");
+            }
+        }
+
+        private int getMergeCount() {
+            return mergeCount.get();
+        }
     }
 }
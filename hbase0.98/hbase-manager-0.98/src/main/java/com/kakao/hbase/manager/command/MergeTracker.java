@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Tracks the requested merges in the meta table.
+ * A merge is done when an online region spanning both of the merged regions is assigned.
+ * Only the key range of each merge is scanned.
+ */
+class MergeTracker {
+    private final Args args;
+    private final HBaseAdmin admin;
+    private final HConnection connection;
+    private final List<PendingMerge> pendingMerges = new ArrayList<>();
+
+    MergeTracker(Args args, HBaseAdmin admin, HConnection connection) {
+        this.args = args;
+        this.admin = admin;
+        this.connection = connection;
+    }
+
+    /**
+     * @param regionServerMap key: region, value: hosting region server. null if not assigned.
+     */
+    private static List<byte[][]> onlineRegionKeys(NavigableMap<HRegionInfo, ServerName> regionServerMap) {
+        List<byte[][]> onlineRegionKeys = new ArrayList<>();
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+            HRegionInfo regionInfo = entry.getKey();
+            if (regionInfo.isOffline() || regionInfo.isSplit() || entry.getValue() == null) continue;
+            onlineRegionKeys.add(new byte[][]{regionInfo.getStartKey(), regionInfo.getEndKey()});
+        }
+        return onlineRegionKeys;
+    }
+
+    /**
+     * @param onlineRegionKeys start key and end key of the online regions that are assigned
+     */
+    @VisibleForTesting
+    static boolean isMerged(byte[] startKey, byte[] endKey, List<byte[][]> onlineRegionKeys) {
+        for (byte[][] keys : onlineRegionKeys) {
+            if (Bytes.equals(keys[0], startKey) && Bytes.equals(keys[1], endKey)) return true;
+        }
+        return false;
+    }
+
+    void add(HRegionInfo regionA, HRegionInfo regionB) {
+        if (regionA.compareTo(regionB) > 0) {
+            HRegionInfo regionTemp = regionA;
+            regionA = regionB;
+            regionB = regionTemp;
+        }
+        add(CommandAdapter.getTableName(regionA), regionA.getStartKey(), regionB.getEndKey());
+    }
+
+    @VisibleForTesting
+    void add(String tableName, byte[] startKey, byte[] endKey) {
+        pendingMerges.add(new PendingMerge(tableName, startKey, endKey));
+    }
+
+    int size() {
+        return pendingMerges.size();
+    }
+
+    /**
+     * @return start key and end key of the online regions of the table in the key range
+     */
+    protected List<byte[][]> onlineRegionKeys(String tableName, byte[] startKey, byte[] endKey)
+            throws IOException {
+        return onlineRegionKeys(CommandAdapter.regionServerMap(args, admin.getConfiguration(), connection,
+                tableName, startKey, endKey, false));
+    }
+
+    /**
+     * @return true if all merges are done within the timeout
+     */
+    boolean await(long timeoutMs, long pollIntervalMs) throws IOException, InterruptedException {
+        long timestamp = System.currentTimeMillis();
+        int total = pendingMerges.size();
+        try {
+            while (true) {
+                Iterator<PendingMerge> iterator = pendingMerges.iterator();
+                while (iterator.hasNext()) {
+                    PendingMerge merge = iterator.next();
+                    List<byte[][]> onlineRegionKeys = onlineRegionKeys(merge.tableName, merge.startKey, merge.endKey);
+                    if (isMerged(merge.startKey, merge.endKey, onlineRegionKeys)) iterator.remove();
+                }
+
+                long elapsed = System.currentTimeMillis() - timestamp;
+                if (pendingMerges.isEmpty()) {
+                    Util.printMessage(total + " merges are done in " + elapsed / 1000 + " seconds");
+                    return true;
+                }
+                if (elapsed >= timeoutMs) {
+                    Util.printMessage(pendingMerges.size() + "/" + total + " merges are not done in "
+                            + timeoutMs / 1000 + " seconds");
+                    return false;
+                }
+                Thread.sleep(pollIntervalMs);
+            }
+        } finally {
+            pendingMerges.clear();
+            Util.printVerboseMessage(args, "MergeTracker.await", timestamp);
+        }
+    }
+
+    private static class PendingMerge {
+        private final String tableName;
+        private final byte[] startKey;
+        private final byte[] endKey;
+
+        private PendingMerge(String tableName, byte[] startKey, byte[] endKey) {
+            this.tableName = tableName;
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+    }
+}
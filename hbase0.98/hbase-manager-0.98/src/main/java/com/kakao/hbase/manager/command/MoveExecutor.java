@@ -0,0 +1,217 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.UnknownRegionException;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.master.RegionPlan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Keeps up to N region moves in flight and confirms them asynchronously.
+ * The number of concurrent moves from or to a single region server is also limited.
+ */
+class MoveExecutor {
+    static final int DEFAULT_MAX_PER_RS = 2;
+    private static final String SOURCE_NOT_AVAILABLE = "N/A";
+    private final Args args;
+    private final HBaseAdmin admin;
+    private final int maxInFlight;
+    private final int maxPerRs;
+    private final List<Move> inFlight = new ArrayList<>();
+    private final MoveTracker moveTracker;
+    private final Map<String, Integer> sourceCountMap = new HashMap<>();
+    private final Map<String, Integer> destinationCountMap = new HashMap<>();
+    private int progress = 0;
+    private int total = 0;
+
+    MoveExecutor(Args args, HBaseAdmin admin, int maxInFlight, int maxPerRs) {
+        if (maxInFlight < 1 || maxPerRs < 1)
+            throw new IllegalArgumentException("Concurrency limits should be greater than 0");
+
+        this.args = args;
+        this.admin = admin;
+        this.maxInFlight = maxInFlight;
+        this.maxPerRs = maxPerRs;
+        this.moveTracker = new MoveTracker(args, admin);
+    }
+
+    static MoveExecutor create(Args args, HBaseAdmin admin) {
+        int maxInFlight = (Integer) args.valueOf(Args.OPTION_MOVE_PARALLEL);
+        final int maxPerRs;
+        if (args.has(Args.OPTION_MAX_PER_RS)) {
+            maxPerRs = (Integer) args.valueOf(Args.OPTION_MAX_PER_RS);
+        } else {
+            maxPerRs = Math.min(maxInFlight, DEFAULT_MAX_PER_RS);
+        }
+        return new MoveExecutor(args, admin, maxInFlight, maxPerRs);
+    }
+
+    private static String source(RegionPlan regionPlan) {
+        return regionPlan.getSource() == null ? SOURCE_NOT_AVAILABLE : regionPlan.getSource().getServerName();
+    }
+
+    private static void increase(Map<String, Integer> countMap, String serverName) {
+        Integer count = countMap.get(serverName);
+        countMap.put(serverName, count == null ? 1 : count + 1);
+    }
+
+    private static void decrease(Map<String, Integer> countMap, String serverName) {
+        Integer count = countMap.get(serverName);
+        if (count == null || count <= 1) {
+            countMap.remove(serverName);
+        } else {
+            countMap.put(serverName, count - 1);
+        }
+    }
+
+    private static int count(Map<String, Integer> countMap, String serverName) {
+        Integer count = countMap.get(serverName);
+        return count == null ? 0 : count;
+    }
+
+    void run(List<RegionPlan> regionPlanList) throws IOException, InterruptedException {
+        long startTimestamp = System.currentTimeMillis();
+
+        LinkedList<RegionPlan> pending = new LinkedList<>(regionPlanList);
+        progress = 0;
+        total = regionPlanList.size();
+
+        while (!pending.isEmpty() || !inFlight.isEmpty()) {
+            dispatch(pending);
+            if (inFlight.isEmpty()) continue;
+
+            Thread.sleep(Constant.WAIT_INTERVAL_MS);
+            confirm();
+        }
+
+        Util.printVerboseMessage(args, "MoveExecutor.run", startTimestamp);
+    }
+
+    private boolean available(RegionPlan regionPlan) {
+        String source = source(regionPlan);
+        if (!source.equals(SOURCE_NOT_AVAILABLE) && count(sourceCountMap, source) >= maxPerRs)
+            return false;
+        return count(destinationCountMap, regionPlan.getDestination().getServerName()) < maxPerRs;
+    }
+
+    private void dispatch(LinkedList<RegionPlan> pending) throws IOException {
+        Iterator<RegionPlan> iterator = pending.iterator();
+        while (iterator.hasNext() && inFlight.size() < maxInFlight) {
+            RegionPlan regionPlan = iterator.next();
+            if (!available(regionPlan)) continue;
+
+            iterator.remove();
+            Move move = new Move(regionPlan);
+            try {
+                move.request();
+            } catch (UnknownRegionException e) {
+                move.print(" - SKIPPED - " + e.getClass().getCanonicalName());
+                continue;
+            }
+            inFlight.add(move);
+            if (!CommandAdapter.isMetaTable(move.tableName))
+                moveTracker.add(move.tableName, move.encodedRegionName, move.destination);
+            increase(sourceCountMap, move.source);
+            increase(destinationCountMap, move.destination);
+        }
+    }
+
+    private void confirm() throws IOException, InterruptedException {
+        Map<String, Boolean> tableEnabledMap = new HashMap<>();
+        Set<String> moved = moveTracker.confirm();
+        Iterator<Move> iterator = inFlight.iterator();
+        while (iterator.hasNext()) {
+            Move move = iterator.next();
+
+            final String result;
+            if (CommandAdapter.isMetaTable(move.tableName) || moved.contains(move.encodedRegionName)) {
+                result = " - OK";
+            } else if (!isTableEnabled(tableEnabledMap, move.tableName)) {
+                moveTracker.remove(move.encodedRegionName);
+                result = " - SKIPPED - " + Constant.MESSAGE_DISABLED_OR_NOT_FOUND_TABLE;
+            } else {
+                move.retry();
+                continue;
+            }
+
+            move.print(result);
+            iterator.remove();
+            decrease(sourceCountMap, move.source);
+            decrease(destinationCountMap, move.destination);
+        }
+    }
+
+    private boolean isTableEnabled(Map<String, Boolean> tableEnabledMap, String tableName)
+        throws IOException, InterruptedException {
+        Boolean enabled = tableEnabledMap.get(tableName);
+        if (enabled == null) {
+            enabled = Common.isTableEnabled(args, admin, tableName);
+            tableEnabledMap.put(tableName, enabled);
+        }
+        return enabled;
+    }
+
+    private class Move {
+        private final String tableName;
+        private final String encodedRegionName;
+        private final String source;
+        private final String destination;
+        private int tries = 0;
+
+        @SuppressWarnings("deprecation")
+        Move(RegionPlan regionPlan) {
+            this.tableName = Bytes.toString(regionPlan.getRegionInfo().getTableName());
+            this.encodedRegionName = regionPlan.getRegionInfo().getEncodedName();
+            this.source = source(regionPlan);
+            this.destination = regionPlan.getDestination().getServerName();
+        }
+
+        private void request() throws IOException {
+            try {
+                admin.move(encodedRegionName.getBytes(), destination.getBytes());
+            } catch (java.lang.reflect.UndeclaredThrowableException ignore) {
+            }
+            CommandAdapter.invalidateOnlineRegionsMap();
+        }
+
+        private void retry() throws IOException {
+            tries++;
+            if (tries >= Constant.TRY_MAX)
+                throw new IllegalStateException(Constant.MESSAGE_CANNOT_MOVE + " - "
+                    + encodedRegionName + " to " + destination);
+
+            // assign region again
+            if (tries >= Constant.TRY_MAX / 2)
+                admin.assign(encodedRegionName.getBytes());
+
+            request();
+        }
+
+        private void print(String result) {
+            System.out.println(++progress + "/" + total + " - move " + encodedRegionName + " of " + tableName
+                + " from " + source + " to " + destination + result);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.specific.RegionLoadDelegator;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.master.RegionPlan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Orders region moves so that region servers do not receive many regions before their regions leave.
+ * <p>
+ * While the moves are running, the region count of every region server stays within COUNT_BOUND of the range
+ * between its count before and after the plan. The request load stays within the load of the hottest region
+ * in the plan in the same way. Moves that would break the bounds are deferred. If every remaining move would
+ * break them, the first one is run anyway.
+ */
+class MoveScheduler {
+    public static int COUNT_BOUND = 1;
+    static final String MESSAGE_INVALID_ORDER = "Invalid move order";
+
+    private MoveScheduler() {
+    }
+
+    static List<RegionPlan> schedule(HBaseAdmin admin, Args args, List<RegionPlan> regionPlanList)
+        throws IOException {
+        if (regionPlanList.size() < 2) return regionPlanList;
+
+        long startTimestamp = System.currentTimeMillis();
+        Util.printVerboseMessage(args, "MoveScheduler.schedule - start");
+
+        Map<byte[], HRegionInfo> regionMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (RegionPlan regionPlan : regionPlanList) {
+            regionMap.put(regionPlan.getRegionInfo().getRegionName(), regionPlan.getRegionInfo());
+        }
+        RegionLoadAdapter regionLoadAdapter = new RegionLoadAdapter(admin, regionMap, args);
+
+        Map<RegionPlan, ServerName> sources = new HashMap<>();
+        Map<RegionPlan, ServerName> destinations = new HashMap<>();
+        Map<RegionPlan, Integer> sizes = new HashMap<>();
+        Map<RegionPlan, Long> loads = new HashMap<>();
+        for (RegionPlan regionPlan : regionPlanList) {
+            sources.put(regionPlan, regionPlan.getSource());
+            destinations.put(regionPlan, regionPlan.getDestination());
+            RegionLoadDelegator regionLoad = regionLoadAdapter.get(regionPlan.getRegionInfo());
+            sizes.put(regionPlan, regionLoad == null ? 0 : regionLoad.getStorefileSizeMB());
+            loads.put(regionPlan, regionLoad == null ? 0 :
+                regionLoad.getReadRequestsCount() + regionLoad.getWriteRequestsCount());
+        }
+
+        List<RegionPlan> sorted = new ArrayList<>(regionPlanList);
+        Order.parseArg(args).sort(sorted, sizes, loads);
+        List<RegionPlan> result = order(sorted, sources, destinations, loads);
+
+        Util.printVerboseMessage(args, "MoveScheduler.schedule - end", startTimestamp);
+        return result;
+    }
+
+    /**
+     * @param moves moves in the preferred order
+     * @param sources null source is allowed for the regions not assigned
+     * @return moves in the order to be run
+     */
+    static <T, S> List<T> order(List<T> moves, Map<T, S> sources, Map<T, S> destinations, Map<T, Long> loads) {
+        // the changes after the plan
+        Map<S, Long> finalCounts = new HashMap<>();
+        Map<S, Long> finalLoads = new HashMap<>();
+        long loadBound = 0;
+        for (T move : moves) {
+            long load = loads.get(move);
+            loadBound = Math.max(loadBound, load);
+            add(finalCounts, sources.get(move), -1);
+            add(finalCounts, destinations.get(move), 1);
+            add(finalLoads, sources.get(move), -load);
+            add(finalLoads, destinations.get(move), load);
+        }
+
+        // the changes so far
+        Map<S, Long> counts = new HashMap<>();
+        Map<S, Long> currentLoads = new HashMap<>();
+
+        List<T> result = new ArrayList<>();
+        List<T> pending = moves;
+        while (!pending.isEmpty()) {
+            List<T> deferred = new ArrayList<>();
+            for (T move : pending) {
+                S source = sources.get(move), destination = destinations.get(move);
+                long load = loads.get(move);
+                if (within(counts, finalCounts, source, -1, COUNT_BOUND)
+                    && within(counts, finalCounts, destination, 1, COUNT_BOUND)
+                    && within(currentLoads, finalLoads, source, -load, loadBound)
+                    && within(currentLoads, finalLoads, destination, load, loadBound)) {
+                    run(move, source, destination, load, counts, currentLoads, result);
+                } else {
+                    deferred.add(move);
+                }
+            }
+
+            if (deferred.size() == pending.size()) {
+                T move = deferred.remove(0);
+                run(move, sources.get(move), destinations.get(move), loads.get(move), counts, currentLoads, result);
+            }
+            pending = deferred;
+        }
+        return result;
+    }
+
+    private static <T, S> void run(T move, S source, S destination, long load, Map<S, Long> counts,
+        Map<S, Long> currentLoads, List<T> result) {
+        add(counts, source, -1);
+        add(counts, destination, 1);
+        add(currentLoads, source, -load);
+        add(currentLoads, destination, load);
+        result.add(move);
+    }
+
+    private static <S> boolean within(Map<S, Long> current, Map<S, Long> finals, S server, long delta, long bound) {
+        if (server == null) return true;
+        long value = get(current, server) + delta;
+        long last = get(finals, server);
+        return value <= Math.max(0, last) + bound && value >= Math.min(0, last) - bound;
+    }
+
+    private static <S> long get(Map<S, Long> map, S server) {
+        Long value = map.get(server);
+        return value == null ? 0 : value;
+    }
+
+    private static <S> void add(Map<S, Long> map, S server, long delta) {
+        if (server == null) return;
+        map.put(server, get(map, server) + delta);
+    }
+
+    enum Order {
+        PLAN {
+            @Override
+            <T> void sort(List<T> moves, Map<T, Integer> sizes, Map<T, Long> loads) {
+            }
+        },
+        SMALL_FIRST {
+            @Override
+            <T> void sort(List<T> moves, final Map<T, Integer> sizes, Map<T, Long> loads) {
+                Collections.sort(moves, new Comparator<T>() {
+                    @Override
+                    public int compare(T o1, T o2) {
+                        return Integer.compare(sizes.get(o1), sizes.get(o2));
+                    }
+                });
+            }
+        },
+        HOT_LAST {
+            @Override
+            <T> void sort(List<T> moves, Map<T, Integer> sizes, final Map<T, Long> loads) {
+                Collections.sort(moves, new Comparator<T>() {
+                    @Override
+                    public int compare(T o1, T o2) {
+                        return Long.compare(loads.get(o1), loads.get(o2));
+                    }
+                });
+            }
+        };
+
+        static Order parseArg(Args args) {
+            if (args == null || !args.has(Args.OPTION_MOVE_ORDER)) return PLAN;
+            String value = ((String) args.valueOf(Args.OPTION_MOVE_ORDER)).toUpperCase().replace('-', '_');
+            try {
+                return Order.valueOf(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(MESSAGE_INVALID_ORDER + " - " + args.valueOf(Args.OPTION_MOVE_ORDER));
+            }
+        }
+
+        static String usage() {
+            StringBuilder sb = new StringBuilder();
+            for (Order order : values()) {
+                if (sb.length() > 0) sb.append("|");
+                sb.append(order.name().toLowerCase().replace('_', '-'));
+            }
+            return sb.toString();
+        }
+
+        // stable
+        abstract <T> void sort(List<T> moves, Map<T, Integer> sizes, Map<T, Long> loads);
+    }
+}
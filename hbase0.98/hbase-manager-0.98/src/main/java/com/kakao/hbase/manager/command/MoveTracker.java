@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Confirms pending region moves with a single meta scan per poll cycle.
+ * A region that does not exist any more(split or merged) is regarded as moved.
+ */
+class MoveTracker {
+    private final Args args;
+    private final HBaseAdmin admin;
+    // key: encodedRegionName
+    private final Map<String, Target> pendingMap = new HashMap<>();
+
+    MoveTracker(Args args, HBaseAdmin admin) {
+        this.args = args;
+        this.admin = admin;
+    }
+
+    static boolean isMoved(Args args, HBaseAdmin admin, String tableName, String encodedRegionName,
+        String targetServerName) throws IOException {
+        MoveTracker tracker = new MoveTracker(args, admin);
+        tracker.add(tableName, encodedRegionName, targetServerName);
+        return tracker.confirm().contains(encodedRegionName);
+    }
+
+    void add(String tableName, String encodedRegionName, String targetServerName) {
+        pendingMap.put(encodedRegionName, new Target(tableName, targetServerName));
+    }
+
+    void remove(String encodedRegionName) {
+        pendingMap.remove(encodedRegionName);
+    }
+
+    boolean isEmpty() {
+        return pendingMap.isEmpty();
+    }
+
+    /**
+     * @return encoded names of the regions moved since the last call. They are not tracked any more.
+     * @throws IOException if the meta table can not be scanned. Pending moves are kept as they are.
+     */
+    Set<String> confirm() throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+        Set<String> confirmed = new HashSet<>();
+        if (pendingMap.isEmpty()) return confirmed;
+
+        Set<String> tableNames = new HashSet<>();
+        for (Target target : pendingMap.values()) {
+            tableNames.add(target.tableName);
+        }
+
+        // key: encodedRegionName, value: serverName
+        Map<String, String> locationMap = new HashMap<>();
+        NavigableMap<HRegionInfo, ServerName> regionServerMap = CommandAdapter.regionServerMap(args,
+            admin.getConfiguration(), admin.getConnection(), tableNames, false);
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+            ServerName serverName = entry.getValue();
+            locationMap.put(entry.getKey().getEncodedName(),
+                serverName == null ? null : serverName.getServerName());
+        }
+
+        for (Map.Entry<String, Target> entry : pendingMap.entrySet()) {
+            String encodedRegionName = entry.getKey();
+            if (!locationMap.containsKey(encodedRegionName)
+                || entry.getValue().serverName.equals(locationMap.get(encodedRegionName))) {
+                confirmed.add(encodedRegionName);
+            }
+        }
+        pendingMap.keySet().removeAll(confirmed);
+
+        Util.printVerboseMessage(args, "MoveTracker.confirm - " + confirmed.size() + " confirmed - "
+            + pendingMap.size() + " pending", startTimestamp);
+        return confirmed;
+    }
+
+    private static class Target {
+        private final String tableName;
+        private final String serverName;
+
+        private Target(String tableName, String serverName) {
+            this.tableName = tableName;
+            this.serverName = serverName;
+        }
+    }
+}
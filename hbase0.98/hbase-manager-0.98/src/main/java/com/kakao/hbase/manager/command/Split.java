@@ -22,9 +22,9 @@ import com.kakao.hbase.common.util.Util;
 import com.kakao.hbase.common.util.DecimalStringSplit;
 import org.apache.commons.codec.DecoderException;
 import org.apache.hadoop.hbase.HTableDescriptor;
-import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
-import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.client.HConnectionManager;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.RegionSplitter;
 
@@ -63,6 +63,13 @@ public class Split implements Command {
                 + "    hexString_down <#regions>: Split with the uniformly distributed down case hexadecimal string values.\n"
                 + "    decimalString <#regions> <#cardinality>: Split with the uniformly distributed decimal string values.\n"
                 + "    uniform <#regions>: Split with the keys are approximately uniform random bytes.\n"
+                + "    sample <#regions> [<#samples>]: Split with the row keys sampled from the table. Default "
+                + KeySampler.DEFAULT_SAMPLE_SIZE + " samples.\n"
+                + "  options:\n"
+                + "    --" + Args.OPTION_SPLIT_TIMEOUT + "=<secs>: A split region can not be split again until"
+                + " the reference files of it are compacted.\n"
+                + "      Max seconds to wait for them before the region is failed to be split. Default "
+                + SplitExecutor.DEFAULT_SPLIT_TIMEOUT_SECS + " secs.\n"
                 + Args.commonUsage();
     }
 
@@ -80,56 +87,26 @@ public class Split implements Command {
         String action = ((String) args.getOptionSet().nonOptionArguments().get(2)).toLowerCase();
         SplitAction splitAction = SplitAction.valueOf(action);
         Set<String> tableSet = tableSet(admin, args);
-        Map<String, List<byte[]>> splitMap = splitAction.split(tableSet, args);
+        Map<String, List<byte[]>> splitMap = splitAction.split(admin, tableSet, args);
 
         if (!args.isForceProceed() && !Util.askProceed()) return;
 
-        for (Map.Entry<String, List<byte[]>> entry : splitMap.entrySet()) {
-            String tableName = entry.getKey();
-            try (HTable table = new HTable(admin.getConfiguration(), tableName)) {
-                for (byte[] splitPoint : entry.getValue()) {
-                    System.out.print("splitting - " + tableName + " - " + Bytes.toStringBinary(splitPoint));
-                    try {
-                        for (int i = 0; i < Constant.TRY_MAX; i++) {
-                            try {
-                                split(table, splitPoint);
-                                break;
-                            } catch (NotServingRegionException e) {
-                                Thread.sleep(Constant.WAIT_INTERVAL_MS);
-                            }
-                            if (i == Constant.TRY_MAX - 1)
-                                throw new RuntimeException("Splitting is not finished in " + (Constant.TRY_MAX * Constant.WAIT_INTERVAL_MS / 1000) + " seconds.");
-                        }
-                    } catch (IOException e) {
-                        if (!e.getMessage().contains("should not give a splitkey which equals to startkey")) throw e;
-                        System.out.println(" - SKIPPING");
-                        continue;
-                    }
-                    System.out.println(" - OK");
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-    }
-
-    private void split(HTable table, byte[] splitPoint) throws IOException, InterruptedException, DecoderException {
-        int regionCountPrev = table.getRegionLocations().size();
-        admin.split(table.getTableName(), splitPoint);
-        for (int j = 0; j < Constant.TRY_MAX; j++) {
-            int regionCountNow = table.getRegionLocations().size();
-            if (regionCountPrev < regionCountNow) {
-                break;
-            } else {
-                Thread.sleep(Constant.WAIT_INTERVAL_MS);
+        int failed = 0;
+        try (HConnection connection = HConnectionManager.createConnection(admin.getConfiguration())) {
+            for (Map.Entry<String, List<byte[]>> entry : splitMap.entrySet()) {
+                SplitExecutor splitExecutor = new SplitExecutor(admin, args, connection, entry.getKey());
+                failed += splitExecutor.split(entry.getValue());
             }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
         }
+        if (failed > 0) throw new IllegalStateException(failed + " split points are failed to be split.");
     }
 
     enum SplitAction {
         file {
             @Override
-            public Map<String, List<byte[]>> split(Set<String> tableSet, Args args) throws IOException, DecoderException {
+            public Map<String, List<byte[]>> split(HBaseAdmin admin, Set<String> tableSet, Args args) throws IOException, DecoderException {
                 Map<String, List<byte[]>> splitMap = new HashMap<>();
 
                 String startkeysFileName = (String) args.getOptionSet().nonOptionArguments().get(3);
@@ -159,7 +136,7 @@ public class Split implements Command {
         },
         rule {
             @Override
-            public Map<String, List<byte[]>> split(Set<String> tableSet, Args args) throws IOException, DecoderException {
+            public Map<String, List<byte[]>> split(HBaseAdmin admin, Set<String> tableSet, Args args) throws IOException, DecoderException {
                 Map<String, List<byte[]>> splitMap = new HashMap<>();
 
                 for (String tableName : tableSet) {
@@ -170,7 +147,7 @@ public class Split implements Command {
                     int numCardinality = 0;
                     if (args.getOptionSet().nonOptionArguments().size() >= 6)
                         numCardinality = Integer.valueOf((String) args.getOptionSet().nonOptionArguments().get(5));
-                    List<byte[]> splitList = splitRule.split(Integer.valueOf(numRegionsArg), numCardinality);
+                    List<byte[]> splitList = splitRule.split(admin, args, tableName, Integer.valueOf(numRegionsArg), numCardinality);
                     splitMap.put(tableName, splitList);
 
                     System.out.println("Table \"" + tableName + "\" on \"" + args.getZookeeperQuorum() + "\" will be split into " + (splitList.size() + 1) + " regions by " + splitRule.name() + " rule.");
@@ -180,7 +157,7 @@ public class Split implements Command {
             }
         };
 
-        public abstract Map<String, List<byte[]>> split(Set<String> tableSet, Args args) throws IOException, DecoderException;
+        public abstract Map<String, List<byte[]>> split(HBaseAdmin admin, Set<String> tableSet, Args args) throws IOException, DecoderException;
     }
 
     enum SplitRule {
@@ -216,8 +193,26 @@ public class Split implements Command {
             public RegionSplitter.SplitAlgorithm createSplitter(int cardinality) {
                 return new RegionSplitter.UniformSplit();
             }
+        },
+        sample {
+            @Override
+            public RegionSplitter.SplitAlgorithm createSplitter(int cardinality) {
+                throw new IllegalStateException("Table is required for sample rule");
+            }
+
+            @Override
+            public List<byte[]> split(HBaseAdmin admin, Args args, String tableName, int numRegions, int numSamples)
+                    throws IOException {
+                if (numSamples <= 0) numSamples = KeySampler.DEFAULT_SAMPLE_SIZE;
+                return KeySampler.sample(admin, args, tableName, numRegions, numSamples);
+            }
         };
 
+        public List<byte[]> split(HBaseAdmin admin, Args args, String tableName, int numRegions, int cardinality)
+                throws IOException {
+            return split(numRegions, cardinality);
+        }
+
         public List<byte[]> split(int numRegions, int cardinality) {
             List<byte[]> splitPointList = new ArrayList<>();
             RegionSplitter.SplitAlgorithm splitter = createSplitter(cardinality);
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import com.kakao.hbase.specific.RegionLoadDelegator;
+import com.kakao.hbase.stat.load.TableInfo;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Finds the hot regions by their request rates and advises where to split them.
+ * <p>
+ * Request counts are sampled SAMPLE_INTERVALS times and the rate of a region is the lowest rate of the intervals,
+ * so a short burst does not make a region hot. Regions are ranked by the rate per MB.
+ */
+public class SplitAdvisor implements Command {
+    public static final int SAMPLE_INTERVALS = 6;
+    private static final int DEFAULT_TOP = 10;
+    private static final int DEFAULT_SPLITS_PER_MINUTE = 10;
+    private final HBaseAdmin admin;
+    private final Args args;
+    private final String outputFileName;
+
+    public SplitAdvisor(HBaseAdmin admin, Args args) {
+        if (args.getOptionSet().nonOptionArguments().size() != 3)
+            throw new IllegalArgumentException(Args.INVALID_ARGUMENTS);
+
+        this.admin = admin;
+        this.args = args;
+        outputFileName = (String) args.getOptionSet().nonOptionArguments().get(2);
+    }
+
+    @SuppressWarnings("unused")
+    public static String usage() {
+        return "Find the regions that are hot for a while and export the split points of them.\n"
+                + "The output file can be used by split command with file action.\n"
+                + "usage: " + SplitAdvisor.class.getSimpleName().toLowerCase()
+                + " <zookeeper quorum> <table regex> <output file> [options]\n"
+                + "  options:\n"
+                + "    --" + Args.OPTION_INTERVAL + "=<secs>: Sampling interval. Requests are sampled "
+                + SAMPLE_INTERVALS + " times. Default 10 secs.\n"
+                + "    --" + Args.OPTION_TOP + "=<#regions>: Number of regions to be split. Default "
+                + DEFAULT_TOP + ".\n"
+                + "    --" + Args.OPTION_SPLIT + ": Split the regions right away.\n"
+                + "    --" + Args.OPTION_SPLITS_PER_MINUTE + "=<#splits>: Max splits per minute with --"
+                + Args.OPTION_SPLIT + ". Default " + DEFAULT_SPLITS_PER_MINUTE + ".\n"
+                + Args.commonUsage();
+    }
+
+    /**
+     * @param requestSnapshots request counts of the regions sampled at every interval
+     * @param sizeMBMap        sizes of the regions
+     * @return the regions with sustained requests in descending order of the rate per MB
+     */
+    @VisibleForTesting
+    static <K> List<K> rank(List<Map<K, Long>> requestSnapshots, final Map<K, Integer> sizeMBMap,
+                            long intervalMs, int top) {
+        final Map<K, Double> rateMap = new HashMap<>();
+        for (K region : requestSnapshots.get(requestSnapshots.size() - 1).keySet()) {
+            double rateMin = Double.MAX_VALUE;
+            for (int i = 1; i < requestSnapshots.size(); i++) {
+                Long prev = requestSnapshots.get(i - 1).get(region);
+                Long curr = requestSnapshots.get(i).get(region);
+                // moved, split or merged during sampling
+                if (prev == null || curr == null || curr < prev) {
+                    rateMin = 0;
+                    break;
+                }
+                rateMin = Math.min(rateMin, (curr - prev) * 1000.0 / intervalMs);
+            }
+
+            if (rateMin > 0) {
+                Integer sizeMB = sizeMBMap.get(region);
+                rateMap.put(region, rateMin / Math.max(1, sizeMB == null ? 0 : sizeMB));
+            }
+        }
+
+        List<K> ranked = new ArrayList<>(rateMap.keySet());
+        Collections.sort(ranked, new Comparator<K>() {
+            @Override
+            public int compare(K o1, K o2) {
+                return Double.compare(rateMap.get(o2), rateMap.get(o1));
+            }
+        });
+        return ranked.size() > top ? ranked.subList(0, top) : ranked;
+    }
+
+    private int getTop() {
+        if (args.has(Args.OPTION_TOP))
+            return (Integer) args.valueOf(Args.OPTION_TOP);
+        else
+            return DEFAULT_TOP;
+    }
+
+    private int getSplitsPerMinute() {
+        if (args.has(Args.OPTION_SPLITS_PER_MINUTE))
+            return Math.max(1, (Integer) args.valueOf(Args.OPTION_SPLITS_PER_MINUTE));
+        else
+            return DEFAULT_SPLITS_PER_MINUTE;
+    }
+
+    @Override
+    public void run() throws Exception {
+        List<TableInfo> tableInfoList = new ArrayList<>();
+        for (String tableName : Util.parseTableSet(admin, args)) {
+            tableInfoList.add(new TableInfo(admin, tableName, args));
+        }
+
+        Map<HRegionInfo, Integer> sizeMBMap = new HashMap<>();
+        Map<HRegionInfo, String> tableNameMap = new HashMap<>();
+        List<Map<HRegionInfo, Long>> requestSnapshots = new ArrayList<>();
+        for (int i = 0; i <= SAMPLE_INTERVALS; i++) {
+            if (i > 0) {
+                Util.printMessage("Sampling requests - " + i + "/" + SAMPLE_INTERVALS);
+                Thread.sleep(args.getIntervalMS());
+            }
+
+            Map<HRegionInfo, Long> requestMap = new HashMap<>();
+            for (TableInfo tableInfo : tableInfoList) {
+                tableInfo.refresh();
+                for (HRegionInfo regionInfo : tableInfo.getRegionInfoSet()) {
+                    RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(regionInfo);
+                    if (regionLoad == null) continue;
+
+                    requestMap.put(regionInfo, regionLoad.getReadRequestsCount() + regionLoad.getWriteRequestsCount());
+                    sizeMBMap.put(regionInfo, regionLoad.getStorefileSizeMB() + regionLoad.getMemStoreSizeMB());
+                    tableNameMap.put(regionInfo, tableInfo.getTableName());
+                }
+            }
+            requestSnapshots.add(requestMap);
+        }
+
+        List<HRegionInfo> hotRegions = rank(requestSnapshots, sizeMBMap, args.getIntervalMS(), getTop());
+        Map<HRegionInfo, byte[]> splitPointMap = new LinkedHashMap<>();
+        try (PrintWriter writer = new PrintWriter(outputFileName, Constant.CHARSET.name())) {
+            for (HRegionInfo regionInfo : hotRegions) {
+                String tableName = tableNameMap.get(regionInfo);
+                byte[] splitPoint = KeySampler.midKey(admin, tableName, regionInfo);
+                if (splitPoint == null) {
+                    System.out.println("Can not split - " + Util.getRegionInfoString(regionInfo));
+                    continue;
+                }
+
+                splitPointMap.put(regionInfo, splitPoint);
+                writer.println(tableName + ExportKeys.DELIMITER + " " + Bytes.toStringBinary(splitPoint)
+                        + ExportKeys.DELIMITER + " " + Bytes.toStringBinary(regionInfo.getEndKey()));
+                System.out.println(Util.getRegionInfoString(regionInfo) + " - " + sizeMBMap.get(regionInfo)
+                        + "MB - split point " + Bytes.toStringBinary(splitPoint));
+            }
+        }
+        System.out.println("\n" + splitPointMap.size() + " split points are exported to " + outputFileName + ".");
+
+        if (args.has(Args.OPTION_SPLIT) && splitPointMap.size() > 0) split(splitPointMap);
+    }
+
+    private void split(Map<HRegionInfo, byte[]> splitPointMap) throws Exception {
+        if (!args.isForceProceed() && !Util.askProceed()) return;
+
+        long intervalMs = 60 * 1000 / getSplitsPerMinute();
+        int i = 0;
+        for (Map.Entry<HRegionInfo, byte[]> entry : splitPointMap.entrySet()) {
+            if (i++ > 0) Thread.sleep(intervalMs);
+
+            System.out.print("splitting - " + CommandAdapter.getTableName(entry.getKey())
+                    + " - " + Bytes.toStringBinary(entry.getValue()));
+            try {
+                admin.split(entry.getKey().getRegionName(), entry.getValue());
+                CommandAdapter.invalidateOnlineRegionsMap();
+                System.out.println(" - OK");
+            } catch (Exception e) {
+                System.out.println(" - FAILED - " + e.getMessage());
+            }
+        }
+    }
+}
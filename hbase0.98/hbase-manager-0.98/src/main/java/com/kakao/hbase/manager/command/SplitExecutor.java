@@ -0,0 +1,313 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.specific.CommandAdapter;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.client.HBaseAdmin;
+import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Splits the regions of a table concurrently.
+ * <p>
+ * Split points are grouped by the region they fall in and each region is split at the median of its points.
+ * Daughters are found by scanning the meta table for the key range of the parent only and are split again
+ * as soon as both of them are online. Regions with n points are split in log2(n) rounds and the regions
+ * of different parents are split at the same time.
+ * <p>
+ * A daughter holds reference files to its parent until they are compacted and the region server refuses to
+ * split it until then. Such regions are postponed for up to the split timeout without spending their attempts.
+ * If reference files can not be listed, for example on a secure cluster, splits are requested without postponing.
+ * <p>
+ * A split that is not finished in time is retried. If it turns out to be finished in the meantime, its split point
+ * is reported as split.
+ */
+class SplitExecutor {
+    public static int MAX_CONCURRENT_SPLITS = 20;
+    static final int DEFAULT_SPLIT_TIMEOUT_SECS = 600;
+    private static final String MESSAGE_SPLIT_KEY_EQUALS_START_KEY = "should not give a splitkey which equals to startkey";
+    private final HBaseAdmin admin;
+    private final Args args;
+    private final HConnection connection;
+    private final String tableName;
+    private final long splitTimeoutMs;
+    private final long pollIntervalMs;
+    private final long retryIntervalMs;
+    private final long requestTimeoutMs;
+    private final Deque<Task> readyQueue = new ArrayDeque<>();
+    private final List<Task> inFlightList = new ArrayList<>();
+    private int succeeded = 0;
+    private int skipped = 0;
+    private int failed = 0;
+    private boolean referencesCheckable = true;
+
+    SplitExecutor(HBaseAdmin admin, Args args, HConnection connection, String tableName) {
+        this(admin, args, connection, tableName, splitTimeoutMs(args),
+            Constant.WAIT_INTERVAL_MS, Constant.SMALL_WAIT_INTERVAL_MS);
+    }
+
+    @VisibleForTesting
+    SplitExecutor(HBaseAdmin admin, Args args, HConnection connection, String tableName,
+        long splitTimeoutMs, long pollIntervalMs, long retryIntervalMs) {
+        this.admin = admin;
+        this.args = args;
+        this.connection = connection;
+        this.tableName = tableName;
+        this.splitTimeoutMs = splitTimeoutMs;
+        this.pollIntervalMs = pollIntervalMs;
+        this.retryIntervalMs = retryIntervalMs;
+        this.requestTimeoutMs = Constant.TRY_MAX * pollIntervalMs;
+    }
+
+    private static long splitTimeoutMs(Args args) {
+        int splitTimeoutSecs = args.has(Args.OPTION_SPLIT_TIMEOUT) ?
+            (Integer) args.valueOf(Args.OPTION_SPLIT_TIMEOUT) : DEFAULT_SPLIT_TIMEOUT_SECS;
+        if (splitTimeoutSecs <= 0)
+            throw new IllegalArgumentException("Invalid " + Args.OPTION_SPLIT_TIMEOUT + " - " + splitTimeoutSecs);
+        return splitTimeoutSecs * 1000L;
+    }
+
+    /**
+     * @return the number of split points that are failed to be split
+     */
+    int split(List<byte[]> splitPoints) throws IOException, InterruptedException {
+        NavigableSet<byte[]> points = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+        points.addAll(splitPoints);
+        resolve(HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW, points, 0, null);
+
+        while (!readyQueue.isEmpty() || !inFlightList.isEmpty()) {
+            long now = System.currentTimeMillis();
+            for (int i = readyQueue.size(); i > 0 && inFlightList.size() < MAX_CONCURRENT_SPLITS; i--) {
+                Task task = readyQueue.poll();
+                if (task.notBefore > now) {
+                    readyQueue.add(task);
+                } else if (!postponeIfReferenced(task, now)) {
+                    request(task);
+                }
+            }
+
+            Thread.sleep(pollIntervalMs);
+            check();
+        }
+
+        System.out.println("Table \"" + tableName + "\" - " + succeeded + " split points are split, "
+                + skipped + " are skipped and " + failed + " are failed.");
+        return failed;
+    }
+
+    @VisibleForTesting
+    int getSucceeded() {
+        return succeeded;
+    }
+
+    @VisibleForTesting
+    int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Groups the split points by the regions of the key range.
+     *
+     * @param requestedPoint the split point that is requested before. It is split if a region starts with it.
+     */
+    private void resolve(byte[] startKey, byte[] endKey, NavigableSet<byte[]> points, int attempt,
+            byte[] requestedPoint) throws IOException {
+        for (HRegionInfo regionInfo : regions(startKey, endKey, false)) {
+            NavigableSet<byte[]> regionPoints;
+            if (regionInfo.getEndKey().length == 0) {
+                regionPoints = points.tailSet(regionInfo.getStartKey(), true);
+            } else {
+                regionPoints = points.subSet(regionInfo.getStartKey(), true, regionInfo.getEndKey(), false);
+            }
+            regionPoints = new TreeSet<>(regionPoints);
+            if (regionPoints.isEmpty()) continue;
+
+            if (Bytes.equals(regionPoints.first(), regionInfo.getStartKey())) {
+                byte[] point = regionPoints.pollFirst();
+                if (requestedPoint != null && Bytes.equals(point, requestedPoint)) {
+                    printResult(point, "OK");
+                    succeeded++;
+                } else {
+                    printResult(point, "SKIPPING");
+                    skipped++;
+                }
+                if (regionPoints.isEmpty()) continue;
+            }
+            readyQueue.add(new Task(regionInfo, regionPoints, attempt));
+        }
+    }
+
+    /**
+     * @return true if the region still has reference files and is put back to the ready queue or failed
+     */
+    private boolean postponeIfReferenced(Task task, long now) {
+        if (!referencesCheckable) return false;
+        try {
+            if (!hasReferences(task.regionInfo)) return false;
+        } catch (IOException e) {
+            // ex) AccessControlException on a secure cluster
+            referencesCheckable = false;
+            System.out.println("splitting - " + tableName + " - Reference files can not be checked. "
+                + "Splits are requested without waiting for them to be compacted. - " + e.getMessage());
+            return false;
+        }
+
+        if (task.referencedSince == 0) {
+            task.referencedSince = now;
+            Util.printVerboseMessage(args, "splitting - " + tableName + " - " + task.regionInfo.getEncodedName()
+                + " - waiting for the reference files to be compacted");
+        } else if (now - task.referencedSince > splitTimeoutMs) {
+            System.out.println("splitting - " + tableName + " - " + task.regionInfo.getEncodedName()
+                + " - " + task.points.size() + " split points - FAILED - Reference files are not compacted in "
+                + splitTimeoutMs / 1000 + " seconds.");
+            failed += task.points.size();
+            return true;
+        }
+
+        task.notBefore = now + retryIntervalMs;
+        readyQueue.add(task);
+        return true;
+    }
+
+    /**
+     * @return the regions of the key range that are not split. Only the assigned regions if online is true.
+     */
+    protected List<HRegionInfo> regions(byte[] startKey, byte[] endKey, boolean online) throws IOException {
+        List<HRegionInfo> regions = new ArrayList<>();
+        NavigableMap<HRegionInfo, ServerName> regionServerMap = CommandAdapter.regionServerMap(args,
+                admin.getConfiguration(), connection, tableName, startKey, endKey, false);
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
+            if (entry.getKey().isSplit() || (online && entry.getValue() == null)) continue;
+            regions.add(entry.getKey());
+        }
+        return regions;
+    }
+
+    protected boolean hasReferences(HRegionInfo regionInfo) throws IOException {
+        return CommandAdapter.hasReferences(admin.getConfiguration(), regionInfo);
+    }
+
+    protected void requestSplit(HRegionInfo regionInfo, byte[] splitPoint) throws IOException, InterruptedException {
+        admin.split(regionInfo.getRegionName(), splitPoint);
+        CommandAdapter.invalidateOnlineRegionsMap();
+    }
+
+    private void request(Task task) throws IOException, InterruptedException {
+        List<byte[]> pointList = new ArrayList<>(task.points);
+        task.splitPoint = pointList.get(pointList.size() / 2);
+        task.timestamp = System.currentTimeMillis();
+        try {
+            requestSplit(task.regionInfo, task.splitPoint);
+            inFlightList.add(task);
+        } catch (IOException e) {
+            if (e.getMessage() != null && e.getMessage().contains(MESSAGE_SPLIT_KEY_EQUALS_START_KEY)) {
+                task.points.remove(task.splitPoint);
+                printResult(task.splitPoint, "SKIPPING");
+                skipped++;
+                if (!task.points.isEmpty()) readyQueue.add(task);
+            } else {
+                retry(task, e.getMessage());
+            }
+        }
+    }
+
+    private void check() throws IOException {
+        Iterator<Task> iterator = inFlightList.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            HRegionInfo parent = task.regionInfo;
+
+            HRegionInfo daughterA = null, daughterB = null;
+            for (HRegionInfo regionInfo : regions(parent.getStartKey(), parent.getEndKey(), true)) {
+                if (Bytes.equals(regionInfo.getStartKey(), parent.getStartKey())
+                        && Bytes.equals(regionInfo.getEndKey(), task.splitPoint))
+                    daughterA = regionInfo;
+                if (Bytes.equals(regionInfo.getStartKey(), task.splitPoint)
+                        && Bytes.equals(regionInfo.getEndKey(), parent.getEndKey()))
+                    daughterB = regionInfo;
+            }
+
+            if (daughterA != null && daughterB != null) {
+                iterator.remove();
+                printResult(task.splitPoint, "OK");
+                succeeded++;
+
+                NavigableSet<byte[]> pointsA = new TreeSet<>(task.points.headSet(task.splitPoint, false));
+                NavigableSet<byte[]> pointsB = new TreeSet<>(task.points.tailSet(task.splitPoint, false));
+                if (!pointsA.isEmpty()) readyQueue.add(new Task(daughterA, pointsA, 0));
+                if (!pointsB.isEmpty()) readyQueue.add(new Task(daughterB, pointsB, 0));
+            } else if (System.currentTimeMillis() - task.timestamp > requestTimeoutMs) {
+                iterator.remove();
+                retry(task, "Splitting is not finished in " + requestTimeoutMs / 1000 + " seconds.");
+            }
+        }
+    }
+
+    /**
+     * The regions of the key range are looked up again because the parent region may be changed or
+     * the requested split may be finished after all.
+     */
+    private void retry(Task task, String reason) throws IOException {
+        int readyCount = readyQueue.size();
+        resolve(task.regionInfo.getStartKey(), task.regionInfo.getEndKey(), task.points, task.attempt + 1,
+            task.splitPoint);
+        boolean exhausted = task.attempt + 1 >= Constant.TRY_MAX_SMALL;
+        long notBefore = System.currentTimeMillis() + retryIntervalMs;
+        Iterator<Task> iterator = readyQueue.descendingIterator();
+        for (int i = readyQueue.size(); i > readyCount; i--) {
+            Task retried = iterator.next();
+            if (exhausted) {
+                iterator.remove();
+                System.out.println("splitting - " + tableName + " - " + retried.regionInfo.getEncodedName()
+                        + " - " + retried.points.size() + " split points - FAILED - " + reason);
+                failed += retried.points.size();
+            } else {
+                retried.notBefore = notBefore;
+            }
+        }
+    }
+
+    private void printResult(byte[] splitPoint, String result) {
+        System.out.println("splitting - " + tableName + " - " + Bytes.toStringBinary(splitPoint) + " - " + result);
+    }
+
+    private static class Task {
+        private final HRegionInfo regionInfo;
+        private final NavigableSet<byte[]> points;
+        private final int attempt;
+        private byte[] splitPoint;
+        private long timestamp;
+        private long notBefore = 0;
+        private long referencedSince = 0;
+
+        private Task(HRegionInfo regionInfo, NavigableSet<byte[]> points, int attempt) {
+            this.regionInfo = regionInfo;
+            this.points = points;
+            this.attempt = attempt;
+        }
+    }
+}
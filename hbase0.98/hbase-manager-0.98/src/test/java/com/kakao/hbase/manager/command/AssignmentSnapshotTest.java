@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.apache.commons.lang3.tuple.ImmutableTriple;
+import org.apache.commons.lang3.tuple.Triple;
+import org.apache.hadoop.hbase.UnknownRegionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+public class AssignmentSnapshotTest {
+    private static final String SERVER = "rs1.example.com,60020,1425000000000";
+    private static final String ENCODED_NAME = "0123456789abcdef0123456789abcdef";
+
+    private AssignmentSnapshot.Reader writeAndRead(List<AssignmentSnapshot.Entry> entries) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AssignmentSnapshot.write(outputStream, entries);
+        return new AssignmentSnapshot.Reader(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<AssignmentSnapshot.Entry> entries = new ArrayList<>();
+        entries.add(new AssignmentSnapshot.Entry(SERVER, ENCODED_NAME, "table1"));
+        entries.add(new AssignmentSnapshot.Entry(SERVER, "70236052", "ns:table2"));
+        entries.add(new AssignmentSnapshot.Entry("rs2.example.com,60020,1425000000001", "00ff", "table1"));
+
+        try (AssignmentSnapshot.Reader reader = writeAndRead(entries)) {
+            Assert.assertEquals(3, reader.size());
+            for (AssignmentSnapshot.Entry expected : entries) {
+                AssignmentSnapshot.Entry entry = reader.next();
+                Assert.assertEquals(expected.getServerName(), entry.getServerName());
+                Assert.assertEquals(expected.getEncodedRegionName(), entry.getEncodedRegionName());
+                Assert.assertEquals(expected.getTableName(), entry.getTableName());
+            }
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        List<AssignmentSnapshot.Entry> entries = new ArrayList<>();
+        int textSize = 0;
+        for (int i = 0; i < 1000; i++) {
+            String encodedName = String.format("%032x", i);
+            entries.add(new AssignmentSnapshot.Entry(SERVER, encodedName, "table1"));
+            textSize += (SERVER + AssignAction.DELIMITER + encodedName + AssignAction.DELIMITER + "table1\n").length();
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AssignmentSnapshot.write(outputStream, entries);
+
+        // server and table names are interned and encoded names are written in 16 bytes
+        Assert.assertTrue(outputStream.size() < textSize / 3);
+    }
+
+    @Test
+    public void testIsSnapshot() throws IOException {
+        File binary = File.createTempFile("assignment", ".bin");
+        File text = File.createTempFile("assignment", ".txt");
+        try {
+            List<AssignmentSnapshot.Entry> entries = new ArrayList<>();
+            entries.add(new AssignmentSnapshot.Entry(SERVER, ENCODED_NAME, "table1"));
+            try (OutputStream outputStream = new FileOutputStream(binary)) {
+                AssignmentSnapshot.write(outputStream, entries);
+            }
+            try (PrintWriter writer = new PrintWriter(text)) {
+                writer.println(SERVER + AssignAction.DELIMITER + ENCODED_NAME + AssignAction.DELIMITER + "table1");
+            }
+
+            Assert.assertTrue(AssignmentSnapshot.isSnapshot(binary.getPath()));
+            Assert.assertFalse(AssignmentSnapshot.isSnapshot(text.getPath()));
+        } finally {
+            Assert.assertTrue(binary.delete());
+            Assert.assertTrue(text.delete());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidVersion() throws IOException {
+        List<AssignmentSnapshot.Entry> entries = new ArrayList<>();
+        entries.add(new AssignmentSnapshot.Entry(SERVER, ENCODED_NAME, "table1"));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        AssignmentSnapshot.write(outputStream, entries);
+        byte[] bytes = outputStream.toByteArray();
+        bytes[4] = (byte) (AssignmentSnapshot.VERSION + 1);
+
+        new AssignmentSnapshot.Reader(new ByteArrayInputStream(bytes)).close();
+    }
+
+    @Test
+    public void testMoveConcurrently() throws Exception {
+        Map<String, List<Triple<String, String, String>>> targetMap = new TreeMap<>();
+        targetMap.put("rs1", Arrays.<Triple<String, String, String>>asList(
+            new ImmutableTriple<>("table1", "rs1", "moved1"), new ImmutableTriple<>("table1", "rs1", "split")));
+        targetMap.put("rs2", Arrays.<Triple<String, String, String>>asList(
+            new ImmutableTriple<>("table1", "rs2", "failed"), new ImmutableTriple<>("table1", "rs2", "moved2")));
+
+        final Set<String> requested = Collections.synchronizedSet(new HashSet<String>());
+        Set<String> skipped = AssignAction.moveConcurrently(targetMap, new AssignAction.RegionMover() {
+            @Override
+            public void move(String encodedRegionName, String serverName) throws IOException {
+                requested.add(encodedRegionName);
+                if (encodedRegionName.equals("split")) throw new UnknownRegionException(encodedRegionName);
+                if (encodedRegionName.equals("failed")) throw new IOException(encodedRegionName);
+            }
+        });
+
+        // a failure does not stop the other moves
+        Assert.assertEquals(new HashSet<>(Arrays.asList("moved1", "split", "failed", "moved2")), requested);
+        Assert.assertEquals(Collections.singleton("split"), skipped);
+
+        // the skipped region is done. the failed region is retried.
+        Set<String> done = new HashSet<>(skipped);
+        done.add("moved1");
+        done.add("moved2");
+        Map<String, List<Triple<String, String, String>>> remaining = AssignAction.remaining(targetMap, done);
+        Assert.assertEquals(Collections.singleton("rs2"), remaining.keySet());
+        Assert.assertEquals(1, remaining.get("rs2").size());
+        Assert.assertEquals("failed", remaining.get("rs2").get(0).getRight());
+
+        done.add("failed");
+        Assert.assertTrue(AssignAction.remaining(remaining, done).isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class BalanceRuleWindowTest {
+    private static final List<String> SERVERS = Arrays.asList("s0", "s1", "s2");
+
+    private static List<String> regions(int count) {
+        List<String> regions = new ArrayList<>();
+        for (int i = 0; i < count; i++) regions.add("r" + i);
+        return regions;
+    }
+
+    private static Map<String, String> apply(Map<String, String> locations, Map<String, String> moves) {
+        Map<String, String> result = new HashMap<>(locations);
+        result.putAll(moves);
+        return result;
+    }
+
+    private static void assertWindows(List<String> regions, Map<String, String> assignment) {
+        for (int i = 0; i < regions.size(); i += SERVERS.size()) {
+            Set<String> servers = new HashSet<>();
+            for (String region : regions.subList(i, Math.min(i + SERVERS.size(), regions.size()))) {
+                Assert.assertTrue(servers.add(assignment.get(region)));
+            }
+        }
+    }
+
+    @Test
+    public void testAllOnOneServer() {
+        List<String> regions = regions(7);
+        Map<String, String> locations = new HashMap<>();
+        for (String region : regions) locations.put(region, "s0");
+
+        Map<String, String> moves = BalanceRule.assignInWindows(regions, locations, SERVERS, null);
+        Assert.assertEquals(Arrays.asList("r1", "r2", "r4", "r5"), new ArrayList<>(moves.keySet()));
+        assertWindows(regions, apply(locations, moves));
+
+        moves = BalanceRule.assignInWindows(regions, locations, SERVERS, new Random());
+        Assert.assertEquals(4, moves.size());
+        assertWindows(regions, apply(locations, moves));
+    }
+
+    @Test
+    public void testBalanced() {
+        List<String> regions = regions(6);
+        Map<String, String> locations = new HashMap<>();
+        String[] servers = new String[]{"s2", "s0", "s1", "s1", "s2", "s0"};
+        for (int i = 0; i < servers.length; i++) locations.put(regions.get(i), servers[i]);
+
+        Assert.assertEquals(0, BalanceRule.assignInWindows(regions, locations, SERVERS, null).size());
+        Assert.assertEquals(0, BalanceRule.assignInWindows(regions, locations, SERVERS, new Random()).size());
+    }
+
+    @Test
+    public void testBalancedByCount() {
+        // every server has 2 regions, but not in windows
+        List<String> regions = regions(6);
+        Map<String, String> locations = new HashMap<>();
+        String[] servers = new String[]{"s0", "s0", "s1", "s1", "s2", "s2"};
+        for (int i = 0; i < servers.length; i++) locations.put(regions.get(i), servers[i]);
+
+        Map<String, String> moves = BalanceRule.assignInWindows(regions, locations, SERVERS, null);
+        Map<String, String> expected = new HashMap<>();
+        expected.put("r1", "s2");
+        expected.put("r5", "s0");
+        Assert.assertEquals(expected, moves);
+        assertWindows(regions, apply(locations, moves));
+    }
+
+    @Test
+    public void testSplitRegion() {
+        // r0 is split into r0a and r0b on s0
+        List<String> regions = Arrays.asList("r0a", "r0b", "r1", "r2", "r3", "r4", "r5");
+        Map<String, String> locations = new HashMap<>();
+        String[] servers = new String[]{"s0", "s0", "s1", "s2", "s0", "s1", "s2"};
+        for (int i = 0; i < servers.length; i++) locations.put(regions.get(i), servers[i]);
+
+        Map<String, String> moves = BalanceRule.assignInWindows(regions, locations, SERVERS, null);
+        Assert.assertEquals(Collections.singletonMap("r0b", "s2"), moves);
+        assertWindows(regions, apply(locations, moves));
+    }
+
+    @Test
+    public void testUnknownLocation() {
+        List<String> regions = regions(2);
+        Map<String, String> locations = new HashMap<>();
+        locations.put("r0", "dead");
+
+        Map<String, String> moves = BalanceRule.assignInWindows(regions, locations, SERVERS, null);
+        Assert.assertEquals("s0", moves.get("r0"));
+        Assert.assertEquals("s1", moves.get("r1"));
+    }
+
+    @Test
+    public void testBalanceServerCounts() {
+        // every table planned alone has its surplus region on s0
+        Map<String, String> initial = new HashMap<>();
+        Map<String, String> assignment = new HashMap<>();
+        Map<String, String> tables = new HashMap<>();
+        for (int t = 0; t < 3; t++) {
+            String[] servers = new String[]{"s0", "s0", "s1", "s2"};
+            for (int i = 0; i < servers.length; i++) {
+                String region = "t" + t + "r" + i;
+                initial.put(region, "s0");
+                assignment.put(region, servers[i]);
+                tables.put(region, "t" + t);
+            }
+        }
+
+        BalanceRule.balanceServerCounts(initial, assignment, tables, SERVERS);
+
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, Integer> tableCounts = new HashMap<>();
+        for (Map.Entry<String, String> entry : assignment.entrySet()) {
+            Integer count = counts.get(entry.getValue());
+            counts.put(entry.getValue(), count == null ? 1 : count + 1);
+            String key = tables.get(entry.getKey()) + entry.getValue();
+            count = tableCounts.get(key);
+            tableCounts.put(key, count == null ? 1 : count + 1);
+        }
+        Assert.assertEquals(Integer.valueOf(4), counts.get("s0"));
+        Assert.assertEquals(Integer.valueOf(4), counts.get("s1"));
+        Assert.assertEquals(Integer.valueOf(4), counts.get("s2"));
+        for (int count : tableCounts.values()) Assert.assertTrue(count == 1 || count == 2);
+    }
+}
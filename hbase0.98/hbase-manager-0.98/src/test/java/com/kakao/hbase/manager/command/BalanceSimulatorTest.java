@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.common.LoadEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class BalanceSimulatorTest {
+    private static final long TIME_BUDGET_MS = 300;
+
+    private static int[] count(int[] assignment, int numServers, int[] tables, int table) {
+        int[] counts = new int[numServers];
+        for (int i = 0; i < assignment.length; i++) {
+            if (table < 0 || tables[i] == table) counts[assignment[i]]++;
+        }
+        return counts;
+    }
+
+    @Test
+    public void testRegionCountAndTableSkew() throws Exception {
+        int numServers = 4;
+        int[] initial = new int[80];
+        int[] tables = new int[80];
+        for (int i = 0; i < initial.length; i++) {
+            // all regions on the first server
+            initial[i] = 0;
+            tables[i] = i % 2;
+        }
+        ClusterSnapshot snapshot = new ClusterSnapshot(numServers, initial, tables, new HashMap<LoadEntry, long[]>());
+
+        BalanceSimulator simulator = new BalanceSimulator(snapshot,
+            BalanceCost.weights(BalanceFactor.EMPTY), BalanceCost.moveWeight(BalanceFactor.EMPTY));
+        int[] assignment = simulator.run(TIME_BUDGET_MS);
+
+        Assert.assertArrayEquals(new int[]{20, 20, 20, 20}, count(assignment, numServers, tables, -1));
+        Assert.assertArrayEquals(new int[]{10, 10, 10, 10}, count(assignment, numServers, tables, 0));
+        Assert.assertArrayEquals(new int[]{10, 10, 10, 10}, count(assignment, numServers, tables, 1));
+        Assert.assertTrue(simulator.cost(assignment) < simulator.cost(initial));
+
+        // minimal moves from the balanced assignment
+        snapshot = new ClusterSnapshot(numServers, assignment, tables, new HashMap<LoadEntry, long[]>());
+        simulator = new BalanceSimulator(snapshot,
+            BalanceCost.weights(BalanceFactor.EMPTY), BalanceCost.moveWeight(BalanceFactor.EMPTY));
+        Assert.assertArrayEquals(assignment, simulator.run(TIME_BUDGET_MS));
+    }
+
+    @Test
+    public void testUnassigned() throws Exception {
+        int[] initial = new int[]{-1, -1, -1, -1};
+        ClusterSnapshot snapshot = new ClusterSnapshot(2, initial, new int[4], new HashMap<LoadEntry, long[]>());
+        int[] assignment = new BalanceSimulator(snapshot,
+            BalanceCost.weights(BalanceFactor.EMPTY), BalanceCost.moveWeight(BalanceFactor.EMPTY))
+            .run(TIME_BUDGET_MS);
+
+        Assert.assertArrayEquals(new int[]{2, 2}, count(assignment, 2, new int[4], -1));
+    }
+
+    @Test
+    public void testRequestSkew() throws Exception {
+        // 2 hot regions and 6 cold regions
+        long[] reads = new long[]{1000, 1000, 1, 1, 1, 1, 1, 1};
+        int[] initial = new int[]{0, 0, 0, 0, 1, 1, 1, 1};
+        Map<LoadEntry, long[]> loads = new HashMap<>();
+        loads.put(LoadEntry.Reads, reads);
+        ClusterSnapshot snapshot = new ClusterSnapshot(2, initial, new int[8], loads);
+
+        int[] assignment = new BalanceSimulator(snapshot, BalanceCost.weights(BalanceFactor.MINIMIZE_READ_REQUEST_SKEW),
+            BalanceCost.moveWeight(BalanceFactor.MINIMIZE_READ_REQUEST_SKEW)).run(TIME_BUDGET_MS);
+
+        Assert.assertNotEquals(assignment[0], assignment[1]);
+    }
+
+    @Test
+    public void testLoadWeights() throws Exception {
+        // 4 hot regions on 2 servers. Region counts are balanced.
+        long[] reads = new long[]{500, 500, 500, 500, 0, 0, 0, 0};
+        long[] writes = new long[]{0, 0, 0, 0, 10, 0, 0, 0};
+        int[] initial = new int[]{0, 0, 1, 1, 2, 2, 3, 3};
+        Map<LoadEntry, long[]> loads = new HashMap<>();
+        loads.put(LoadEntry.Reads, reads);
+        loads.put(LoadEntry.Writes, writes);
+        ClusterSnapshot snapshot = new ClusterSnapshot(4, initial, new int[8], loads);
+
+        int[] assignment = new BalanceSimulator(snapshot, BalanceCost.loadWeights(), BalanceCost.DEFAULT_MOVE_WEIGHT)
+            .run(TIME_BUDGET_MS);
+
+        Set<Integer> hotServers = new HashSet<>();
+        for (int i = 0; i < 4; i++) hotServers.add(assignment[i]);
+        Assert.assertEquals(4, hotServers.size());
+        Assert.assertArrayEquals(new int[]{2, 2, 2, 2}, count(assignment, 4, new int[8], -1));
+    }
+
+    @Test
+    public void testCustomCostFunction() throws Exception {
+        // spreads odd regions only
+        BalanceSimulator.CostFunction parity = new BalanceSimulator.CostFunction() {
+            @Override
+            public int groups(ClusterSnapshot snapshot) {
+                return 1;
+            }
+
+            @Override
+            public int group(ClusterSnapshot snapshot, int region) {
+                return 0;
+            }
+
+            @Override
+            public double value(ClusterSnapshot snapshot, int region) {
+                return region % 2 == 0 ? 0 : 1;
+            }
+        };
+        Map<BalanceSimulator.CostFunction, Double> weights = new HashMap<>();
+        weights.put(parity, 1.0);
+
+        int[] initial = new int[]{1, 1, 1, 1, 1, 1};
+        ClusterSnapshot snapshot = new ClusterSnapshot(3, initial, new int[6], new HashMap<LoadEntry, long[]>());
+        BalanceSimulator simulator = new BalanceSimulator(snapshot, weights, 0.1);
+        int[] assignment = simulator.run(TIME_BUDGET_MS);
+
+        // odd regions are spread and even regions stay
+        Assert.assertArrayEquals(new int[]{1, 1, 1}, count(new int[]{assignment[1], assignment[3], assignment[5]}, 3,
+            new int[3], -1));
+        Assert.assertEquals(1, assignment[0]);
+        Assert.assertEquals(1, assignment[2]);
+        Assert.assertEquals(1, assignment[4]);
+        Assert.assertTrue(simulator.cost(initial) > simulator.cost(assignment));
+    }
+}
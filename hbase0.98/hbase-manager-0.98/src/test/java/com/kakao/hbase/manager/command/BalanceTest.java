@@ -210,4 +210,35 @@ public class BalanceTest extends TestBase {
             Assert.assertNotEquals(hRegionInfoList.get(2).getValue(), hRegionInfoList.get(3).getValue());
         }
     }
+
+    @Test
+    public void testBalanceParallel() throws Exception {
+        splitTable("a".getBytes());
+        splitTable("b".getBytes());
+        splitTable("c".getBytes());
+
+        NavigableMap<HRegionInfo, ServerName> regionLocations;
+        List<Map.Entry<HRegionInfo, ServerName>> hRegionInfoList;
+
+        try (HTable table = getTable(tableName)) {
+            regionLocations = table.getRegionLocations();
+            hRegionInfoList = new ArrayList<>(regionLocations.entrySet());
+            Assert.assertEquals(4, regionLocations.size());
+            Assert.assertEquals(hRegionInfoList.get(0).getValue(), hRegionInfoList.get(1).getValue());
+            Assert.assertEquals(hRegionInfoList.get(0).getValue(), hRegionInfoList.get(2).getValue());
+            Assert.assertEquals(hRegionInfoList.get(0).getValue(), hRegionInfoList.get(3).getValue());
+
+            String[] argsParam = {"zookeeper", tableName, "rr", "--force-proceed", "--move-parallel=3", "--max-per-rs=1"};
+            Args args = new ManagerArgs(argsParam);
+            Assert.assertEquals("zookeeper", args.getZookeeperQuorum());
+            Balance command = new Balance(admin, args);
+
+            command.run();
+
+            regionLocations = table.getRegionLocations();
+            hRegionInfoList = new ArrayList<>(regionLocations.entrySet());
+            Assert.assertNotEquals(hRegionInfoList.get(0).getValue(), hRegionInfoList.get(1).getValue());
+            Assert.assertNotEquals(hRegionInfoList.get(2).getValue(), hRegionInfoList.get(3).getValue());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class DrainPlannerTest {
+    @Test
+    public void testWeight() {
+        Assert.assertEquals(1, DrainPlanner.weight(0, 0, 0, 0), 0);
+        Assert.assertEquals(3, DrainPlanner.weight(10, 100, 10, 100), 0);
+        Assert.assertEquals(1.5, DrainPlanner.weight(5, 0, 10, 100), 0);
+    }
+
+    @Test
+    public void testAssign() {
+        List<String> regions = Arrays.asList("small0", "hot", "small1", "small2");
+        Map<String, Double> weights = new HashMap<>();
+        weights.put("small0", 1.0);
+        weights.put("hot", 10.0);
+        weights.put("small1", 1.0);
+        weights.put("small2", 1.0);
+        Map<String, Double> targetLoads = new HashMap<>();
+        targetLoads.put("busy", 5.0);
+        targetLoads.put("idle0", 0.0);
+        targetLoads.put("idle1", 0.0);
+
+        Map<String, String> targets = DrainPlanner.assign(regions, weights, targetLoads);
+
+        Assert.assertEquals(regions, new ArrayList<>(targets.keySet()));
+        String hotTarget = targets.get("hot");
+        Assert.assertTrue(hotTarget.startsWith("idle"));
+        String otherIdle = hotTarget.equals("idle0") ? "idle1" : "idle0";
+        Assert.assertEquals(otherIdle, targets.get("small0"));
+        Assert.assertEquals(otherIdle, targets.get("small1"));
+        Assert.assertEquals(otherIdle, targets.get("small2"));
+        Assert.assertEquals(10.0, targetLoads.get(hotTarget), 0);
+        Assert.assertEquals(3.0, targetLoads.get(otherIdle), 0);
+        Assert.assertEquals(5.0, targetLoads.get("busy"), 0);
+    }
+
+    @Test
+    public void testAssignWithoutTarget() {
+        try {
+            DrainPlanner.assign(Collections.singletonList("r"), new HashMap<String, Double>(),
+                new HashMap<String, Double>());
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("Cannot empty all RS", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInterleave() {
+        Map<String, List<String>> sourceRegions = new LinkedHashMap<>();
+        sourceRegions.put("s0", Arrays.asList("a0", "a1", "a2"));
+        sourceRegions.put("s1", Collections.singletonList("b0"));
+        sourceRegions.put("s2", Arrays.asList("c0", "c1"));
+
+        Assert.assertEquals(Arrays.asList("a0", "b0", "c0", "a1", "c1", "a2"), DrainPlanner.interleave(sourceRegions));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class KeySamplerTest {
+    private static byte[] key(int i) {
+        return Bytes.toBytes(String.format("%04d", i));
+    }
+
+    @Test
+    public void testSplitPoints() throws Exception {
+        List<KeySampler.Sample> samples = new ArrayList<>();
+        for (int i = 99; i >= 0; i--) {
+            samples.add(new KeySampler.Sample(key(i), 1));
+        }
+
+        List<byte[]> splitPoints = KeySampler.splitPoints(samples, 4);
+        Assert.assertEquals(3, splitPoints.size());
+        Assert.assertArrayEquals(key(25), splitPoints.get(0));
+        Assert.assertArrayEquals(key(50), splitPoints.get(1));
+        Assert.assertArrayEquals(key(75), splitPoints.get(2));
+    }
+
+    @Test
+    public void testSplitPointsWeighted() throws Exception {
+        List<KeySampler.Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            samples.add(new KeySampler.Sample(key(i), i < 10 ? 1 : 9));
+        }
+
+        // 10 + 9 * 4 + 9 / 2 >= 100 / 2
+        List<byte[]> splitPoints = KeySampler.splitPoints(samples, 2);
+        Assert.assertEquals(1, splitPoints.size());
+        Assert.assertArrayEquals(key(14), splitPoints.get(0));
+    }
+
+    @Test
+    public void testSplitPointsOfHeavyRow() throws Exception {
+        List<KeySampler.Sample> samples = new ArrayList<>();
+        samples.add(new KeySampler.Sample(key(0), 1));
+        samples.add(new KeySampler.Sample(key(1), 100));
+
+        // a row can not be split
+        List<byte[]> splitPoints = KeySampler.splitPoints(samples, 4);
+        Assert.assertEquals(1, splitPoints.size());
+        Assert.assertArrayEquals(key(1), splitPoints.get(0));
+    }
+
+    @Test
+    public void testReservoir() throws Exception {
+        KeySampler.Reservoir reservoir = new KeySampler.Reservoir(200, new Random(1));
+        for (int i = 0; i < 2000; i++) {
+            reservoir.add(key(i), i < 1000 ? 1 : 9);
+        }
+
+        List<KeySampler.Sample> samples = reservoir.samples();
+        Assert.assertEquals(200, samples.size());
+
+        // heavy rows are sampled 9 times more
+        List<byte[]> splitPoints = KeySampler.splitPoints(samples, 2);
+        Assert.assertEquals(1, splitPoints.size());
+        Assert.assertTrue(Bytes.compareTo(splitPoints.get(0), key(1000)) > 0);
+        Assert.assertTrue(Bytes.compareTo(splitPoints.get(0), key(1800)) < 0);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class MCBudgetTest {
+    @Test
+    public void testParseBudget() {
+        Assert.assertEquals(100, MCBudget.parseBudgetMB("100", 3));
+        Assert.assertEquals(100, MCBudget.parseBudgetMB("100MB", 3));
+        Assert.assertEquals(2048, MCBudget.parseBudgetMB("2G", 3));
+        Assert.assertEquals(1536, MCBudget.parseBudgetMB("1.5gb", 3));
+        Assert.assertEquals(60 * MCBudget.THROUGHPUT_MB_PER_SEC * 3, MCBudget.parseBudgetMB("1min", 3));
+        // M is megabytes as documented in the usage, not minutes
+        Assert.assertEquals(100, MCBudget.parseBudgetMB("100M", 3));
+        Assert.assertEquals(30, MCBudget.parseBudgetMB("30m", 3));
+        Assert.assertEquals(30 * 60 * MCBudget.THROUGHPUT_MB_PER_SEC * 3, MCBudget.parseBudgetMB("30min", 3));
+        Assert.assertEquals(3600 * MCBudget.THROUGHPUT_MB_PER_SEC * 2, MCBudget.parseBudgetMB("1h", 2));
+        Assert.assertEquals(10 * MCBudget.THROUGHPUT_MB_PER_SEC, MCBudget.parseBudgetMB("10s", 1));
+
+        try {
+            MCBudget.parseBudgetMB("abc", 1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(MCBudget.MESSAGE_INVALID_BUDGET));
+        }
+    }
+
+    @Test
+    public void testBenefit() {
+        Assert.assertEquals(0, MCBudget.benefit(1, 1), 0);
+        Assert.assertEquals(0, MCBudget.benefit(0, 1), 0);
+        Assert.assertEquals(4, MCBudget.benefit(5, 1), 0);
+        Assert.assertTrue(MCBudget.benefit(1, 0.5f) > 0);
+        Assert.assertTrue(MCBudget.benefit(1, 0) > MCBudget.benefit(1, 0.5f));
+    }
+
+    @Test
+    public void testSelect() {
+        Map<String, MCBudget.Candidate> candidates = new HashMap<>();
+        // nothing to gain
+        candidates.put("compacted", new MCBudget.Candidate(1, 10, 1, 100, 100));
+        // being compacted
+        candidates.put("compacting", new MCBudget.Candidate(10, 10, 1, 50, 100));
+        candidates.put("small", new MCBudget.Candidate(5, 10, 1, 0, 0));
+        candidates.put("large", new MCBudget.Candidate(5, 100, 1, 0, 0));
+        candidates.put("remote", new MCBudget.Candidate(1, 20, 0, 0, 0));
+
+        Assert.assertEquals(Arrays.asList("small", "remote", "large"), MCBudget.select(candidates, 1000));
+        // large does not fit
+        Assert.assertEquals(Arrays.asList("small", "remote"), MCBudget.select(candidates, 50));
+        // neither remote nor large fits in the rest
+        Assert.assertEquals(Collections.singletonList("small"), MCBudget.select(candidates, 20));
+        Assert.assertEquals(Collections.emptyList(), MCBudget.select(candidates, 5));
+    }
+}
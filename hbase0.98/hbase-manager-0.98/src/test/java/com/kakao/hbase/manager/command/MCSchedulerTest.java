@@ -0,0 +1,194 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.ManagerArgs;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class MCSchedulerTest {
+    @Test
+    public void testMaxPerRs() throws Exception {
+        final Map<String, String> regionServerMap = new HashMap<>();
+        final Map<String, Integer> runningCountMap = new HashMap<>();
+        final Map<String, Integer> pollCountMap = new HashMap<>();
+        final List<String> finished = new ArrayList<>();
+        final int[] maxRunning = new int[1];
+
+        MCScheduler scheduler = new MCScheduler(null, new ManagerArgs(new String[]{"zookeeper", "table"}), 2, 1, 60000) {
+            @Override
+            protected boolean request(byte[] regionName) {
+                String server = regionServerMap.get(Bytes.toString(regionName));
+                int running = runningCountMap.get(server) + 1;
+                runningCountMap.put(server, running);
+                maxRunning[0] = Math.max(maxRunning[0], running);
+                pollCountMap.put(Bytes.toString(regionName), 0);
+                return true;
+            }
+
+            @Override
+            protected boolean isCompacting(byte[] regionName) {
+                String region = Bytes.toString(regionName);
+                int polls = pollCountMap.get(region) + 1;
+                pollCountMap.put(region, polls);
+                // compacting for 2 polls
+                if (polls <= 2) return true;
+
+                if (!finished.contains(region)) {
+                    finished.add(region);
+                    String server = regionServerMap.get(region);
+                    runningCountMap.put(server, runningCountMap.get(server) - 1);
+                }
+                return false;
+            }
+        };
+
+        for (int i = 0; i < 10; i++) {
+            String server = "rs" + (i % 3);
+            String region = "region" + i;
+            regionServerMap.put(region, server);
+            runningCountMap.put(server, 0);
+            scheduler.add(server, region.getBytes());
+        }
+
+        Assert.assertEquals(10, scheduler.run());
+        Assert.assertEquals(10, finished.size());
+        Assert.assertEquals(2, maxRunning[0]);
+    }
+
+    @Test
+    public void testNotStarted() throws Exception {
+        final List<String> polled = new ArrayList<>();
+        MCScheduler scheduler = new MCScheduler(null, new ManagerArgs(new String[]{"zookeeper", "table"}), 1, 1, 100) {
+            @Override
+            protected boolean request(byte[] regionName) {
+                return !Bytes.toString(regionName).equals("skipped");
+            }
+
+            @Override
+            protected boolean isCompacting(byte[] regionName) {
+                polled.add(Bytes.toString(regionName));
+                return false;
+            }
+        };
+        scheduler.add("rs1", "region1".getBytes());
+        scheduler.add("rs1", "skipped".getBytes());
+
+        // a region that is never seen compacting is not regarded as done until the start timeout
+        long timestamp = System.currentTimeMillis();
+        Assert.assertEquals(1, scheduler.run());
+        Assert.assertTrue(System.currentTimeMillis() - timestamp >= 100);
+        Assert.assertEquals(1, scheduler.getNotStarted());
+        Assert.assertEquals(Collections.singleton("region1"), new HashSet<>(polled));
+    }
+
+    @Test
+    public void testCompletedBetweenPolls() throws Exception {
+        final Map<String, long[]> progress = new HashMap<>();
+        progress.put("region1", progress(100, 100, 3, 1, 0));
+        MCScheduler scheduler = new MCScheduler(null, new ManagerArgs(new String[]{"zookeeper", "table"}), 1, 1, 60000) {
+            @Override
+            protected boolean request(byte[] regionName) {
+                // the compaction is finished before the first poll
+                progress.put(Bytes.toString(regionName), progress(200, 200, 3, 1, 0));
+                return true;
+            }
+
+            @Override
+            protected boolean isCompacting(byte[] regionName) {
+                return false;
+            }
+
+            @Override
+            protected Map<byte[], long[]> compactionProgress() {
+                Map<byte[], long[]> progressMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                for (Map.Entry<String, long[]> entry : progress.entrySet())
+                    progressMap.put(entry.getKey().getBytes(), entry.getValue());
+                return progressMap;
+            }
+        };
+        scheduler.add("rs1", "region1".getBytes());
+
+        Assert.assertEquals(1, scheduler.run());
+        Assert.assertEquals(0, scheduler.getNotStarted());
+    }
+
+    @Test
+    public void testAlreadyCompacted() throws Exception {
+        MCScheduler scheduler = new MCScheduler(null, new ManagerArgs(new String[]{"zookeeper", "table"}), 1, 1, 60000) {
+            @Override
+            protected boolean request(byte[] regionName) {
+                return true;
+            }
+
+            @Override
+            protected boolean isCompacting(byte[] regionName) {
+                return false;
+            }
+
+            @Override
+            protected Map<byte[], long[]> compactionProgress() {
+                // the compaction request of a compacted region is finished without any progress
+                Map<byte[], long[]> progressMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+                progressMap.put("region1".getBytes(), progress(0, 0, 2, 2, 0));
+                return progressMap;
+            }
+        };
+        scheduler.add("rs1", "region1".getBytes());
+
+        long timestamp = System.currentTimeMillis();
+        Assert.assertEquals(1, scheduler.run());
+        Assert.assertEquals(0, scheduler.getNotStarted());
+        Assert.assertTrue(System.currentTimeMillis() - timestamp < 60000);
+    }
+
+    @Test
+    public void testIsCompleted() {
+        Assert.assertFalse(MCScheduler.isCompleted(progress(100, 100, 3, 1, 0), null));
+        // the progress of the last compaction
+        Assert.assertFalse(MCScheduler.isCompleted(progress(100, 100, 3, 1, 0), progress(100, 100, 3, 1, 0)));
+        // store files are flushed
+        Assert.assertFalse(MCScheduler.isCompleted(progress(100, 100, 3, 1, 0), progress(100, 100, 4, 1, 0)));
+        // compacting
+        Assert.assertFalse(MCScheduler.isCompleted(progress(100, 100, 3, 1, 0), progress(50, 200, 3, 1, 0)));
+        Assert.assertFalse(MCScheduler.isCompleted(null, progress(0, 0, 3, 1, 0)));
+        Assert.assertTrue(MCScheduler.isCompleted(progress(100, 100, 3, 1, 0), progress(200, 200, 3, 1, 0)));
+        Assert.assertTrue(MCScheduler.isCompleted(null, progress(200, 200, 3, 1, 0)));
+
+        // one store file per store
+        Assert.assertTrue(MCScheduler.isCompleted(null, progress(0, 0, 2, 2, 0)));
+        Assert.assertTrue(MCScheduler.isCompleted(progress(100, 100, 3, 2, 0), progress(100, 100, 2, 2, 0)));
+        Assert.assertFalse(MCScheduler.isCompleted(null, progress(0, 0, 0, 0, 0)));
+
+        // the last major compaction timestamp is moved forward
+        Assert.assertTrue(MCScheduler.isCompleted(progress(100, 100, 3, 1, 1000), progress(100, 100, 3, 1, 2000)));
+    }
+
+    private static long[] progress(long compactedKVs, long totalCompactingKVs, long storefiles, long stores,
+                                   long lastMajorCompactionTs) {
+        long[] progress = new long[5];
+        progress[MCScheduler.COMPACTED_KVS] = compactedKVs;
+        progress[MCScheduler.TOTAL_COMPACTING_KVS] = totalCompactingKVs;
+        progress[MCScheduler.STOREFILES] = storefiles;
+        progress[MCScheduler.STORES] = stores;
+        progress[MCScheduler.LAST_MAJOR_COMPACTION_TS] = lastMajorCompactionTs;
+        return progress;
+    }
+}
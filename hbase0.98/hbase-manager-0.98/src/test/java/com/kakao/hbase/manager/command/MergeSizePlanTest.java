@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class MergeSizePlanTest {
+    private static String toString(List<int[]> pairs) {
+        StringBuilder sb = new StringBuilder();
+        for (int[] pair : pairs) {
+            sb.append(pair[0]).append('-').append(pair[1]).append(' ');
+        }
+        return sb.toString().trim();
+    }
+
+    @Test
+    public void testPlan() throws Exception {
+        boolean[] boundaries = new boolean[6];
+
+        // two runs of 40MB
+        int[] sizes = new int[]{10, 10, 10, 10, 20, 20};
+        Assert.assertEquals("0-1 2-3 4-5", toString(Merge.planSizeMerge(sizes, boundaries, 40)));
+
+        // odd regions are merged in the next round
+        sizes = new int[]{10, 10, 10, 50, 0, 0};
+        Assert.assertEquals("0-1 4-5", toString(Merge.planSizeMerge(sizes, boundaries, 40)));
+
+        // regions larger than the target are not merged
+        sizes = new int[]{50, 50, 50, 50, 50, 50};
+        Assert.assertEquals("", toString(Merge.planSizeMerge(sizes, boundaries, 40)));
+    }
+
+    @Test
+    public void testRounds() throws Exception {
+        int[] sizes = new int[16];
+        for (int i = 0; i < sizes.length; i++) sizes[i] = 1;
+
+        int rounds = 0;
+        while (true) {
+            List<int[]> pairs = Merge.planSizeMerge(sizes, new boolean[sizes.length], 16);
+            if (pairs.isEmpty()) break;
+            rounds++;
+
+            int[] merged = new int[sizes.length - pairs.size()];
+            int j = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                merged[j] = sizes[i];
+                if (!pairs.isEmpty() && pairs.get(0)[0] == i) {
+                    merged[j] += sizes[++i];
+                    pairs.remove(0);
+                }
+                j++;
+            }
+            sizes = merged;
+        }
+        Assert.assertEquals(4, rounds);
+        Assert.assertEquals(1, sizes.length);
+    }
+
+    @Test
+    public void testPhoenixBoundary() throws Exception {
+        int[] sizes = new int[]{0, 0, 0, 0};
+        boolean[] boundaries = new boolean[]{false, true, false, true};
+        Assert.assertEquals("0-1 2-3", toString(Merge.planSizeMerge(sizes, boundaries, 40)));
+
+        boundaries = new boolean[]{true, false, true, true};
+        Assert.assertEquals("1-2", toString(Merge.planSizeMerge(sizes, boundaries, 40)));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.ManagerArgs;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.stat.load.TableInfo;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Put;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MergeSizeTest extends MergeTestBase {
+    public MergeSizeTest() {
+        super(MergeSizeTest.class);
+    }
+
+    @Test
+    public void testMergeSize() throws Exception {
+        List<HRegionInfo> regionInfoList;
+
+        // split table to 6 regions
+        splitTable("a1".getBytes());
+        splitTable("a2".getBytes());
+        splitTable("a3".getBytes());
+        splitTable("b".getBytes());
+        splitTable("c".getBytes());
+        assertEquals(6, getRegionInfoList(tableName).size());
+
+        // put 3 MB to the fifth region
+        try (HTableInterface table = getTable(tableName)) {
+            for (int i = 0; i < 3; i++) {
+                Put put = new Put(("b" + i).getBytes());
+                put.add(TEST_TABLE_CF.getBytes(), "c1".getBytes(), new byte[1024 * 1024]);
+                table.put(put);
+            }
+        }
+        admin.flush(tableName);
+        waitForStorefileSize("b".getBytes(), 2);
+
+        // merge
+        String[] argsParam = {"zookeeper", tableName, "size", "2", "--force-proceed"};
+        Args args = new ManagerArgs(argsParam);
+        Merge command = new Merge(admin, args);
+        command.setTest(true);
+        command.run();
+
+        // check
+        // the first 4 regions are merged in 2 rounds, the region of 3 MB and the last one are not merged
+        Thread.sleep(Constant.SMALL_WAIT_INTERVAL_MS);
+        regionInfoList = getRegionInfoList(tableName);
+        assertEquals(3, regionInfoList.size());
+        assertArrayEquals("".getBytes(), regionInfoList.get(0).getStartKey());
+        assertArrayEquals("b".getBytes(), regionInfoList.get(1).getStartKey());
+        assertArrayEquals("c".getBytes(), regionInfoList.get(2).getStartKey());
+
+        TableInfo tableInfo = new TableInfo(admin, tableName, args);
+        tableInfo.refresh();
+        assertEquals(0, storefileSizeMB(tableInfo, regionInfoList.get(0)));
+        assertTrue(storefileSizeMB(tableInfo, regionInfoList.get(1)) >= 2);
+        assertEquals(0, storefileSizeMB(tableInfo, regionInfoList.get(2)));
+    }
+
+    private int storefileSizeMB(TableInfo tableInfo, HRegionInfo regionInfo) {
+        return tableInfo.getRegionLoad(regionInfo).getStorefileSizeMB();
+    }
+
+    private void waitForStorefileSize(byte[] startKey, int sizeMB) throws Exception {
+        TableInfo tableInfo = new TableInfo(admin, tableName, new ManagerArgs(new String[]{"zookeeper", tableName}));
+        for (int i = 0; i < MAX_WAIT_ITERATION; i++) {
+            tableInfo.refresh();
+            for (HRegionInfo regionInfo : tableInfo.getRegionInfoSet()) {
+                if (Arrays.equals(startKey, regionInfo.getStartKey())
+                        && tableInfo.getRegionLoad(regionInfo) != null
+                        && storefileSizeMB(tableInfo, regionInfo) >= sizeMB) return;
+            }
+            Thread.sleep(WAIT_INTERVAL);
+        }
+        fail("Store files of " + new String(startKey) + " are not reported");
+    }
+}
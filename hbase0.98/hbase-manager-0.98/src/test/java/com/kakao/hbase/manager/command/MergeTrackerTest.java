@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.ManagerArgs;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MergeTrackerTest {
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[][] region(String startKey, String endKey) {
+        return new byte[][]{Bytes.toBytes(startKey), Bytes.toBytes(endKey)};
+    }
+
+    @Test
+    public void testIsMerged() {
+        // a, b are merged into a region of [a, c). c, d are not merged yet.
+        List<byte[][]> onlineRegionKeys = Arrays.asList(
+            new byte[][]{EMPTY, Bytes.toBytes("a")}, region("a", "c"), region("c", "d"), region("d", "e"));
+
+        Assert.assertTrue(MergeTracker.isMerged(Bytes.toBytes("a"), Bytes.toBytes("c"), onlineRegionKeys));
+        Assert.assertFalse(MergeTracker.isMerged(Bytes.toBytes("c"), Bytes.toBytes("e"), onlineRegionKeys));
+        Assert.assertTrue(MergeTracker.isMerged(EMPTY, Bytes.toBytes("a"), onlineRegionKeys));
+        Assert.assertFalse(MergeTracker.isMerged(EMPTY, Bytes.toBytes("c"), onlineRegionKeys));
+    }
+
+    @Test
+    public void testAwait() throws Exception {
+        final List<byte[][]> onlineRegionKeys = new ArrayList<>(Arrays.asList(region("a", "b"), region("b", "c")));
+        final int[] polls = new int[1];
+        MergeTracker mergeTracker = new MergeTracker(new ManagerArgs(new String[]{"zookeeper", "table"}), null, null) {
+            @Override
+            protected List<byte[][]> onlineRegionKeys(String tableName, byte[] startKey, byte[] endKey)
+                throws IOException {
+                // merged at the second poll
+                if (++polls[0] == 2) {
+                    onlineRegionKeys.clear();
+                    onlineRegionKeys.add(region("a", "c"));
+                }
+                return onlineRegionKeys;
+            }
+        };
+
+        mergeTracker.add("table", Bytes.toBytes("a"), Bytes.toBytes("c"));
+        Assert.assertEquals(1, mergeTracker.size());
+        Assert.assertTrue(mergeTracker.await(10000, 1));
+        Assert.assertEquals(2, polls[0]);
+        Assert.assertEquals(0, mergeTracker.size());
+    }
+
+    @Test
+    public void testAwaitTimeout() throws Exception {
+        MergeTracker mergeTracker = new MergeTracker(new ManagerArgs(new String[]{"zookeeper", "table"}), null, null) {
+            @Override
+            protected List<byte[][]> onlineRegionKeys(String tableName, byte[] startKey, byte[] endKey)
+                throws IOException {
+                return Arrays.asList(region("a", "b"), region("b", "c"));
+            }
+        };
+
+        mergeTracker.add("table", Bytes.toBytes("a"), Bytes.toBytes("c"));
+        long timestamp = System.currentTimeMillis();
+        Assert.assertFalse(mergeTracker.await(100, 10));
+        Assert.assertTrue(System.currentTimeMillis() - timestamp >= 100);
+        // pending merges are cleared after waiting
+        Assert.assertEquals(0, mergeTracker.size());
+    }
+}
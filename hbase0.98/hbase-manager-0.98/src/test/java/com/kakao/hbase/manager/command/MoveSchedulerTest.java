@@ -0,0 +1,124 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.ManagerArgs;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class MoveSchedulerTest {
+    private final Map<String, String> sources = new HashMap<>();
+    private final Map<String, String> destinations = new HashMap<>();
+    private final Map<String, Long> loads = new HashMap<>();
+
+    private String move(String name, String source, String destination, long load) {
+        sources.put(name, source);
+        destinations.put(name, destination);
+        loads.put(name, load);
+        return name;
+    }
+
+    @Test
+    public void testInterleave() {
+        // s1 receives 3 regions from s0 and sends 3 regions to s2
+        List<String> moves = Arrays.asList(
+            move("a0", "s0", "s1", 1), move("a1", "s0", "s1", 1), move("a2", "s0", "s1", 1),
+            move("b0", "s1", "s2", 1), move("b1", "s1", "s2", 1), move("b2", "s1", "s2", 1));
+
+        List<String> ordered = MoveScheduler.order(moves, sources, destinations, loads);
+
+        Assert.assertEquals(Arrays.asList("a0", "b0", "b1", "a1", "a2", "b2"), ordered);
+        int count = 0;
+        for (String move : ordered) {
+            if (destinations.get(move).equals("s1")) count++;
+            if (sources.get(move).equals("s1")) count--;
+            Assert.assertTrue(Math.abs(count) <= MoveScheduler.COUNT_BOUND);
+        }
+    }
+
+    @Test
+    public void testLoad() {
+        // s1 receives 2 hot regions from s0 and sends 2 hot regions to s2. Region counts are not bound.
+        MoveScheduler.COUNT_BOUND = 100;
+        try {
+            List<String> moves = Arrays.asList(move("a0", "s0", "s1", 100), move("a1", "s0", "s1", 100),
+                move("b0", "s1", "s2", 100), move("b1", "s1", "s2", 100));
+
+            List<String> ordered = MoveScheduler.order(moves, sources, destinations, loads);
+
+            Assert.assertEquals(Arrays.asList("a0", "b0", "b1", "a1"), ordered);
+            long load = 0;
+            for (String move : ordered) {
+                if (destinations.get(move).equals("s1")) load += loads.get(move);
+                if (sources.get(move).equals("s1")) load -= loads.get(move);
+                Assert.assertTrue(Math.abs(load) <= 100);
+            }
+        } finally {
+            MoveScheduler.COUNT_BOUND = 1;
+        }
+    }
+
+    @Test
+    public void testDeadlock() {
+        // a cycle can not be run without breaking the bounds
+        MoveScheduler.COUNT_BOUND = 0;
+        try {
+            List<String> moves = Arrays.asList(move("a", "s0", "s1", 1), move("b", "s1", "s2", 1),
+                move("c", "s2", "s0", 1), move("d", null, "s0", 1));
+
+            Assert.assertEquals(Arrays.asList("d", "a", "b", "c"),
+                MoveScheduler.order(moves, sources, destinations, loads));
+        } finally {
+            MoveScheduler.COUNT_BOUND = 1;
+        }
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        List<String> moves = Arrays.asList("a", "b", "c");
+        Map<String, Integer> sizes = new HashMap<>();
+        sizes.put("a", 30);
+        sizes.put("b", 10);
+        sizes.put("c", 20);
+        Map<String, Long> loads = new HashMap<>();
+        loads.put("a", 1L);
+        loads.put("b", 3L);
+        loads.put("c", 2L);
+
+        List<String> sorted = new ArrayList<>(moves);
+        MoveScheduler.Order.parseArg(new ManagerArgs(new String[]{"zookeeper", "table", "rr"}))
+            .sort(sorted, sizes, loads);
+        Assert.assertEquals(moves, sorted);
+
+        MoveScheduler.Order.parseArg(new ManagerArgs(new String[]{"zookeeper", "table", "rr", "--move-order=small-first"}))
+            .sort(sorted, sizes, loads);
+        Assert.assertEquals(Arrays.asList("b", "c", "a"), sorted);
+
+        MoveScheduler.Order.parseArg(new ManagerArgs(new String[]{"zookeeper", "table", "rr", "--move-order=hot-last"}))
+            .sort(sorted, sizes, loads);
+        Assert.assertEquals(Arrays.asList("a", "c", "b"), sorted);
+
+        try {
+            MoveScheduler.Order.parseArg(new ManagerArgs(new String[]{"zookeeper", "table", "rr", "--move-order=x"}));
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(MoveScheduler.MESSAGE_INVALID_ORDER));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+public class SplitAdvisorTest {
+    private static List<Map<String, Long>> snapshots(Map<String, long[]> requests) {
+        List<Map<String, Long>> snapshots = new ArrayList<>();
+        int count = requests.values().iterator().next().length;
+        for (int i = 0; i < count; i++) {
+            Map<String, Long> snapshot = new HashMap<>();
+            for (Map.Entry<String, long[]> entry : requests.entrySet()) {
+                if (entry.getValue()[i] >= 0) snapshot.put(entry.getKey(), entry.getValue()[i]);
+            }
+            snapshots.add(snapshot);
+        }
+        return snapshots;
+    }
+
+    @Test
+    public void testRank() throws Exception {
+        Map<String, long[]> requests = new TreeMap<>();
+        requests.put("steady", new long[]{0, 100, 200, 300});
+        requests.put("burst", new long[]{0, 0, 10000, 10000});
+        requests.put("small", new long[]{0, 50, 100, 150});
+        requests.put("moved", new long[]{0, 1000, 0, 1000});
+        requests.put("new", new long[]{-1, 1000, 2000, 3000});
+        requests.put("idle", new long[]{0, 0, 0, 0});
+
+        Map<String, Integer> sizeMBMap = new HashMap<>();
+        sizeMBMap.put("steady", 100);
+        sizeMBMap.put("small", 0);
+
+        List<String> ranked = SplitAdvisor.rank(snapshots(requests), sizeMBMap, 1000, 10);
+        Assert.assertEquals(Arrays.asList("small", "steady"), ranked);
+
+        ranked = SplitAdvisor.rank(snapshots(requests), sizeMBMap, 1000, 1);
+        Assert.assertEquals(Collections.singletonList("small"), ranked);
+    }
+}
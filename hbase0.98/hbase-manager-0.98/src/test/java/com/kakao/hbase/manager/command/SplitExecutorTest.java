@@ -0,0 +1,244 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.manager.command;
+
+import com.kakao.hbase.ManagerArgs;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+
+public class SplitExecutorTest {
+    private static List<byte[]> points(String... points) {
+        List<byte[]> pointList = new ArrayList<>();
+        for (String point : points) pointList.add(Bytes.toBytes(point));
+        return pointList;
+    }
+
+    @Test
+    public void testConcurrency() throws Exception {
+        int maxConcurrentSplitsPrev = SplitExecutor.MAX_CONCURRENT_SPLITS;
+        SplitExecutor.MAX_CONCURRENT_SPLITS = 2;
+        try {
+            FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000);
+            Assert.assertEquals(0, splitExecutor.split(points("a", "b", "c", "d", "e", "f", "g")));
+            Assert.assertEquals(7, splitExecutor.getSucceeded());
+            Assert.assertEquals(8, splitExecutor.regionMap.size());
+            // the daughters of the first split are split at the same time but no more than the limit
+            Assert.assertEquals(2, splitExecutor.maxInFlight);
+        } finally {
+            SplitExecutor.MAX_CONCURRENT_SPLITS = maxConcurrentSplitsPrev;
+        }
+    }
+
+    @Test
+    public void testSkipStartKey() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000);
+        splitExecutor.regionMap.clear();
+        splitExecutor.addRegion("", "b", true);
+        splitExecutor.addRegion("b", "", true);
+
+        Assert.assertEquals(0, splitExecutor.split(points("a", "b")));
+        Assert.assertEquals(1, splitExecutor.getSucceeded());
+        Assert.assertEquals(1, splitExecutor.getSkipped());
+        Assert.assertEquals(1, splitExecutor.requested);
+    }
+
+    @Test
+    public void testPostponeReferenced() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000) {
+            @Override
+            protected boolean hasReferences(HRegionInfo regionInfo) throws IOException {
+                // referenced for more checks than the attempts of a split
+                return ++referenceChecks <= 5;
+            }
+        };
+
+        Assert.assertEquals(0, splitExecutor.split(points("a")));
+        Assert.assertEquals(1, splitExecutor.getSucceeded());
+        Assert.assertEquals(1, splitExecutor.requested);
+        Assert.assertEquals(6, splitExecutor.referenceChecks);
+    }
+
+    @Test
+    public void testPostponeTimeout() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(50) {
+            @Override
+            protected boolean hasReferences(HRegionInfo regionInfo) throws IOException {
+                return true;
+            }
+        };
+
+        Assert.assertEquals(2, splitExecutor.split(points("a", "b")));
+        Assert.assertEquals(0, splitExecutor.getSucceeded());
+        Assert.assertEquals(0, splitExecutor.requested);
+    }
+
+    @Test
+    public void testReferencesNotCheckable() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000) {
+            @Override
+            protected boolean hasReferences(HRegionInfo regionInfo) throws IOException {
+                referenceChecks++;
+                throw new IOException("Permission denied");
+            }
+        };
+
+        Assert.assertEquals(0, splitExecutor.split(points("a", "b", "c")));
+        Assert.assertEquals(3, splitExecutor.getSucceeded());
+        // not checked again after the failure
+        Assert.assertEquals(1, splitExecutor.referenceChecks);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000);
+        splitExecutor.splittable = false;
+
+        Assert.assertEquals(1, splitExecutor.split(points("a")));
+        Assert.assertEquals(0, splitExecutor.getSucceeded());
+        Assert.assertEquals(0, splitExecutor.getSkipped());
+        Assert.assertEquals(3, splitExecutor.requested);
+    }
+
+    @Test
+    public void testTimeoutButSplit() throws Exception {
+        FakeSplitExecutor splitExecutor = new FakeSplitExecutor(60000);
+        // the daughters are not online until the split is timed out
+        splitExecutor.daughtersOnline = false;
+
+        Assert.assertEquals(0, splitExecutor.split(points("a")));
+        Assert.assertEquals(1, splitExecutor.getSucceeded());
+        Assert.assertEquals(0, splitExecutor.getSkipped());
+        Assert.assertEquals(1, splitExecutor.requested);
+    }
+
+    /**
+     * Splits regions in memory. A requested split is finished after a few region lookups.
+     */
+    private static class FakeSplitExecutor extends SplitExecutor {
+        private static final int LOOKUPS_TO_SPLIT = 3;
+        // key: start key
+        private final NavigableMap<byte[], FakeRegion> regionMap = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        private final Map<FakeRegion, Integer> inFlightMap = new HashMap<>();
+        private boolean splittable = true;
+        private boolean daughtersOnline = true;
+        private int requested = 0;
+        private int maxInFlight = 0;
+        protected int referenceChecks = 0;
+
+        private FakeSplitExecutor(long splitTimeoutMs) throws IOException {
+            super(null, new ManagerArgs(new String[]{"zookeeper", "table"}), null, "table", splitTimeoutMs, 1, 1);
+            addRegion("", "", true);
+        }
+
+        private void addRegion(String startKey, String endKey, boolean online) {
+            FakeRegion region = new FakeRegion(Bytes.toBytes(startKey), Bytes.toBytes(endKey));
+            region.online = online;
+            regionMap.put(region.getStartKey(), region);
+        }
+
+        @Override
+        protected List<HRegionInfo> regions(byte[] startKey, byte[] endKey, boolean online) throws IOException {
+            Iterator<Map.Entry<FakeRegion, Integer>> iterator = inFlightMap.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<FakeRegion, Integer> entry = iterator.next();
+                if (entry.getValue() < LOOKUPS_TO_SPLIT) {
+                    entry.setValue(entry.getValue() + 1);
+                } else {
+                    iterator.remove();
+                    FakeRegion parent = entry.getKey();
+                    regionMap.remove(parent.getStartKey());
+                    addRegion(Bytes.toString(parent.getStartKey()), Bytes.toString(parent.splitPoint), daughtersOnline);
+                    addRegion(Bytes.toString(parent.splitPoint), Bytes.toString(parent.getEndKey()), daughtersOnline);
+                }
+            }
+
+            List<HRegionInfo> regions = new ArrayList<>();
+            for (FakeRegion region : regionMap.values()) {
+                if (endKey.length > 0 && Bytes.compareTo(region.getStartKey(), endKey) >= 0) continue;
+                if (region.getEndKey().length > 0 && Bytes.compareTo(region.getEndKey(), startKey) <= 0) continue;
+                if (online && !region.online) continue;
+                regions.add(region);
+            }
+            return regions;
+        }
+
+        @Override
+        protected boolean hasReferences(HRegionInfo regionInfo) throws IOException {
+            return false;
+        }
+
+        @Override
+        protected void requestSplit(HRegionInfo regionInfo, byte[] splitPoint) throws IOException {
+            FakeRegion region = regionMap.get(regionInfo.getStartKey());
+            if (region != regionInfo) throw new IOException("Region is not found");
+
+            requested++;
+            if (!splittable) return;
+
+            region.splitPoint = splitPoint;
+            inFlightMap.put(region, 0);
+            maxInFlight = Math.max(maxInFlight, inFlightMap.size());
+        }
+    }
+
+    private static class FakeRegion extends HRegionInfo {
+        private final byte[] startKey;
+        private final byte[] endKey;
+        private boolean online;
+        private byte[] splitPoint;
+
+        private FakeRegion(byte[] startKey, byte[] endKey) {
+            this.startKey = startKey;
+            this.endKey = endKey;
+        }
+
+        @Override
+        public byte[] getStartKey() {
+            return startKey;
+        }
+
+        @Override
+        public byte[] getEndKey() {
+            return endKey;
+        }
+
+        @Override
+        public byte[] getRegionName() {
+            return Bytes.add(startKey, Bytes.toBytes(","), endKey);
+        }
+
+        @Override
+        public String getEncodedName() {
+            return Bytes.toStringBinary(getRegionName());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -23,7 +23,9 @@ import java.io.IOException;
 import java.util.Scanner;
 
 public class KeyInputListener implements Runnable {
+    private static final String TIME_PROMPT = "Time? (yyyy-MM-dd HH:mm:ss or <number>[s|m|h|d] ago) ";
     private static boolean fileLoadMode = false;
+    private static boolean storeLoadMode = false;
     private final TableStat tableStat;
 
     public KeyInputListener(TableStat tableStat) {
@@ -60,6 +62,16 @@ public class KeyInputListener implements Runnable {
                 if (result != null) System.out.println(result);
                 tableStat.printStat();
                 break;
+            case "n":
+                result = tableStat.nextPage();
+                if (result != null) System.out.println(result);
+                tableStat.printStat();
+                break;
+            case "b":
+                result = tableStat.previousPage();
+                if (result != null) System.out.println(result);
+                tableStat.printStat();
+                break;
             case "p":
                 result = tableStat.togglePause();
                 if (result != null) System.out.println(result);
@@ -89,6 +101,10 @@ public class KeyInputListener implements Runnable {
                 }
                 System.out.println(result);
                 break;
+            case "T":
+                tableStat.pause();
+                storeLoadMode = true;
+                break;
             default:
                 result = option + " is an invalid option.";
                 System.out.println(result);
@@ -122,6 +138,17 @@ public class KeyInputListener implements Runnable {
                     tableStat.load(input);
                     tableStat.resume();
                     continue;
+                } else if (storeLoadMode) {
+                    storeLoadMode = false;
+                    if (scanner != null) {
+                        System.out.print(TIME_PROMPT);
+                        input = scanner.nextLine();
+                    } else {
+                        input = reader.readLine(TIME_PROMPT);
+                    }
+                    System.out.println(tableStat.loadFromStore(input));
+                    tableStat.resume();
+                    continue;
                 } else {
                     if (scanner != null) {
                         input = scanner.nextLine();
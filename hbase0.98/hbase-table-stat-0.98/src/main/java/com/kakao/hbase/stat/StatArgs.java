@@ -33,6 +33,10 @@ public class StatArgs extends Args {
         optionParser.accepts(OPTION_OUTPUT).withRequiredArg().ofType(String.class);
         optionParser.accepts(OPTION_REGION_SERVER).withOptionalArg().ofType(String.class);
         optionParser.accepts(OPTION_HTTP_PORT).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_INCREMENTAL);
+        optionParser.accepts(OPTION_ROWS).withRequiredArg().ofType(Integer.class);
+        optionParser.accepts(OPTION_STORE).withRequiredArg().ofType(String.class);
+        optionParser.accepts(OPTION_STORE_SIZE).withRequiredArg().ofType(Integer.class);
         return optionParser;
     }
 }
\ No newline at end of file
@@ -74,6 +74,11 @@ public class TableStat {
             + "Show stats of specific region server at region level.\n"
             + "    --" + Args.OPTION_OUTPUT + "=<file name> : Save stats into a file with CSV format.\n"
             + "    --" + Args.OPTION_HTTP_PORT + "=<http port> : Http server port. Default 0.\n"
+            + "    --" + Args.OPTION_INCREMENTAL + ": Scan meta again only if regions or region servers are changed.\n"
+            + "    --" + Args.OPTION_ROWS + "=<rows> : Show only the given number of rows per page after sorting.\n"
+            + "    --" + Args.OPTION_STORE + "=<directory> : Save every sample into a binary time-series store.\n"
+            + "    --" + Args.OPTION_STORE_SIZE + "=<MB> : Size limit of each resolution of the store. Default "
+            + LoadStore.DEFAULT_SIZE_LIMIT_MB + " MB.\n"
             + dynamicOptions()
             + Args.commonUsage();
     }
@@ -88,8 +93,12 @@ public class TableStat {
             + "    c - show changed records only. toggle\n"
             + "    r - show change rate instead of diff. toggle\n"
             + "    [shift]0-9 - sort by selected column value or diff (with shift). in ascending order\n"
+            + "    n - show next page. with --" + Args.OPTION_ROWS + " option\n"
+            + "    b - show previous page. with --" + Args.OPTION_ROWS + " option\n"
             + "    S - save current load data to a csv file\n"
             + "    L - load a saved csv file and set it as diff start point\n"
+            + "    T - load a stored sample of the given time and set it as diff start point. with --"
+            + Args.OPTION_STORE + " option\n"
             + "    C - show connection information\n";
     }
 
@@ -130,6 +139,7 @@ public class TableStat {
         try {
             synchronized (this) {
                 tableInfo.refresh();
+                webApp.publish(tableInfo.getLoad());
             }
 
             printStat();
@@ -199,6 +209,20 @@ public class TableStat {
         }
     }
 
+    public String nextPage() {
+        synchronized (this) {
+            Load load = getLoad();
+            return "Page " + load.nextPage() + "/" + load.getPageCount() + "\n";
+        }
+    }
+
+    public String previousPage() {
+        synchronized (this) {
+            Load load = getLoad();
+            return "Page " + load.previousPage() + "/" + load.getPageCount() + "\n";
+        }
+    }
+
     public String resetDiffStartPoint() {
         synchronized (this) {
             getLoad().resetDiffStartPoint();
@@ -246,6 +270,12 @@ public class TableStat {
         }
     }
 
+    public String loadFromStore(String input) {
+        synchronized (this) {
+            return getLoad().loadFromStore(input);
+        }
+    }
+
     @VisibleForTesting
     TableInfo getTableInfo() {
         return tableInfo;
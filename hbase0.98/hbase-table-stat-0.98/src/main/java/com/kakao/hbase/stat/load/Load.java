@@ -30,18 +30,20 @@ import java.util.*;
 
 public class Load {
     public static final long EMPTY_TIMESTAMP = 0;
+    private static final LoadEntry[] ALL_LOAD_ENTRIES = LoadEntry.values();
     private final LevelClass levelClass;
     private final LoadIO loadIO = new LoadIO(this);
-    private final Map<Level, LoadRecord> valueChangeMap = new HashMap<>();
-    private final Map<Level, Boolean> recordChangeMap = new HashMap<>();
     private final Args args;
+    private final LoadStore loadStore;
     private Map<Level, LoadRecord> loadMap = new TreeMap<>();
     private Map<Level, LoadRecord> loadMapPrev = new TreeMap<>();
     private Map<Level, LoadRecord> loadMapStart = null;
     private LoadRecord summary = new LoadRecord();
     private LoadRecord summaryPrev = new LoadRecord();
     private LoadRecord summaryStart = null;
-    private LoadRecord summaryChangeMap = new LoadRecord();
+    // records of the dropped iteration to be reused by the next update
+    private Map<Level, LoadRecord> recycledLoadMap = null;
+    private LoadRecord recycledSummary = null;
     private long timestampStart = EMPTY_TIMESTAMP;
     private long timestampIteration = EMPTY_TIMESTAMP;
     private long timestampIterationPrev = EMPTY_TIMESTAMP;
@@ -50,10 +52,23 @@ public class Load {
     private SortKey sortKey = SortKey.DEFAULT;
     private boolean showRate = false;
     private boolean isUpdating = false;
+    // incremented whenever the values or the view options are changed
+    private volatile long revision = 0;
+    private volatile long revisionBeforeUpdate = 0;
+    private int rowsPerPage = 0;
+    private int page = 0;
+    private int pageCount = 1;
 
     public Load(LevelClass levelClass, Args args) {
         this.levelClass = levelClass;
         this.args = args;
+
+        if (args != null && args.has(Args.OPTION_ROWS)) {
+            rowsPerPage = (Integer) args.valueOf(Args.OPTION_ROWS);
+            if (rowsPerPage <= 0)
+                throw new IllegalArgumentException(Args.OPTION_ROWS + " should be greater than 0");
+        }
+        loadStore = LoadStore.create(args);
     }
 
     @VisibleForTesting
@@ -66,10 +81,26 @@ public class Load {
     }
 
     public void setIsUpdating(boolean isUpdating) {
+        if (isUpdating) revisionBeforeUpdate = revision;
         this.isUpdating = isUpdating;
     }
 
+    /**
+     * @return a number that is changed by every update of the values and every change of the view options
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    /**
+     * @return the revision of the last completed update while the load is being updated
+     */
+    public long getRevisionBeforeUpdate() {
+        return revisionBeforeUpdate;
+    }
+
     public void resetDiffStartPoint() {
+        revision++;
         timestampStart = EMPTY_TIMESTAMP;
         timestampIteration = EMPTY_TIMESTAMP;
         loadMap = new TreeMap<>();
@@ -78,9 +109,11 @@ public class Load {
         summary = new LoadRecord();
         summaryPrev = new LoadRecord();
         summaryStart = null;
+        recycledLoadMap = null;
+        recycledSummary = null;
     }
 
-    private long getDuration() {
+    public long getDuration() {
         if (isDiffFromStart()) {
             return timestampIteration - timestampStart;
         } else {
@@ -90,6 +123,7 @@ public class Load {
 
     @VisibleForTesting
     public void setDuration(long duration) {
+        revision++;
         timestampStart = EMPTY_TIMESTAMP;
         timestampIteration = timestampStart + duration;
         timestampIterationPrev = timestampStart;
@@ -121,6 +155,7 @@ public class Load {
     }
 
     public boolean toggleShowRate() {
+        revision++;
         return showRate = !showRate;
     }
 
@@ -129,24 +164,18 @@ public class Load {
     }
 
     public boolean isValueChanged(Level level, LoadEntry loadEntry) {
-        LoadRecord loadRecord = valueChangeMap.get(level);
-        if (loadRecord == null) {
-            return false;
-        } else {
-            Number changed = loadRecord.get(loadEntry);
-            return (changed != null) && (changed.intValue() == ChangeState.changed.ordinal());
-        }
+        LoadRecord loadRecord = loadMap.get(level);
+        return loadRecord != null && loadRecord.isChanged(loadEntry);
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     public boolean isRecordChanged(Level level) {
-        Boolean changed = recordChangeMap.get(level);
-        return changed == null ? true : changed;
+        LoadRecord loadRecord = loadMap.get(level);
+        return loadRecord == null || loadRecord.isChanged();
     }
 
     public boolean isSummaryChanged(LoadEntry loadEntry) {
-      Number number = summaryChangeMap.get(loadEntry);
-      return number != null && number.intValue() == ChangeState.changed.ordinal();
+        return summary.isChanged(loadEntry);
     }
 
     public boolean isDiffFromStart() {
@@ -154,6 +183,7 @@ public class Load {
     }
 
     public boolean toggleDiffFromStart() {
+        revision++;
         return diffFromStart = !diffFromStart;
     }
 
@@ -162,23 +192,33 @@ public class Load {
     }
 
     public boolean toggleShowChangedOnly() {
+        revision++;
         return showChangedOnly = !showChangedOnly;
     }
 
     public void prepare() {
+        revision++;
         long timestamp = System.currentTimeMillis();
 
         if (loadMap.size() > 0 && loadMapStart == null) {
             loadMapStart = loadMap;
         }
+        // the previous iteration is dropped. Its records are reused unless they are the diff start point.
+        recycledLoadMap = loadMapPrev == loadMapStart || loadMapPrev == loadMap ? null : loadMapPrev;
         loadMapPrev = loadMap;
         loadMap = new TreeMap<>();
 
         if (summary.size() > 0 && summaryStart == null) {
             summaryStart = summary;
         }
+        recycledSummary = summaryPrev == summaryStart || summaryPrev == summary ? null : summaryPrev;
         summaryPrev = summary;
-        summary = new LoadRecord();
+        if (recycledSummary == null) {
+            summary = new LoadRecord();
+        } else {
+            summary = recycledSummary;
+            summary.clear();
+        }
 
         Util.printVerboseMessage(args, "Load.prepare", timestamp);
     }
@@ -189,10 +229,12 @@ public class Load {
 
     @VisibleForTesting
     public void setLoadMap(Map<Level, LoadRecord> loadMap) {
+        revision++;
         this.loadMap = loadMap;
     }
 
     void setLoadMapStart(Map<Level, LoadRecord> loadMapStart, long timestampStart) {
+        revision++;
         this.loadMapStart = loadMapStart;
         this.timestampStart = timestampStart;
     }
@@ -211,6 +253,7 @@ public class Load {
 
     @VisibleForTesting
     public void setSummary(LoadRecord summary) {
+        revision++;
         this.summary = summary;
     }
 
@@ -223,6 +266,7 @@ public class Load {
     }
 
     public void summary(LoadEntry loadEntry, Number value) {
+        revision++;
         Number prev = getSummary().get(loadEntry);
         getSummary().put(loadEntry, loadEntry.add(prev, value));
     }
@@ -245,84 +289,122 @@ public class Load {
                 LoadRecord loadRecord = loadMap.get(level);
 
                 if (loadRecord == null) {
-                    loadRecord = new LoadRecord();
+                    loadRecord = recycledLoadMap == null ? null : recycledLoadMap.remove(level);
+                    if (loadRecord == null) {
+                        loadRecord = new LoadRecord();
+                    } else {
+                        loadRecord.clear();
+                    }
                     loadMap.put(level, loadRecord);
                 }
 
+                RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(hRegionInfo);
                 for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
-                    RegionLoadDelegator regionLoad = tableInfo.getRegionLoad(hRegionInfo);
-                    Number valueCur = regionLoad == null ? 0 : loadEntry.getValue(regionLoad);
-                    Number valuePrev = loadRecord.get(loadEntry) == null ? 0 : loadRecord.get(loadEntry);
-                    loadRecord.put(loadEntry, loadEntry.add(valueCur, valuePrev));
-
-                    summary(loadEntry, valueCur);
+                    loadRecord.add(loadEntry, regionLoad);
+                    summary.add(loadEntry, regionLoad);
                 }
             }
 
             updateChangeMap();
         }
+        recycledLoadMap = null;
 
         // reset timestamp after update
         resetTimestamp();
+        revision++;
 
         loadIO.saveOutput(args);
+        if (loadStore != null) loadStore.append(timestampIteration, loadMap);
 
         Util.printVerboseMessage(args, "Load.update", timestamp);
     }
 
     @VisibleForTesting
     public void updateChangeMap() {
-        if (getLoadMapPrev() != null && getLoadMapPrev().size() > 0) {
-            clearChangeMap();
-
-            for (Map.Entry<Level, LoadRecord> mapEntry : getLoadMap().entrySet()) {
-                Level level = mapEntry.getKey();
-
-                for (Map.Entry<LoadEntry, Number> load : mapEntry.getValue().entrySet()) {
-                    LoadEntry loadEntry = load.getKey();
-                    LoadRecord loadRecordPrev = getLoadMapPrev().get(level);
-                    Number valuePrev = loadRecordPrev == null ? null : loadRecordPrev.get(loadEntry);
-                    Number valueCur = getLoadMap().get(level).get(loadEntry);
-                    boolean notChanged = loadEntry.equals(valuePrev, valueCur);
-                    if (!notChanged) {
-                        recordChangeMap.put(level, true);
-                        valueChangeMap.get(level).put(loadEntry, ChangeState.changed.ordinal());
-                        summaryChangeMap.put(loadEntry, ChangeState.changed.ordinal());
+        revision++;
+        Map<Level, LoadRecord> loadMapPrev = getLoadMapPrev();
+        if (loadMapPrev != null && loadMapPrev.size() > 0) {
+            summary.resetChanged();
+
+            for (Map.Entry<Level, LoadRecord> mapEntry : loadMap.entrySet()) {
+                LoadRecord loadRecord = mapEntry.getValue();
+                LoadRecord loadRecordPrev = loadMapPrev.get(mapEntry.getKey());
+                loadRecord.resetChanged();
+
+                for (LoadEntry loadEntry : ALL_LOAD_ENTRIES) {
+                    if (loadRecord.contains(loadEntry) && !loadRecord.equals(loadEntry, loadRecordPrev)) {
+                        loadRecord.setChanged(loadEntry);
+                        summary.setChanged(loadEntry);
                     }
                 }
             }
         }
     }
 
-    private void clearChangeMap() {
-        recordChangeMap.clear();
-        for (Level level : getLoadMap().keySet()) {
-            recordChangeMap.put(level, false);
+    public List<Level> sortedLevels() {
+        if (sortKey == null || sortKey.equals(SortKey.DEFAULT)) {
+            return new ArrayList<>(loadMap.keySet());
+        } else {
+            return sortKey.sortedLevels(this);
         }
+    }
 
-        valueChangeMap.clear();
-        for (Map.Entry<Level, LoadRecord> loadRecordEntry : getLoadMap().entrySet()) {
-            Level level = loadRecordEntry.getKey();
-            for (Map.Entry<LoadEntry, Number> load : loadRecordEntry.getValue().entrySet()) {
-                LoadEntry loadEntry = load.getKey();
-                LoadRecord loadRecord = valueChangeMap.get(level);
-                if (loadRecord == null) {
-                    loadRecord = new LoadRecord();
-                    valueChangeMap.put(level, loadRecord);
-                }
-                loadRecord.put(loadEntry, ChangeState.not_changed.ordinal());
+    /**
+     * @return sorted levels of the current page. Unchanged levels are excluded if showChangedOnly is set.
+     */
+    public List<Level> visibleLevels() {
+        List<Level> levels = sortedLevels();
+        if (showChangedOnly) {
+            List<Level> changedLevels = new ArrayList<>();
+            for (Level level : levels) {
+                if (isRecordChanged(level)) changedLevels.add(level);
             }
+            levels = changedLevels;
         }
 
-        summaryChangeMap = new LoadRecord();
+        if (rowsPerPage <= 0) return levels;
+
+        pageCount = Math.max(1, (levels.size() + rowsPerPage - 1) / rowsPerPage);
+        if (page >= pageCount) page = pageCount - 1;
+        int fromIndex = page * rowsPerPage;
+        return levels.subList(fromIndex, Math.min(fromIndex + rowsPerPage, levels.size()));
     }
 
-    public List<Level> sortedLevels() {
-        if (sortKey == null || sortKey.equals(SortKey.DEFAULT)) {
-            return new ArrayList<>(loadMap.keySet());
-        } else {
-            return sortKey.sortedLevels(this);
+    public boolean isPaged() {
+        return rowsPerPage > 0;
+    }
+
+    @VisibleForTesting
+    public void setRowsPerPage(int rowsPerPage) {
+        revision++;
+        this.rowsPerPage = rowsPerPage;
+    }
+
+    /**
+     * @return one based page number
+     */
+    public int getPage() {
+        return page + 1;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int nextPage() {
+        if (page < pageCount - 1) {
+            page++;
+            revision++;
+        }
+        return getPage();
+    }
+
+    public int previousPage() {
+        if (page > 0) {
+            page--;
+            revision++;
         }
+        return getPage();
     }
 
     public SortKey getSortKey() {
@@ -333,6 +415,7 @@ public class Load {
         if (sortKey == null) throw new IllegalArgumentException("sortKey should not be null");
 
         this.sortKey = sortKey;
+        revision++;
     }
 
     public String getSortKeyInfo() {
@@ -356,26 +439,34 @@ public class Load {
     }
 
     public String getValueDiffString(Level level, LoadEntry loadEntry) {
-        Number valueDiff = getValueDiff(level, loadEntry);
-        if (valueDiff == null) {
-            return LoadEntry.NOT_AVAILABLE;
-        } else {
+        Map<Level, LoadRecord> loadMapPrev = getLoadMapPrev();
+        LoadRecord loadRecordPrev = loadMapPrev == null ? null : loadMapPrev.get(level);
+        if (loadRecordPrev == null) return LoadEntry.NOT_AVAILABLE;
+
+        LoadRecord loadRecord = getLoadMap().get(level);
+        if (!loadRecord.contains(loadEntry) && !loadRecordPrev.contains(loadEntry)) return LoadEntry.NOT_AVAILABLE;
+        return diffString(loadEntry, loadRecord, loadRecordPrev);
+    }
+
+    public String getSummaryDiffString(LoadEntry loadEntry) {
+        LoadRecord summaryPrev = getSummaryPrev();
+        if (summaryPrev == null || !summaryPrev.contains(loadEntry)) return LoadEntry.NOT_AVAILABLE;
+        return diffString(loadEntry, getSummary(), summaryPrev);
+    }
+
+    /**
+     * Same as formatting getValueDiff but without boxing
+     */
+    private String diffString(LoadEntry loadEntry, LoadRecord loadRecord, LoadRecord loadRecordPrev) {
+        if (loadEntry.getValueType() == LoadEntry.ValueType.RATIO) {
+            double valueDiff = loadRecord.diffRatio(loadEntry, loadRecordPrev);
             if (isShowRate()) {
                 return loadEntry.toRateString(valueDiff, getDuration());
             } else {
                 return loadEntry.toString(valueDiff);
             }
-        }
-    }
-
-    public String getSummaryDiffString(LoadEntry loadEntry) {
-        LoadRecord summaryPrev = getSummaryPrev();
-        Number valuePrev = summaryPrev == null ? null : summaryPrev.get(loadEntry);
-        if (valuePrev == null) {
-            return LoadEntry.NOT_AVAILABLE;
         } else {
-            Number valueCur = getSummary().get(loadEntry);
-            Number valueDiff = loadEntry.diff(valueCur, valuePrev);
+            long valueDiff = loadRecord.diffLong(loadEntry, loadRecordPrev);
             if (isShowRate()) {
                 return loadEntry.toRateString(valueDiff, getDuration());
             } else {
@@ -396,5 +487,32 @@ public class Load {
         return loadIO.showSavedFiles(args);
     }
 
-    private enum ChangeState {changed, not_changed}
+    /**
+     * Sets the diff start point to the stored sample at or before the given time.
+     */
+    public String loadFromStore(String input) {
+        if (loadStore == null) return Args.OPTION_STORE + " option is not set.\n";
+
+        try {
+            LoadStore.Sample sample = loadStore.read(LoadStore.parseTimestamp(input, System.currentTimeMillis()));
+            if (sample == null) return "No stored sample before " + input + ".\n";
+
+            Map<String, Level> levelMap = new HashMap<>();
+            for (Level level : loadMap.keySet()) {
+                levelMap.put(level.toString(), level);
+            }
+
+            Map<Level, LoadRecord> loadedLoadMap = new TreeMap<>();
+            for (Map.Entry<String, LoadRecord> entry : sample.getLoadMap().entrySet()) {
+                Level level = levelMap.get(entry.getKey());
+                if (level != null) loadedLoadMap.put(level, entry.getValue());
+            }
+
+            setLoadMapStart(loadedLoadMap, sample.getTimestamp());
+            return "Sample at " + LoadStore.formatTimestamp(sample.getTimestamp()) + " is loaded.\n";
+        } catch (Throwable e) {
+            e.printStackTrace();
+            return "Invalid time - " + input + "\n";
+        }
+    }
 }
@@ -17,27 +17,239 @@
 package com.kakao.hbase.stat.load;
 
 import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.common.RatioNumber;
+import com.kakao.hbase.specific.RegionLoadDelegator;
 
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 
+/**
+ * Values are stored as primitives in columns indexed by the ordinal of LoadEntry.
+ * Ratio entries use two columns for the value and the ratio.
+ * Values are boxed only by get() for printing.
+ */
 public class LoadRecord {
-    private final Map<LoadEntry, Number> map = new TreeMap<>();
+    private static final int COLUMNS = LoadEntry.values().length;
+    private final long[] values = new long[COLUMNS];
+    private final double[] ratios = new double[COLUMNS];
+    private int presence = 0;
+    private int changed = 0;
+    private boolean compared = false;
+
+    private static int bit(LoadEntry loadEntry) {
+        return 1 << loadEntry.ordinal();
+    }
+
+    public boolean contains(LoadEntry loadEntry) {
+        return (presence & bit(loadEntry)) != 0;
+    }
 
     public Number get(LoadEntry loadEntry) {
-        return map.get(loadEntry);
+        if (!contains(loadEntry)) return null;
+
+        int i = loadEntry.ordinal();
+        switch (loadEntry.getValueType()) {
+            case LONG:
+                return values[i];
+            case INTEGER:
+                return (int) values[i];
+            default:
+                return new RatioNumber(Double.longBitsToDouble(values[i]), ratios[i]);
+        }
     }
 
     public void put(LoadEntry loadEntry, Number number) {
-        map.put(loadEntry, number);
+        int i = loadEntry.ordinal();
+        if (number == null) {
+            presence &= ~bit(loadEntry);
+            return;
+        }
+
+        switch (loadEntry.getValueType()) {
+            case LONG:
+                values[i] = number.longValue();
+                break;
+            case INTEGER:
+                values[i] = number.intValue();
+                break;
+            default:
+                double value = number instanceof RatioNumber ? ((RatioNumber) number).value() : 0;
+                values[i] = Double.doubleToLongBits(value);
+                ratios[i] = number.doubleValue();
+        }
+        presence |= bit(loadEntry);
+    }
+
+    /**
+     * @return the value without boxing. Only for long and integer entries.
+     */
+    public long getLong(LoadEntry loadEntry) {
+        return values[loadEntry.ordinal()];
+    }
+
+    /**
+     * @return the ratio without boxing. Only for ratio entries.
+     */
+    public double getRatio(LoadEntry loadEntry) {
+        return ratios[loadEntry.ordinal()];
+    }
+
+    /**
+     * @return bitmask of the ordinals of the contained load entries
+     */
+    int getPresence() {
+        return presence;
+    }
+
+    /**
+     * @return the value as it is stored. The bits of the double value for ratio entries.
+     */
+    long getRawValue(LoadEntry loadEntry) {
+        return values[loadEntry.ordinal()];
+    }
+
+    double getRawRatio(LoadEntry loadEntry) {
+        return ratios[loadEntry.ordinal()];
+    }
+
+    void putRaw(LoadEntry loadEntry, long value, double ratio) {
+        values[loadEntry.ordinal()] = value;
+        ratios[loadEntry.ordinal()] = ratio;
+        presence |= bit(loadEntry);
+    }
+
+    /**
+     * Add the value of a region load in place. A null region load is regarded as zero.
+     */
+    void add(LoadEntry loadEntry, RegionLoadDelegator regionLoad) {
+        int i = loadEntry.ordinal();
+        switch (loadEntry.getValueType()) {
+            case LONG:
+                values[i] = (contains(loadEntry) ? values[i] : 0)
+                    + (regionLoad == null ? 0 : loadEntry.getLongValue(regionLoad));
+                break;
+            case INTEGER:
+                values[i] = (int) ((contains(loadEntry) ? values[i] : 0)
+                    + (regionLoad == null ? 0 : loadEntry.getLongValue(regionLoad)));
+                break;
+            default:
+                if (regionLoad == null) {
+                    addRatio(i, loadEntry, 0, 0);
+                } else {
+                    RatioNumber ratioNumber = (RatioNumber) loadEntry.getValue(regionLoad);
+                    addRatio(i, loadEntry, ratioNumber.value(), ratioNumber.doubleValue());
+                }
+        }
+        presence |= bit(loadEntry);
+    }
+
+    /**
+     * Same as LoadEntry.add for ratio numbers
+     */
+    private void addRatio(int i, LoadEntry loadEntry, double value, double ratio) {
+        if (!contains(loadEntry)) {
+            if (ratio == 0) {
+                values[i] = Double.doubleToLongBits(0);
+                ratios[i] = 0;
+            } else {
+                values[i] = Double.doubleToLongBits(value);
+                ratios[i] = ratio;
+            }
+        } else if (ratios[i] == 0) {
+            values[i] = Double.doubleToLongBits(value);
+            ratios[i] = ratio;
+        } else if (ratio != 0) {
+            double valuePrev = Double.longBitsToDouble(values[i]);
+            double valueSum = valuePrev + value;
+            ratios[i] = (ratios[i] * valuePrev + ratio * value) / valueSum;
+            values[i] = Double.doubleToLongBits(valueSum);
+        }
+    }
+
+    /**
+     * Same as LoadEntry.equals without boxing
+     */
+    boolean equals(LoadEntry loadEntry, LoadRecord other) {
+        boolean contains = contains(loadEntry);
+        if (other == null || !other.contains(loadEntry)) return !contains;
+        if (!contains) return false;
+
+        int i = loadEntry.ordinal();
+        switch (loadEntry.getValueType()) {
+            case LONG:
+                return values[i] == other.values[i];
+            case INTEGER:
+                return (int) values[i] == (int) other.values[i];
+            default:
+                return values[i] == other.values[i] && Double.compare(ratios[i], other.ratios[i]) == 0;
+        }
+    }
+
+    /**
+     * @return the value of this record minus the value of the other without boxing. An absent value is regarded
+     * as zero. Only for long and integer entries.
+     */
+    long diffLong(LoadEntry loadEntry, LoadRecord other) {
+        int i = loadEntry.ordinal();
+        long value = contains(loadEntry) ? values[i] : 0;
+        long valueOther = other.contains(loadEntry) ? other.values[i] : 0;
+        if (loadEntry.getValueType() == LoadEntry.ValueType.INTEGER) {
+            return (int) value - (int) valueOther;
+        } else {
+            return value - valueOther;
+        }
+    }
+
+    /**
+     * @return the ratio of this record minus the ratio of the other without boxing. An absent ratio is regarded
+     * as zero. Only for ratio entries.
+     */
+    double diffRatio(LoadEntry loadEntry, LoadRecord other) {
+        int i = loadEntry.ordinal();
+        double ratio = contains(loadEntry) ? ratios[i] : 0;
+        double ratioOther = other.contains(loadEntry) ? other.ratios[i] : 0;
+        return ratio - ratioOther;
+    }
+
+    /**
+     * Removes all values to reuse this record for the next iteration.
+     */
+    void clear() {
+        presence = 0;
+        changed = 0;
+        compared = false;
+    }
+
+    /**
+     * Clear change states. A record that is not compared yet is regarded as changed.
+     */
+    void resetChanged() {
+        changed = 0;
+        compared = true;
+    }
+
+    void setChanged(LoadEntry loadEntry) {
+        changed |= bit(loadEntry);
+    }
+
+    boolean isChanged(LoadEntry loadEntry) {
+        return (changed & bit(loadEntry)) != 0;
+    }
+
+    boolean isChanged() {
+        return !compared || changed != 0;
     }
 
     public Set<Map.Entry<LoadEntry, Number>> entrySet() {
+        Map<LoadEntry, Number> map = new TreeMap<>();
+        for (LoadEntry loadEntry : LoadEntry.values()) {
+            if (contains(loadEntry)) map.put(loadEntry, get(loadEntry));
+        }
         return map.entrySet();
     }
 
     public int size() {
-        return map.size();
+        return Integer.bitCount(presence);
     }
 }
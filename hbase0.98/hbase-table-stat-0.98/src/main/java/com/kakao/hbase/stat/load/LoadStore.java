@@ -0,0 +1,525 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Args;
+import com.kakao.hbase.common.LoadEntry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Append-only binary time-series store of load samples.
+ * <p>
+ * Every sample is written into the raw resolution. The first sample of each 1m, 10m and 1h bucket is also written
+ * into the rollup resolutions. Counters are cumulative, so diffs between downsampled samples are still valid.
+ * <p>
+ * A segment file starts with a magic number and a version. Each record is a length prefixed payload of
+ * varlong timestamp delta, varint level count and for each level, varint level id followed by its name if it is new,
+ * varint presence bitmask and zigzag varlong deltas from the previous values of the level in the segment.
+ * Ratio entries are written as raw doubles. So each segment can be decoded by itself.
+ * <p>
+ * If the size of a resolution exceeds the limit, its oldest segments are deleted.
+ */
+public class LoadStore implements Closeable {
+    public static final int DEFAULT_SIZE_LIMIT_MB = 1024;
+    static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MAGIC = 0x4c4f4144;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 5;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TIME_FORMAT = "yyyy-MM-dd HH:mm:ss";
+    private static final LoadEntry[] ALL_LOAD_ENTRIES = LoadEntry.values();
+    private final File directory;
+    private final long segmentSize;
+    private final long sizeLimit;
+    private final Map<Resolution, SegmentWriter> writerMap = new EnumMap<>(Resolution.class);
+    private final Map<Resolution, Long> lastBucketMap = new EnumMap<>(Resolution.class);
+
+    @VisibleForTesting
+    LoadStore(File directory, long segmentSize, long sizeLimit) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sizeLimit = sizeLimit;
+    }
+
+    static LoadStore create(Args args) {
+        if (args == null || !args.has(Args.OPTION_STORE)) return null;
+
+        int sizeLimitMB = DEFAULT_SIZE_LIMIT_MB;
+        if (args.has(Args.OPTION_STORE_SIZE)) sizeLimitMB = (Integer) args.valueOf(Args.OPTION_STORE_SIZE);
+        if (sizeLimitMB <= 0)
+            throw new IllegalArgumentException(Args.OPTION_STORE_SIZE + " should be greater than 0");
+
+        return new LoadStore(new File((String) args.valueOf(Args.OPTION_STORE)), SEGMENT_SIZE,
+            sizeLimitMB * 1024L * 1024L);
+    }
+
+    /**
+     * @param input "yyyy-MM-dd HH:mm:ss" or "[number][s|m|h|d]" for the time before now
+     */
+    static long parseTimestamp(String input, long now) throws ParseException {
+        String string = input.trim();
+        if (string.matches("^[0-9]+[smhd]$")) {
+            long amount = Long.parseLong(string.substring(0, string.length() - 1));
+            switch (string.charAt(string.length() - 1)) {
+                case 's':
+                    return now - amount * 1000L;
+                case 'm':
+                    return now - amount * 60 * 1000L;
+                case 'h':
+                    return now - amount * 60 * 60 * 1000L;
+                default:
+                    return now - amount * 24 * 60 * 60 * 1000L;
+            }
+        } else {
+            return new SimpleDateFormat(TIME_FORMAT).parse(string).getTime();
+        }
+    }
+
+    static String formatTimestamp(long timestamp) {
+        return new SimpleDateFormat(TIME_FORMAT).format(timestamp);
+    }
+
+    private static long startTimestamp(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IOException("Invalid varlong");
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[(int) getVarLong(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the last sample at or before the given timestamp in the segment. null if there is none.
+     */
+    @VisibleForTesting
+    static Sample readFloor(File segment, long timestamp) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION)
+                throw new IOException("Invalid segment file - " + segment);
+
+            SegmentState state = new SegmentState();
+            long timestampFound = -1;
+            try {
+                while (buffer.remaining() > 4) {
+                    int length = buffer.getInt();
+                    // the last record can be written partially
+                    if (length <= 0 || length > buffer.remaining()) break;
+
+                    int end = buffer.position() + length;
+                    long timestampRecord = state.timestamp + getVarLong(buffer);
+                    if (timestampRecord > timestamp) break;
+
+                    state.decode(buffer, timestampRecord);
+                    buffer.position(end);
+                    timestampFound = timestampRecord;
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Invalid segment file - " + segment, e);
+            }
+
+            return timestampFound < 0 ? null : new Sample(timestampFound, state.toLoadMap());
+        }
+    }
+
+    /**
+     * Failures are printed and ignored, as LoadIO does for CSV output.
+     */
+    public synchronized void append(long timestamp, Map<Level, LoadRecord> loadMap) {
+        try {
+            for (Resolution resolution : Resolution.values()) {
+                long bucket = resolution.bucket(timestamp);
+                Long lastBucket = lastBucketMap.get(resolution);
+                if (lastBucket != null && lastBucket == bucket) continue;
+
+                writer(resolution, timestamp).append(timestamp, loadMap);
+                lastBucketMap.put(resolution, bucket);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finer resolutions are looked up first.
+     *
+     * @return the last sample at or before the given timestamp. null if there is none.
+     */
+    public synchronized Sample read(long timestamp) throws IOException {
+        for (Resolution resolution : Resolution.values()) {
+            List<File> segments = segments(resolution);
+            int index = floorIndex(segments, timestamp);
+            if (index < 0) continue;
+
+            Sample sample = readFloor(segments.get(index), timestamp);
+            if (sample != null) return sample;
+        }
+        return null;
+    }
+
+    private int floorIndex(List<File> segments, long timestamp) {
+        int low = 0;
+        int high = segments.size() - 1;
+        int result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (startTimestamp(segments.get(mid)) <= timestamp) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    List<File> segments(Resolution resolution) {
+        List<File> segments = new ArrayList<>();
+        File[] files = resolution.directory(directory).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(SEGMENT_SUFFIX)) segments.add(file);
+            }
+        }
+        Collections.sort(segments, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(startTimestamp(o1), startTimestamp(o2));
+            }
+        });
+        return segments;
+    }
+
+    private SegmentWriter writer(Resolution resolution, long timestamp) throws IOException {
+        SegmentWriter writer = writerMap.get(resolution);
+        if (writer != null && writer.size < segmentSize) return writer;
+
+        if (writer != null) writer.close();
+
+        File resolutionDirectory = resolution.directory(directory);
+        if (!resolutionDirectory.isDirectory() && !resolutionDirectory.mkdirs())
+            throw new IOException("Cannot create directory - " + resolutionDirectory);
+
+        // segments are never reopened for appending
+        long start = timestamp;
+        File file;
+        do {
+            file = new File(resolutionDirectory, String.format("%019d", start++) + SEGMENT_SUFFIX);
+        } while (file.exists());
+
+        writer = new SegmentWriter(file);
+        writerMap.put(resolution, writer);
+
+        deleteOldSegments(resolution, file);
+        return writer;
+    }
+
+    private void deleteOldSegments(Resolution resolution, File activeSegment) {
+        List<File> segments = segments(resolution);
+        long size = 0;
+        for (File segment : segments) {
+            size += segment.length();
+        }
+
+        for (File segment : segments) {
+            if (size <= sizeLimit || segment.equals(activeSegment)) break;
+
+            size -= segment.length();
+            if (!segment.delete()) System.out.println("Cannot delete " + segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (SegmentWriter writer : writerMap.values()) {
+            writer.close();
+        }
+        writerMap.clear();
+        lastBucketMap.clear();
+    }
+
+    enum Resolution {
+        raw(0), oneMinute(60 * 1000L), tenMinutes(10 * 60 * 1000L), oneHour(60 * 60 * 1000L);
+
+        private final long bucketMs;
+
+        Resolution(long bucketMs) {
+            this.bucketMs = bucketMs;
+        }
+
+        long bucket(long timestamp) {
+            return bucketMs == 0 ? timestamp : timestamp / bucketMs;
+        }
+
+        File directory(File parent) {
+            return new File(parent, name());
+        }
+    }
+
+    public static class Sample {
+        private final long timestamp;
+        private final Map<String, LoadRecord> loadMap;
+
+        Sample(long timestamp, Map<String, LoadRecord> loadMap) {
+            this.timestamp = timestamp;
+            this.loadMap = loadMap;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * @return key: level name
+         */
+        public Map<String, LoadRecord> getLoadMap() {
+            return loadMap;
+        }
+    }
+
+    /**
+     * Delta decoding state of a segment
+     */
+    private static class SegmentState {
+        private final List<String> names = new ArrayList<>();
+        private final List<long[]> valuesList = new ArrayList<>();
+        private final List<double[]> ratiosList = new ArrayList<>();
+        private final List<Integer> presenceList = new ArrayList<>();
+        // level ids of the last decoded record
+        private final List<Integer> levelIds = new ArrayList<>();
+        private long timestamp = 0;
+
+        private void decode(ByteBuffer buffer, long timestampRecord) throws IOException {
+            timestamp = timestampRecord;
+            levelIds.clear();
+
+            int levelCount = (int) getVarLong(buffer);
+            for (int count = 0; count < levelCount; count++) {
+                int levelId = (int) getVarLong(buffer);
+                if (levelId == names.size()) {
+                    names.add(getString(buffer));
+                    valuesList.add(new long[ALL_LOAD_ENTRIES.length]);
+                    ratiosList.add(new double[ALL_LOAD_ENTRIES.length]);
+                    presenceList.add(0);
+                } else if (levelId > names.size()) {
+                    throw new IOException("Invalid level id - " + levelId);
+                }
+                levelIds.add(levelId);
+
+                int presence = (int) getVarLong(buffer);
+                presenceList.set(levelId, presence);
+                long[] values = valuesList.get(levelId);
+                double[] ratios = ratiosList.get(levelId);
+                for (LoadEntry loadEntry : ALL_LOAD_ENTRIES) {
+                    int i = loadEntry.ordinal();
+                    if ((presence & (1 << i)) == 0) continue;
+
+                    if (loadEntry.getValueType() == LoadEntry.ValueType.RATIO) {
+                        values[i] = buffer.getLong();
+                        ratios[i] = Double.longBitsToDouble(buffer.getLong());
+                    } else {
+                        values[i] += unzigzag(getVarLong(buffer));
+                    }
+                }
+            }
+        }
+
+        private Map<String, LoadRecord> toLoadMap() {
+            Map<String, LoadRecord> loadMap = new HashMap<>();
+            for (int levelId : levelIds) {
+                LoadRecord loadRecord = new LoadRecord();
+                int presence = presenceList.get(levelId);
+                long[] values = valuesList.get(levelId);
+                double[] ratios = ratiosList.get(levelId);
+                for (LoadEntry loadEntry : ALL_LOAD_ENTRIES) {
+                    int i = loadEntry.ordinal();
+                    if ((presence & (1 << i)) != 0) loadRecord.putRaw(loadEntry, values[i], ratios[i]);
+                }
+                loadMap.put(names.get(levelId), loadRecord);
+            }
+            return loadMap;
+        }
+    }
+
+    private static class SegmentWriter implements Closeable {
+        private final FileChannel channel;
+        private final Map<String, Integer> levelIdMap = new HashMap<>();
+        private final List<long[]> valuesList = new ArrayList<>();
+        private final Encoder encoder = new Encoder();
+        private long timestamp = 0;
+        private long size = 0;
+
+        private SegmentWriter(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+
+            encoder.clear();
+            encoder.putInt(MAGIC);
+            encoder.putByte(VERSION);
+            write();
+        }
+
+        private void append(long timestampRecord, Map<Level, LoadRecord> loadMap) throws IOException {
+            encoder.clear();
+            encoder.putInt(0);
+            encoder.putVarLong(timestampRecord - timestamp);
+            encoder.putVarLong(loadMap.size());
+            for (Map.Entry<Level, LoadRecord> entry : loadMap.entrySet()) {
+                String name = entry.getKey().toString();
+                Integer levelId = levelIdMap.get(name);
+                if (levelId == null) {
+                    levelId = levelIdMap.size();
+                    levelIdMap.put(name, levelId);
+                    valuesList.add(new long[ALL_LOAD_ENTRIES.length]);
+                    encoder.putVarLong(levelId);
+                    encoder.putString(name);
+                } else {
+                    encoder.putVarLong(levelId);
+                }
+
+                LoadRecord loadRecord = entry.getValue();
+                long[] values = valuesList.get(levelId);
+                encoder.putVarLong(loadRecord.getPresence());
+                for (LoadEntry loadEntry : ALL_LOAD_ENTRIES) {
+                    if (!loadRecord.contains(loadEntry)) continue;
+
+                    long value = loadRecord.getRawValue(loadEntry);
+                    if (loadEntry.getValueType() == LoadEntry.ValueType.RATIO) {
+                        encoder.putLong(value);
+                        encoder.putLong(Double.doubleToLongBits(loadRecord.getRawRatio(loadEntry)));
+                    } else {
+                        encoder.putVarLong(zigzag(value - values[loadEntry.ordinal()]));
+                        values[loadEntry.ordinal()] = value;
+                    }
+                }
+            }
+            encoder.putInt(0, encoder.length() - 4);
+            write();
+
+            timestamp = timestampRecord;
+        }
+
+        private void write() throws IOException {
+            ByteBuffer buffer = encoder.toByteBuffer();
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Growable byte buffer. It is reused for every record.
+     */
+    private static class Encoder {
+        private byte[] bytes = new byte[4096];
+        private int length = 0;
+
+        private void clear() {
+            length = 0;
+        }
+
+        private int length() {
+            return length;
+        }
+
+        private void ensureCapacity(int size) {
+            if (length + size > bytes.length)
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + size));
+        }
+
+        private void putByte(int value) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) value;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            length += 4;
+            putInt(length - 4, value);
+        }
+
+        private void putInt(int index, int value) {
+            bytes[index] = (byte) (value >>> 24);
+            bytes[index + 1] = (byte) (value >>> 16);
+            bytes[index + 2] = (byte) (value >>> 8);
+            bytes[index + 3] = (byte) value;
+        }
+
+        private void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        private void putVarLong(long value) {
+            while ((value & ~0x7fL) != 0) {
+                putByte((int) ((value & 0x7f) | 0x80));
+                value >>>= 7;
+            }
+            putByte((int) value);
+        }
+
+        private void putString(String string) {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            putVarLong(stringBytes.length);
+            ensureCapacity(stringBytes.length);
+            System.arraycopy(stringBytes, 0, bytes, length, stringBytes.length);
+            length += stringBytes.length;
+        }
+
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(bytes, 0, length);
+        }
+    }
+}
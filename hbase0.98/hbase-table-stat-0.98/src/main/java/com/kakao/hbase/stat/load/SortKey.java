@@ -93,23 +93,12 @@ public class SortKey {
         }
     }
 
-    private static List<Level> generateSortedLevels(Map<Level, Number> loadMap, final LoadEntry loadEntry) {
-        List<Map.Entry<Level, Number>> list = new LinkedList<>(loadMap.entrySet());
-        Collections.sort(list, new Comparator<Map.Entry<Level, Number>>() {
-            @Override
-            public int compare(Map.Entry<Level, Number> o1, Map.Entry<Level, Number> o2) {
-                int compare = loadEntry.compare(o1.getValue(), o2.getValue());
-                if (compare == 0) {
-                    return o1.getKey().toString().compareTo(o2.getKey().toString());
-                } else {
-                    return compare;
-                }
-            }
-        });
+    private static List<Level> generateSortedLevels(List<SortEntry> sortEntries) {
+        Collections.sort(sortEntries);
 
-        List<Level> result = new ArrayList<>();
-        for (Map.Entry<Level, Number> entry : list) {
-            result.add(entry.getKey());
+        List<Level> result = new ArrayList<>(sortEntries.size());
+        for (SortEntry sortEntry : sortEntries) {
+            result.add(sortEntry.level);
         }
         return result;
     }
@@ -177,28 +166,61 @@ public class SortKey {
         value {
             @Override
             public List<Level> sortedLevels(SortKey sortKey, Load load) {
-                Map<Level, Number> valueMap = new HashMap<>();
+                LoadEntry loadEntry = sortKey.getLoadEntry();
+                boolean ratio = loadEntry.getValueType() == LoadEntry.ValueType.RATIO;
+                List<SortEntry> sortEntries = new ArrayList<>(load.getLoadMap().size());
                 for (Map.Entry<Level, LoadRecord> loadRecordEntry : load.getLoadMap().entrySet()) {
-                    Level level = loadRecordEntry.getKey();
-                    Number value = loadRecordEntry.getValue().get(sortKey.getLoadEntry());
-                    valueMap.put(level, value);
+                    LoadRecord loadRecord = loadRecordEntry.getValue();
+                    boolean contains = loadRecord.contains(loadEntry);
+                    sortEntries.add(new SortEntry(loadRecordEntry.getKey(),
+                        ratio || !contains ? 0 : loadRecord.getLong(loadEntry),
+                        ratio && contains ? loadRecord.getRatio(loadEntry) : 0));
                 }
-                return generateSortedLevels(valueMap, sortKey.getLoadEntry());
+                return generateSortedLevels(sortEntries);
             }
         },
         diff {
             @Override
             public List<Level> sortedLevels(SortKey sortKey, Load load) {
-                Map<Level, Number> valueMap = new HashMap<>();
+                LoadEntry loadEntry = sortKey.getLoadEntry();
+                boolean ratio = loadEntry.getValueType() == LoadEntry.ValueType.RATIO;
+                Map<Level, LoadRecord> loadMapPrev = load.getLoadMapPrev();
+                List<SortEntry> sortEntries = new ArrayList<>(load.getLoadMap().size());
                 for (Map.Entry<Level, LoadRecord> loadRecordEntry : load.getLoadMap().entrySet()) {
-                    Level level = loadRecordEntry.getKey();
-                    Number valueDiff = load.getValueDiff(level, sortKey.getLoadEntry());
-                    valueMap.put(level, valueDiff == null ? 0 : valueDiff);
+                    LoadRecord loadRecord = loadRecordEntry.getValue();
+                    LoadRecord loadRecordPrev = loadMapPrev == null ? null : loadMapPrev.get(loadRecordEntry.getKey());
+                    // no diff is regarded as zero
+                    sortEntries.add(new SortEntry(loadRecordEntry.getKey(),
+                        ratio || loadRecordPrev == null ? 0 : loadRecord.diffLong(loadEntry, loadRecordPrev),
+                        !ratio || loadRecordPrev == null ? 0 : loadRecord.diffRatio(loadEntry, loadRecordPrev)));
                 }
-                return generateSortedLevels(valueMap, sortKey.getLoadEntry());
+                return generateSortedLevels(sortEntries);
             }
         };
 
         public abstract List<Level> sortedLevels(SortKey sortKey, Load load);
     }
+
+    /**
+     * Sorts by the value without boxing and then by the name of the level.
+     */
+    private static class SortEntry implements Comparable<SortEntry> {
+        private final Level level;
+        private final long value;
+        private final double ratio;
+
+        private SortEntry(Level level, long value, double ratio) {
+            this.level = level;
+            this.value = value;
+            this.ratio = ratio;
+        }
+
+        @Override
+        public int compareTo(SortEntry other) {
+            int compare = Long.compare(value, other.value);
+            if (compare == 0) compare = Double.compare(ratio, other.ratio);
+            if (compare == 0) compare = level.toString().compareTo(other.level.toString());
+            return compare;
+        }
+    }
 }
@@ -16,12 +16,14 @@
 
 package com.kakao.hbase.stat.load;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.common.util.Util;
 import com.kakao.hbase.specific.CommandAdapter;
 import com.kakao.hbase.specific.RegionLoadAdapter;
 import com.kakao.hbase.specific.RegionLoadDelegator;
 import com.kakao.hbase.specific.RegionLocationCleaner;
+import org.apache.hadoop.hbase.ClusterStatus;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.HBaseAdmin;
@@ -41,8 +43,12 @@ public class TableInfo {
     private NavigableMap<HRegionInfo, ServerName> regionServerMap;
     private Map<byte[], HRegionInfo> regionMap;
     private Set<ServerName> serverNameSet = new TreeSet<>();
+    private Map<ServerName, Integer> serverIndexMap = new HashMap<>();
     private RegionLoadAdapter regionLoadAdapter;
     private Set<Integer> indexRSs = null;
+    // names of the regions reported by region servers but not in the scope, at the last meta scan
+    private Set<byte[]> outOfScopeRegionNames = null;
+    private int reportedRegionCount = 0;
 
     public TableInfo(HBaseAdmin admin, String tableName, Args args) throws Exception {
         super();
@@ -54,6 +60,23 @@ public class TableInfo {
         load = new Load(new LevelClass(isMultiTable(), args));
     }
 
+    /**
+     * For running without HBase cluster. Region locations and loads are given instead of querying them.
+     */
+    @VisibleForTesting
+    public TableInfo(String tableName, Args args, LevelClass levelClass, ClusterStatus clusterStatus,
+        NavigableMap<HRegionInfo, ServerName> regionServerMap) {
+        this.admin = null;
+        this.tableName = tableName;
+        this.args = args;
+        this.regionServerMap = regionServerMap;
+
+        load = new Load(levelClass, args);
+        initializeServerNameSet(clusterStatus);
+        initializeRegionBytesMap();
+        regionLoadAdapter = new RegionLoadAdapter(clusterStatus, regionMap, args);
+    }
+
     public String getTableName() {
         return tableName;
     }
@@ -75,11 +98,7 @@ public class TableInfo {
     }
 
     public Set<HRegionInfo> getRegionInfoSet() {
-        Set<HRegionInfo> regionInfoSet = new TreeSet<>();
-        for (Map.Entry<HRegionInfo, ServerName> entry : regionServerMap.entrySet()) {
-            regionInfoSet.add(entry.getKey());
-        }
-        return regionInfoSet;
+        return Collections.unmodifiableSet(regionServerMap.keySet());
     }
 
     public RegionLoadDelegator getRegionLoad(HRegionInfo hRegionInfo) {
@@ -95,19 +114,62 @@ public class TableInfo {
 
         load.prepare();
 
-        initializeRegionServerMap();
+        ClusterStatus clusterStatus = admin.getClusterStatus();
+        if (args.has(Args.OPTION_INCREMENTAL) && regionMap != null) {
+            RegionLoadAdapter regionLoadAdapterNew = new RegionLoadAdapter(clusterStatus, regionMap, args);
+            if (!isRegionSetChanged(clusterStatus, regionLoadAdapterNew)) {
+                updateRegionLocations(regionLoadAdapterNew);
+                regionLoadAdapter = regionLoadAdapterNew;
+
+                Util.printVerboseMessage(args, "TableInfo.prepare - incremental", timestamp);
+                return;
+            }
+        }
+
+        initializeRegionServerMap(clusterStatus);
         initializeRegionBytesMap();
-        regionLoadAdapter = new RegionLoadAdapter(admin, regionMap, args);
+        regionLoadAdapter = new RegionLoadAdapter(clusterStatus, regionMap, args);
+        outOfScopeRegionNames = regionLoadAdapter.getUnknownRegionNames();
+        reportedRegionCount = regionLoadAdapter.getRegionLocations().size();
 
         Util.printVerboseMessage(args, "TableInfo.prepare", timestamp);
     }
 
-    private void initializeRegionServerMap() throws Exception {
+    /**
+     * Meta is scanned again only if regions are created, removed or region servers are changed.
+     */
+    private boolean isRegionSetChanged(ClusterStatus clusterStatus, RegionLoadAdapter regionLoadAdapterNew) {
         long timestamp = System.currentTimeMillis();
 
-        if (load.getLevelClass().getLevelClass() == RegionName.class || args.has(Args.OPTION_REGION_SERVER)) {
-            initializeServerNameSet();
+        boolean changed = false;
+        if (!serverNameSet.equals(new TreeSet<>(clusterStatus.getServers()))) {
+            changed = true;
+        } else if (regionLoadAdapterNew.getRegionLocations().size() != reportedRegionCount) {
+            changed = true;
+        } else {
+            for (byte[] regionName : regionLoadAdapterNew.getUnknownRegionNames()) {
+                if (!outOfScopeRegionNames.contains(regionName)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        Util.printVerboseMessage(args, "TableInfo.isRegionSetChanged - " + changed, timestamp);
+        return changed;
+    }
+
+    private void updateRegionLocations(RegionLoadAdapter regionLoadAdapterNew) {
+        for (Map.Entry<HRegionInfo, ServerName> entry : regionLoadAdapterNew.getRegionLocations().entrySet()) {
+            if (!entry.getValue().equals(regionServerMap.get(entry.getKey())))
+                regionServerMap.put(entry.getKey(), entry.getValue());
         }
+    }
+
+    private void initializeRegionServerMap(ClusterStatus clusterStatus) throws Exception {
+        long timestamp = System.currentTimeMillis();
+
+        initializeServerNameSet(clusterStatus);
 
         Set<String> tables = Args.tables(args, admin);
         if (tables == null) {
@@ -157,10 +219,19 @@ public class TableInfo {
         return tableNameSet;
     }
 
-    private void initializeServerNameSet() throws IOException {
+    private void initializeServerNameSet(ClusterStatus clusterStatus) {
         long timestamp = System.currentTimeMillis();
 
-        serverNameSet = new TreeSet<>(admin.getClusterStatus().getServers());
+        Set<ServerName> serverNameSetNew = new TreeSet<>(clusterStatus.getServers());
+        if (!serverNameSetNew.equals(serverNameSet)) {
+            serverNameSet = serverNameSetNew;
+            serverIndexMap = new HashMap<>();
+            int i = 0;
+            for (ServerName serverName : serverNameSet) {
+                serverIndexMap.put(serverName, i++);
+            }
+            indexRSs = null;
+        }
 
         Util.printVerboseMessage(args, "TableInfo.initializeServerNameSet", timestamp);
     }
@@ -210,8 +281,8 @@ public class TableInfo {
      * @return region server index from all region servers
      */
     public int serverIndex(HRegionInfo hRegionInfo) {
-        ServerName serverName = regionServerMap.get(hRegionInfo);
-        return Arrays.asList(serverNameSet.toArray()).indexOf(serverName);
+        Integer index = serverIndexMap.get(regionServerMap.get(hRegionInfo));
+        return index == null ? -1 : index;
     }
 
     Set<Integer> getServerIndexes(Args args) {
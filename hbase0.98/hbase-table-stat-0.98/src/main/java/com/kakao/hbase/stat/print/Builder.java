@@ -18,8 +18,6 @@ package com.kakao.hbase.stat.print;
 
 import com.kakao.hbase.common.LoadEntry;
 
-import java.util.Map;
-
 abstract class Builder {
     static final String DELIMITER_DIFF = " | ";
 
@@ -27,5 +25,5 @@ abstract class Builder {
         return string == null ? LoadEntry.NOT_AVAILABLE.length() : string.length();
     }
 
-    abstract void build(Map<String, Length> lengthMap, StringBuilder sb, String key, String value, String diff, Formatter.Type formatType);
+    abstract void build(Length length, StringBuilder sb, String value, String diff, Formatter.Type formatType);
 }
\ No newline at end of file
@@ -49,16 +49,62 @@ public enum Color {
         this.htmlTag = htmlTag;
     }
 
+    /**
+     * Same as clearColor(string, formatType).length() without creating a new string
+     */
     static int lengthWithoutColor(String string, Formatter.Type formatType) {
-        return clearColor(string, formatType).length();
+        int length = 0;
+        int i = 0;
+        while (i < string.length()) {
+            int end = colorEnd(string, i, formatType);
+            if (end > i) {
+                i = end;
+            } else {
+                length++;
+                i++;
+            }
+        }
+        return length;
     }
 
     public static String clearColor(String string, Formatter.Type formatType) {
+        if (string.indexOf(formatType == Formatter.Type.ANSI ? '\033' : '<') < 0) return string;
+
+        StringBuilder sb = new StringBuilder(string.length());
+        int i = 0;
+        while (i < string.length()) {
+            int end = colorEnd(string, i, formatType);
+            if (end > i) {
+                i = end;
+            } else {
+                sb.append(string.charAt(i++));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the end index of the color code starting at the given index. Or the given index if there is none.
+     */
+    private static int colorEnd(String string, int index, Formatter.Type formatType) {
+        final int end;
         if (formatType == Formatter.Type.ANSI) {
-            return string.replaceAll("\\033\\[.*?m", "");
+            if (!string.startsWith("\033[", index)) return index;
+            end = indexOfInLine(string, 'm', index + 2);
         } else {
-            return string.replaceAll("<.*?>", "");
+            if (string.charAt(index) != '<') return index;
+            end = indexOfInLine(string, '>', index + 1);
+        }
+        return end < 0 ? index : end + 1;
+    }
+
+    private static int indexOfInLine(String string, char ch, int fromIndex) {
+        for (int i = fromIndex; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c == ch) return i;
+            if (c == '\n' || c == '\r') return -1;
         }
+        return -1;
     }
 
     /**
@@ -18,34 +18,36 @@ package com.kakao.hbase.stat.print;
 
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.common.util.Util;
+import com.kakao.hbase.stat.load.Level;
 import com.kakao.hbase.stat.load.Load;
 import com.google.common.annotations.VisibleForTesting;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Each format type is built only when it is requested and the revision of the load has been changed since the last
+ * build. Buffers are reused for every build of the same format type.
+ */
 public class Formatter {
-    private static final LengthMapBuilder LENGTH_MAP_BUILDER = new LengthMapBuilder();
-    private static final PrintStringBuilder PRINT_STRING_BUILDER = new PrintStringBuilder();
     private final String tableName;
     private final Load load;
-    private Map<Type, String> cache = new HashMap<>();
+    private final Map<Type, Cache> cacheMap = new EnumMap<>(Type.class);
+    private final Map<Type, TableBuffer> tableBufferMap = new EnumMap<>(Type.class);
 
     public Formatter(String tableName, Load load) {
         this.tableName = tableName;
         this.load = load;
-    }
-
-    /**
-     * Calculate lengths of strings for formatting
-     */
-    private Map<String, Length> generateLengthMap(Type formatType) {
-        Map<String, Length> entryLengthMap = new HashMap<>();
 
-        for (PrintEntry printEntry : PrintEntry.values())
-            printEntry.build(load, null, entryLengthMap, LENGTH_MAP_BUILDER, formatType);
+        for (Type type : Type.values()) {
+            tableBufferMap.put(type, new TableBuffer(type));
+            cacheMap.put(type, new Cache());
+        }
+    }
 
-        return entryLengthMap;
+    public Load getLoad() {
+        return load;
     }
 
     public boolean toggleShowChangedOnly() {
@@ -72,18 +74,12 @@ public class Formatter {
         sb.append(" - ShowChangedOnly: ").append(load.isShowChangedOnly());
         sb.append(" - ShowRate: ").append(load.isShowRate());
         sb.append(" - SortKey: ").append(load.getSortKeyInfo());
+        if (load.isPaged()) sb.append(" - Page: ").append(load.getPage()).append("/").append(load.getPageCount());
         sb.append("\n");
 
         return sb;
     }
 
-    private void appendStat(StringBuilder sb, Type formatType) {
-        Map<String, Length> entryLengthMap = generateLengthMap(formatType);
-
-        for (PrintEntry printEntry : PrintEntry.values())
-            printEntry.build(load, sb, entryLengthMap, PRINT_STRING_BUILDER, formatType);
-    }
-
     @Override
     public String toString() {
         return buildString(true, Type.ANSI);
@@ -93,23 +89,54 @@ public class Formatter {
         return buildString(true, Type.HTML);
     }
 
+    /**
+     * The string built for the current revision of the load is reused.
+     * While the load is being updated, the string built for the last completed update is returned.
+     * Otherwise it waits for the update.
+     */
     @VisibleForTesting
     public String buildString(boolean withRunInformation, Type formatType) {
-        if (load.isUpdating()) {
-            return cache.get(formatType);
-        } else {
-            cache.put(Type.ANSI, buildStringInternal(withRunInformation, Type.ANSI));
-            cache.put(Type.HTML, buildStringInternal(withRunInformation, Type.HTML));
-            return cache.get(formatType);
+        Cache cache = cacheMap.get(formatType);
+        synchronized (cache) {
+            if (cache.isBuilt(withRunInformation, load.getRevision())) return cache.string;
+            if (load.isUpdating() && cache.isBuilt(withRunInformation, load.getRevisionBeforeUpdate()))
+                return cache.string;
+        }
+
+        synchronized (load) {
+            long revision = load.getRevision();
+            String string = buildStringInternal(withRunInformation, formatType);
+            synchronized (cache) {
+                cache.string = string;
+                cache.revision = revision;
+                cache.withRunInformation = withRunInformation;
+            }
+            return string;
         }
     }
 
     private String buildStringInternal(boolean withRunInformation, Type formatType) {
-        StringBuilder sb = new StringBuilder();
-        appendStat(sb, formatType);
-        if (withRunInformation) sb.insert(0, createRunInformation());
-        return sb.toString();
+        TableBuffer table = tableBufferMap.get(formatType);
+        synchronized (table) {
+            table.clear();
+
+            List<Level> levels = load.visibleLevels();
+            for (PrintEntry printEntry : PrintEntry.values())
+                printEntry.build(load, levels, table);
+
+            return table.build(withRunInformation ? createRunInformation() : null);
+        }
     }
 
     public enum Type {ANSI, HTML}
+
+    private static class Cache {
+        private String string = null;
+        private long revision;
+        private boolean withRunInformation;
+
+        private boolean isBuilt(boolean withRunInformation, long revision) {
+            return string != null && this.revision == revision && this.withRunInformation == withRunInformation;
+        }
+    }
 }
@@ -16,15 +16,11 @@
 
 package com.kakao.hbase.stat.print;
 
-import java.util.Map;
-
-class LengthMapBuilder extends Builder {
+class LengthBuilder extends Builder {
     @Override
-    public void build(Map<String, Length> lengthMap, StringBuilder sb, String key, String value, String diff, Formatter.Type formatType) {
-        Length len = Length.getLength(lengthMap, Color.clearColor(key, formatType));
-
-        int valueLengthNow = Math.max(len.getValue(), Color.clearColor(value, formatType).length());
-        int diffLengthNow = Math.max(len.getDiff(), Color.clearColor(diff, formatType).length());
+    public void build(Length len, StringBuilder sb, String value, String diff, Formatter.Type formatType) {
+        int valueLengthNow = Math.max(len.getValue(), Color.lengthWithoutColor(value, formatType));
+        int diffLengthNow = Math.max(len.getDiff(), Color.lengthWithoutColor(diff, formatType));
 
         if (getLength(diff) > 0) {
             len.setValue(valueLengthNow);
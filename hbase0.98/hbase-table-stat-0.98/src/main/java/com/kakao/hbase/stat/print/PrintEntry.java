@@ -24,34 +24,32 @@ import com.kakao.hbase.stat.load.LoadRecord;
 import com.kakao.hbase.stat.load.SortKey;
 
 import java.util.List;
-import java.util.Map;
 
 enum PrintEntry {
     header {
         @Override
-        public void build(Load load, StringBuilder sb, Map<String, Length> entryLengthMap, Builder builder, Formatter.Type formatType) {
+        public void build(Load load, List<Level> levels, TableBuffer table) {
+            Formatter.Type formatType = table.getFormatType();
             SortKey sortKey = load.getSortKey();
 
             String levelTypeString = load.getLevelClass().getLevelTypeString();
             levelTypeString = SortKey.color(sortKey, null).build(levelTypeString, formatType);
-            builder.build(entryLengthMap, sb, ENTRY_LEVEL, levelTypeString, "", formatType);
+            table.add(ENTRY_LEVEL, levelTypeString, "");
 
             for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
                 String loadEntryName = loadEntry.name();
                 loadEntryName = SortKey.color(sortKey, loadEntry).build(loadEntryName, formatType);
-                builder.build(entryLengthMap, sb, loadEntryName, loadEntryName, "", formatType);
+                table.add(loadEntryName, loadEntryName, "");
             }
-            if (sb != null) sb.append("\n");
+            table.newLine();
         }
     },
     body {
         @Override
-        public void build(Load load, StringBuilder sb, Map<String, Length> entryLengthMap, Builder builder, Formatter.Type formatType) {
-            List<Level> sortedLevels = load.sortedLevels();
-            for (Level level : sortedLevels) {
-                if (load.isShowChangedOnly() && !load.isRecordChanged(level)) continue;
-
-                builder.build(entryLengthMap, sb, ENTRY_LEVEL, Color.LEVEL.build(PADDING + level.toString(), formatType), "", formatType);
+        public void build(Load load, List<Level> levels, TableBuffer table) {
+            Formatter.Type formatType = table.getFormatType();
+            for (Level level : levels) {
+                table.add(ENTRY_LEVEL, Color.LEVEL.build(PADDING + level.toString(), formatType), "");
 
                 LoadRecord loadRecord = load.getLoadMap().get(level);
                 for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
@@ -61,17 +59,18 @@ enum PrintEntry {
                         valueString = Color.CHANGED.build(valueString, formatType);
                         diffString = Color.CHANGED.build(diffString, formatType);
                     }
-                    builder.build(entryLengthMap, sb, loadEntry.name(), valueString, diffString, formatType);
+                    table.add(loadEntry.name(), valueString, diffString);
                 }
-                if (sb != null) sb.append("\n");
+                table.newLine();
             }
         }
     },
     footer {
         @Override
-        public void build(Load load, StringBuilder sb, Map<String, Length> entryLengthMap, Builder builder, Formatter.Type formatType) {
+        public void build(Load load, List<Level> levels, TableBuffer table) {
+            Formatter.Type formatType = table.getFormatType();
             String footerLevelString = getFooterLevelString(load);
-            builder.build(entryLengthMap, sb, ENTRY_LEVEL, Color.LEVEL.build(footerLevelString, formatType), "", formatType);
+            table.add(ENTRY_LEVEL, Color.LEVEL.build(footerLevelString, formatType), "");
             for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
                 Number value = load.getSummary().get(loadEntry);
                 String valueString = loadEntry.toString(value);
@@ -80,9 +79,9 @@ enum PrintEntry {
                     valueString = Color.CHANGED.build(valueString, formatType);
                     diffString = Color.CHANGED.build(diffString, formatType);
                 }
-                builder.build(entryLengthMap, sb, loadEntry.name(), valueString, diffString, formatType);
+                table.add(loadEntry.name(), valueString, diffString);
             }
-            if (sb != null) sb.append("\n");
+            table.newLine();
         }
 
         private String getFooterLevelString(Load load) {
@@ -93,5 +92,8 @@ enum PrintEntry {
     static final String PADDING = " ";
     private static final String ENTRY_LEVEL = "level";
 
-    public abstract void build(Load load, StringBuilder sb, Map<String, Length> entryLengthMap, Builder builder, Formatter.Type formatType);
+    /**
+     * @param levels levels to be shown in order
+     */
+    public abstract void build(Load load, List<Level> levels, TableBuffer table);
 }
@@ -16,18 +16,27 @@
 
 package com.kakao.hbase.stat.print;
 
-import java.util.Map;
-
 class PrintStringBuilder extends Builder {
     private static final int INDENT_SIZE = 2;
 
+    /**
+     * Same as appending Color.leftPad(string, size, PrintEntry.PADDING, formatType) without creating new strings
+     */
+    private void appendLeftPadded(java.lang.StringBuilder sb, String string, int size, Formatter.Type formatType) {
+        int padLen = size - Color.lengthWithoutColor(string, formatType);
+        for (int i = 0; i < padLen; i++) {
+            sb.append(PrintEntry.PADDING);
+        }
+        sb.append(string);
+    }
+
     private void appendValue(Length length, java.lang.StringBuilder sb, String value, Formatter.Type formatType) {
-        sb.append(Color.leftPad(value, length.getValue(), PrintEntry.PADDING, formatType));
+        appendLeftPadded(sb, value, length.getValue(), formatType);
     }
 
     private void appendDiff(Length length, java.lang.StringBuilder sb, String diff, Formatter.Type formatType) {
         int padLen = length.getTotal() - length.getValue() - length.getDiff() - DELIMITER_DIFF.length() + INDENT_SIZE;
-        sb.append(Color.leftPad(diff, length.getDiff(), PrintEntry.PADDING, formatType));
+        appendLeftPadded(sb, diff, length.getDiff(), formatType);
         for (int i = 0; i < padLen; i++) {
             sb.append(PrintEntry.PADDING);
         }
@@ -35,15 +44,14 @@ class PrintStringBuilder extends Builder {
 
     private void appendValueOnly(Length length, java.lang.StringBuilder sb, String value, Formatter.Type formatType) {
         sb.append(value);
-        int padLen = length.getTotal() - Color.clearColor(value, formatType).length() + INDENT_SIZE;
+        int padLen = length.getTotal() - Color.lengthWithoutColor(value, formatType) + INDENT_SIZE;
         for (int i = 0; i < padLen; i++) {
             sb.append(PrintEntry.PADDING);
         }
     }
 
     @Override
-    public void build(Map<String, Length> lengthMap, java.lang.StringBuilder sb, String key, String value, String diff, Formatter.Type formatType) {
-        Length length = lengthMap.get(Color.clearColor(key, formatType));
+    public void build(Length length, java.lang.StringBuilder sb, String value, String diff, Formatter.Type formatType) {
         if (getLength(diff) > 0) {
             appendValue(length, sb, value, formatType);
             sb.append(DELIMITER_DIFF);
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.print;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cells are built only once. Column lengths are calculated while adding cells and the cells are printed afterwards.
+ * An instance is reused for every build of a format type to keep the capacities of its buffers.
+ */
+class TableBuffer {
+    private static final LengthBuilder LENGTH_BUILDER = new LengthBuilder();
+    private static final PrintStringBuilder PRINT_STRING_BUILDER = new PrintStringBuilder();
+    private final Formatter.Type formatType;
+    private final Map<String, Length> lengthMap = new HashMap<>();
+    // null for the end of a line
+    private final List<Length> cellLengths = new ArrayList<>();
+    private final List<String> cellValues = new ArrayList<>();
+    private final List<String> cellDiffs = new ArrayList<>();
+    private final StringBuilder sb = new StringBuilder();
+
+    TableBuffer(Formatter.Type formatType) {
+        this.formatType = formatType;
+    }
+
+    Formatter.Type getFormatType() {
+        return formatType;
+    }
+
+    void clear() {
+        lengthMap.clear();
+        cellLengths.clear();
+        cellValues.clear();
+        cellDiffs.clear();
+        sb.setLength(0);
+    }
+
+    void add(String key, String value, String diff) {
+        Length length = Length.getLength(lengthMap, Color.clearColor(key, formatType));
+        LENGTH_BUILDER.build(length, null, value, diff, formatType);
+
+        cellLengths.add(length);
+        cellValues.add(value);
+        cellDiffs.add(diff);
+    }
+
+    void newLine() {
+        cellLengths.add(null);
+        cellValues.add(null);
+        cellDiffs.add(null);
+    }
+
+    /**
+     * @param prefix string to be printed before the cells. Nullable.
+     */
+    String build(CharSequence prefix) {
+        sb.setLength(0);
+        if (prefix != null) sb.append(prefix);
+
+        for (int i = 0; i < cellLengths.size(); i++) {
+            Length length = cellLengths.get(i);
+            if (length == null) {
+                sb.append("\n");
+            } else {
+                PRINT_STRING_BUILDER.build(length, sb, cellValues.get(i), cellDiffs.get(i), formatType);
+            }
+        }
+        return sb.toString();
+    }
+}
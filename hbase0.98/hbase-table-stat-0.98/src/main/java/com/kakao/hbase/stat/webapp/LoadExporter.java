@@ -0,0 +1,253 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.webapp;
+
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.stat.load.Level;
+import com.kakao.hbase.stat.load.Load;
+import com.kakao.hbase.stat.load.LoadRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exports the raw values and rates of the load for /metrics and /api/load.
+ * <p>
+ * Numbers are appended into a reused StringBuilder and the whole document is encoded once.
+ * The encoded bytes are cached until the next update of the load.
+ */
+class LoadExporter {
+    private static final String METRIC_PREFIX = "hbase_table_stat_";
+    private static final Map<LoadEntry, String> METRIC_NAMES = new EnumMap<>(LoadEntry.class);
+    private final Map<Format, Cache> cacheMap = new EnumMap<>(Format.class);
+    private final StringBuilder sb = new StringBuilder();
+
+    static {
+        for (LoadEntry loadEntry : LoadEntry.values()) {
+            METRIC_NAMES.put(loadEntry, metricName(loadEntry));
+        }
+    }
+
+    LoadExporter() {
+        for (Format format : Format.values()) {
+            cacheMap.put(format, new Cache());
+        }
+    }
+
+    private static boolean isRatio(LoadEntry loadEntry) {
+        return loadEntry.getValueType() == LoadEntry.ValueType.RATIO;
+    }
+
+    /**
+     * @return NaN if the rate is not available
+     */
+    private static double rate(LoadEntry loadEntry, LoadRecord loadRecord, LoadRecord loadRecordPrev,
+                               long duration) {
+        if (isRatio(loadEntry) || duration <= 0 || loadRecordPrev == null
+            || !loadRecord.contains(loadEntry) || !loadRecordPrev.contains(loadEntry))
+            return Double.NaN;
+        return (loadRecord.getLong(loadEntry) - loadRecordPrev.getLong(loadEntry)) * 1000.0 / duration;
+    }
+
+    private static void appendValue(StringBuilder sb, LoadEntry loadEntry, LoadRecord loadRecord) {
+        if (isRatio(loadEntry)) {
+            sb.append(loadRecord.getRatio(loadEntry));
+        } else {
+            sb.append(loadRecord.getLong(loadEntry));
+        }
+    }
+
+    /**
+     * MemstoreSize to memstore_size
+     */
+    static String metricName(LoadEntry loadEntry) {
+        StringBuilder sb = new StringBuilder(METRIC_PREFIX);
+        String name = loadEntry.name();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0 && !Character.isUpperCase(name.charAt(i - 1))) sb.append('_');
+                sb.append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendLabelValue(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Should be called while the load is not being updated.
+     */
+    synchronized byte[] export(Load load, Format format) {
+        Cache cache = cacheMap.get(format);
+        if (cache.bytes == null || cache.timestamp != load.getTimestampIteration()
+            || cache.timestampStart != load.getTimestampStart() || cache.diffFromStart != load.isDiffFromStart()) {
+            sb.setLength(0);
+            format.build(load, sb);
+
+            ByteBuffer byteBuffer = Constant.CHARSET.encode(CharBuffer.wrap(sb));
+            cache.bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(cache.bytes);
+            cache.timestamp = load.getTimestampIteration();
+            cache.timestampStart = load.getTimestampStart();
+            cache.diffFromStart = load.isDiffFromStart();
+        }
+        return cache.bytes;
+    }
+
+    enum Format {
+        /**
+         * Prometheus text format
+         */
+        PROMETHEUS("text/plain; version=0.0.4; charset=utf-8") {
+            @Override
+            void build(Load load, StringBuilder sb) {
+                String label = load.getLevelClass().getLevelTypeString();
+                long duration = load.getDuration();
+                Map<Level, LoadRecord> loadMapPrev = load.getLoadMapPrev();
+
+                for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
+                    String metricName = METRIC_NAMES.get(loadEntry);
+                    sb.append("# HELP ").append(metricName).append(' ').append(loadEntry.name())
+                        .append(" of each ").append(label).append('\n');
+                    sb.append("# TYPE ").append(metricName).append(" gauge\n");
+                    for (Map.Entry<Level, LoadRecord> entry : load.getLoadMap().entrySet()) {
+                        if (!entry.getValue().contains(loadEntry)) continue;
+                        appendSample(sb, metricName, "", entry.getKey());
+                        appendValue(sb, loadEntry, entry.getValue());
+                        sb.append('\n');
+                    }
+
+                    if (isRatio(loadEntry)) continue;
+
+                    sb.append("# HELP ").append(metricName).append("_rate ").append(loadEntry.name())
+                        .append(" per second of each ").append(label).append('\n');
+                    sb.append("# TYPE ").append(metricName).append("_rate gauge\n");
+                    for (Map.Entry<Level, LoadRecord> entry : load.getLoadMap().entrySet()) {
+                        LoadRecord loadRecordPrev = loadMapPrev == null ? null : loadMapPrev.get(entry.getKey());
+                        double rate = rate(loadEntry, entry.getValue(), loadRecordPrev, duration);
+                        if (Double.isNaN(rate)) continue;
+                        appendSample(sb, metricName, "_rate", entry.getKey());
+                        sb.append(rate).append('\n');
+                    }
+                }
+
+                for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
+                    if (!load.getSummary().contains(loadEntry)) continue;
+                    String metricName = METRIC_NAMES.get(loadEntry) + "_all";
+                    sb.append("# HELP ").append(metricName).append(' ').append(loadEntry.name())
+                        .append(" of all ").append(label).append('\n');
+                    sb.append("# TYPE ").append(metricName).append(" gauge\n");
+                    sb.append(metricName).append(' ');
+                    appendValue(sb, loadEntry, load.getSummary());
+                    sb.append('\n');
+                }
+            }
+
+            private void appendSample(StringBuilder sb, String metricName, String suffix, Level level) {
+                sb.append(metricName).append(suffix).append("{level=\"");
+                appendLabelValue(sb, level.toString());
+                sb.append("\"} ");
+            }
+        },
+        JSON("application/json; charset=utf-8") {
+            @Override
+            void build(Load load, StringBuilder sb) {
+                long duration = load.getDuration();
+                Map<Level, LoadRecord> loadMapPrev = load.getLoadMapPrev();
+
+                sb.append("{\"timestamp\":").append(load.getTimestampIteration());
+                sb.append(",\"duration\":").append(duration);
+                sb.append(",\"levelType\":");
+                Json.appendString(sb, load.getLevelClass().getLevelTypeString());
+                sb.append(",\"levels\":[");
+                boolean first = true;
+                for (Map.Entry<Level, LoadRecord> entry : load.getLoadMap().entrySet()) {
+                    if (!first) sb.append(',');
+                    first = false;
+                    sb.append("{\"name\":");
+                    Json.appendString(sb, entry.getKey().toString()).append(',');
+                    LoadRecord loadRecordPrev = loadMapPrev == null ? null : loadMapPrev.get(entry.getKey());
+                    appendRecord(sb, entry.getValue(), loadRecordPrev, duration);
+                    sb.append('}');
+                }
+                sb.append("],\"summary\":{");
+                appendRecord(sb, load.getSummary(), load.getSummaryPrev(), duration);
+                sb.append("}}");
+            }
+
+            private void appendRecord(StringBuilder sb, LoadRecord loadRecord, LoadRecord loadRecordPrev,
+                                      long duration) {
+                sb.append("\"values\":{");
+                boolean first = true;
+                for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
+                    if (!loadRecord.contains(loadEntry)) continue;
+                    if (!first) sb.append(',');
+                    first = false;
+                    sb.append('"').append(loadEntry.name()).append("\":");
+                    appendValue(sb, loadEntry, loadRecord);
+                }
+                sb.append("},\"rates\":{");
+                first = true;
+                for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
+                    double rate = rate(loadEntry, loadRecord, loadRecordPrev, duration);
+                    if (Double.isNaN(rate)) continue;
+                    if (!first) sb.append(',');
+                    first = false;
+                    sb.append('"').append(loadEntry.name()).append("\":").append(rate);
+                }
+                sb.append('}');
+            }
+        };
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        abstract void build(Load load, StringBuilder sb);
+    }
+
+    private static class Cache {
+        private byte[] bytes = null;
+        private long timestamp;
+        private long timestampStart;
+        private boolean diffFromStart;
+    }
+}
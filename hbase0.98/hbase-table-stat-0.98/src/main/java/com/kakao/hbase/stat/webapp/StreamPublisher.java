@@ -0,0 +1,339 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.webapp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.specific.RegionLoadAdapter;
+import com.kakao.hbase.stat.load.Level;
+import com.kakao.hbase.stat.load.Load;
+import com.kakao.hbase.stat.load.LoadRecord;
+import com.kakao.hbase.stat.load.SortKey;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the load to the subscribers of /stream as server-sent events.
+ * <p>
+ * Rows are encoded once per tick and an event of the changed and removed rows is shared by all subscribers.
+ * The header of every event has the view options and the levels to be shown in order, which are sorted, filtered
+ * and paged once per tick, so that the page renders the rows without asking the server.
+ * A new subscriber gets a snapshot of all rows first. A subscriber that is still writing the previous event
+ * skips the current one and gets a snapshot next time. So each subscriber has at most one write in flight and
+ * the pool has a thread for each of them. A subscriber that is still writing after WRITE_TIMEOUT_MS is evicted.
+ * It is counted in MAX_SUBSCRIBERS until its write returns, because its thread is blocked.
+ */
+class StreamPublisher {
+    static final int MAX_SUBSCRIBERS = 64;
+    static final long WRITE_TIMEOUT_MS = 30000;
+    private final Executor executor;
+    private final long writeTimeoutMs;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger evictedWriting = new AtomicInteger();
+    // key: level name, value: encoded row
+    private final Map<String, Row> rowMap = new TreeMap<>();
+    private final StringBuilder sb = new StringBuilder();
+    private String summary = null;
+    private String header = null;
+    private long generation = 0;
+    private byte[] snapshot = null;
+
+    StreamPublisher() {
+        this(new ThreadPoolExecutor(0, MAX_SUBSCRIBERS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>()), WRITE_TIMEOUT_MS);
+    }
+
+    @VisibleForTesting
+    StreamPublisher(Executor executor, long writeTimeoutMs) {
+        this.executor = executor;
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    boolean isFull() {
+        return subscribers.size() + evictedWriting.get() >= MAX_SUBSCRIBERS;
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Should be called while the load is not being updated.
+     */
+    synchronized void subscribe(OutputStream outputStream, Load load) {
+        if (header == null) update(load, null);
+
+        Subscriber subscriber = new Subscriber(outputStream);
+        subscribers.add(subscriber);
+        send(subscriber, null);
+    }
+
+    /**
+     * Should be called after every update of the load.
+     */
+    synchronized void publish(Load load) {
+        if (subscribers.isEmpty()) {
+            // rows are encoded again for the next subscriber
+            rowMap.clear();
+            header = null;
+            summary = null;
+            snapshot = null;
+            return;
+        }
+
+        StringBuilder delta = new StringBuilder();
+        update(load, delta);
+        byte[] event = toEvent("delta", delta);
+        for (Subscriber subscriber : subscribers) {
+            send(subscriber, event);
+        }
+    }
+
+    /**
+     * @param delta changed rows are appended if not null
+     */
+    private void update(Load load, StringBuilder delta) {
+        generation++;
+        snapshot = null;
+
+        sb.setLength(0);
+        appendHeader(load);
+        header = sb.toString();
+        if (delta != null) delta.append(header);
+
+        sb.setLength(0);
+        appendCells(load, null);
+        summary = sb.toString();
+        if (delta != null) delta.append(",\"summary\":").append(summary).append(",\"rows\":{");
+
+        boolean first = true;
+        for (Map.Entry<Level, LoadRecord> entry : load.getLoadMap().entrySet()) {
+            String name = entry.getKey().toString();
+            sb.setLength(0);
+            appendCells(load, entry.getKey());
+
+            Row row = rowMap.get(name);
+            if (row == null) {
+                row = new Row();
+                rowMap.put(name, row);
+            } else if (row.cells.contentEquals(sb)) {
+                row.generation = generation;
+                continue;
+            }
+            row.cells = sb.toString();
+            row.generation = generation;
+
+            if (delta != null) {
+                if (!first) delta.append(',');
+                first = false;
+                Json.appendString(delta, name).append(':').append(row.cells);
+            }
+        }
+        if (delta != null) delta.append("},\"removed\":[");
+
+        first = true;
+        for (Iterator<Map.Entry<String, Row>> iterator = rowMap.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Row> entry = iterator.next();
+            if (entry.getValue().generation == generation) continue;
+
+            iterator.remove();
+            if (delta != null) {
+                if (!first) delta.append(',');
+                first = false;
+                Json.appendString(delta, entry.getKey());
+            }
+        }
+        if (delta != null) delta.append("]}");
+    }
+
+    private void appendHeader(Load load) {
+        List<Level> visibleLevels = load.visibleLevels();
+
+        sb.append("{\"timestamp\":").append(load.getTimestampIteration());
+        sb.append(",\"duration\":").append(load.getDuration());
+        sb.append(",\"totalDuration\":").append(load.getTotalDuration());
+        sb.append(",\"level\":");
+        Json.appendString(sb, load.getLevelClass().getLevelTypeString());
+        sb.append(",\"columns\":[");
+        for (int i = 0; i < RegionLoadAdapter.loadEntries.length; i++) {
+            if (i > 0) sb.append(',');
+            Json.appendString(sb, RegionLoadAdapter.loadEntries[i].name());
+        }
+        sb.append("],\"colors\":[");
+        Json.appendString(sb, SortKey.color(load.getSortKey(), null).name());
+        for (LoadEntry loadEntry : RegionLoadAdapter.loadEntries) {
+            sb.append(',');
+            Json.appendString(sb, SortKey.color(load.getSortKey(), loadEntry).name());
+        }
+        sb.append("],\"diffFromStart\":").append(load.isDiffFromStart());
+        sb.append(",\"showChangedOnly\":").append(load.isShowChangedOnly());
+        sb.append(",\"showRate\":").append(load.isShowRate());
+        sb.append(",\"sortKey\":");
+        Json.appendString(sb, load.getSortKeyInfo());
+        if (load.isPaged()) {
+            sb.append(",\"page\":").append(load.getPage());
+            sb.append(",\"pageCount\":").append(load.getPageCount());
+        }
+        sb.append(",\"visible\":[");
+        for (int i = 0; i < visibleLevels.size(); i++) {
+            if (i > 0) sb.append(',');
+            Json.appendString(sb, visibleLevels.get(i).toString());
+        }
+        sb.append(']');
+    }
+
+    /**
+     * @param level null for the summary
+     */
+    private void appendCells(Load load, Level level) {
+        LoadRecord loadRecord = level == null ? load.getSummary() : load.getLoadMap().get(level);
+        sb.append('[');
+        for (int i = 0; i < RegionLoadAdapter.loadEntries.length; i++) {
+            LoadEntry loadEntry = RegionLoadAdapter.loadEntries[i];
+            if (i > 0) sb.append(',');
+            sb.append('[');
+            Json.appendString(sb, loadEntry.toString(loadRecord.get(loadEntry))).append(',');
+            if (level == null) {
+                Json.appendString(sb, load.getSummaryDiffString(loadEntry));
+                sb.append(',').append(load.isSummaryChanged(loadEntry));
+            } else {
+                Json.appendString(sb, load.getValueDiffString(level, loadEntry));
+                sb.append(',').append(load.isValueChanged(level, loadEntry));
+            }
+            sb.append(']');
+        }
+        sb.append(']');
+    }
+
+    private byte[] snapshot() {
+        if (snapshot == null) {
+            StringBuilder data = new StringBuilder(header);
+            data.append(",\"summary\":").append(summary).append(",\"rows\":{");
+            boolean first = true;
+            for (Map.Entry<String, Row> entry : rowMap.entrySet()) {
+                if (!first) data.append(',');
+                first = false;
+                Json.appendString(data, entry.getKey()).append(':').append(entry.getValue().cells);
+            }
+            data.append("},\"removed\":[]}");
+            snapshot = toEvent("snapshot", data);
+        }
+        return snapshot;
+    }
+
+    private byte[] toEvent(String name, StringBuilder data) {
+        return ("event: " + name + "\ndata: " + data + "\n\n").getBytes(Constant.CHARSET);
+    }
+
+    /**
+     * @param event null for a snapshot
+     */
+    private void send(final Subscriber subscriber, byte[] event) {
+        if (!subscriber.writing.compareAndSet(false, true)) {
+            if (System.currentTimeMillis() - subscriber.writeTimestamp > writeTimeoutMs) {
+                evict(subscriber);
+            } else {
+                subscriber.snapshotRequired = true;
+            }
+            return;
+        }
+        subscriber.writeTimestamp = System.currentTimeMillis();
+
+        final byte[] bytes;
+        if (event == null || subscriber.snapshotRequired) {
+            bytes = snapshot();
+            subscriber.snapshotRequired = false;
+        } else {
+            bytes = event;
+        }
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        subscriber.outputStream.write(bytes);
+                        subscriber.outputStream.flush();
+                    } catch (IOException e) {
+                        unsubscribe(subscriber);
+                    } finally {
+                        boolean evicted;
+                        synchronized (subscriber) {
+                            subscriber.writing.set(false);
+                            evicted = subscriber.evicted;
+                        }
+                        if (evicted) {
+                            evictedWriting.decrementAndGet();
+                            unsubscribe(subscriber);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.writing.set(false);
+            subscriber.snapshotRequired = true;
+        }
+    }
+
+    /**
+     * The stream is closed by the writing thread when its write returns, because closing it here can block too.
+     */
+    private void evict(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.evicted || !subscriber.writing.get()) return;
+            subscriber.evicted = true;
+            evictedWriting.incrementAndGet();
+        }
+        subscribers.remove(subscriber);
+    }
+
+    @VisibleForTesting
+    int getEvictedWritingCount() {
+        return evictedWriting.get();
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.outputStream.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static class Row {
+        private String cells;
+        private long generation;
+    }
+
+    private static class Subscriber {
+        private final OutputStream outputStream;
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        private volatile boolean snapshotRequired = false;
+        private volatile long writeTimestamp = 0;
+        private boolean evicted = false;
+
+        private Subscriber(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+    }
+}
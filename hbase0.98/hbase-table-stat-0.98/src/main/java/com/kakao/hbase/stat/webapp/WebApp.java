@@ -21,6 +21,7 @@ import com.kakao.hbase.common.Constant;
 import com.kakao.hbase.common.util.Util;
 import com.kakao.hbase.stat.KeyInputListener;
 import com.kakao.hbase.stat.TableStat;
+import com.kakao.hbase.stat.load.Load;
 import com.kakao.hbase.stat.print.Formatter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -29,10 +30,17 @@ import com.sun.net.httpserver.HttpServer;
 import java.io.*;
 import java.net.*;
 import java.util.Enumeration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class WebApp {
+    private static final int HTTP_THREADS = 4;
+    private static final int HTTP_QUEUE_SIZE = 64;
     private static WebApp instance = null;
     private final HttpServer server;
+    private final StreamPublisher streamPublisher = new StreamPublisher();
+    private final LoadExporter loadExporter = new LoadExporter();
     private boolean isServerRunning = false;
 
     private WebApp(Args args, TableStat tableStat) throws IOException {
@@ -41,7 +49,12 @@ public class WebApp {
         server.createContext("/stat", new StatHandler(tableStat.getFormatter()));
         server.createContext("/jquery", new JQueryHandler());
         server.createContext("/keyInput", new KeyInputHandler(tableStat));
-        server.setExecutor(null);
+        server.createContext("/stream", new StreamHandler(tableStat, streamPublisher));
+        server.createContext("/metrics", new ExportHandler(tableStat, loadExporter, LoadExporter.Format.PROMETHEUS));
+        server.createContext("/api/load", new ExportHandler(tableStat, loadExporter, LoadExporter.Format.JSON));
+        // requests are handled by the dispatcher thread if the queue is full
+        server.setExecutor(new ThreadPoolExecutor(HTTP_THREADS, HTTP_THREADS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(HTTP_QUEUE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy()));
     }
 
     public static WebApp getInstance(Args args, TableStat tableStat) throws IOException {
@@ -89,6 +102,13 @@ public class WebApp {
         System.out.println(printInetAddresses());
     }
 
+    /**
+     * Pushes the updated load to the subscribers of /stream.
+     */
+    public void publish(Load load) {
+        streamPublisher.publish(load);
+    }
+
     public String printInetAddresses() {
         try {
             return printInetAddresses(server.getAddress().getPort());
@@ -133,20 +153,87 @@ public class WebApp {
         }
     }
 
+    /**
+     * The formatter returns the same string until the load is changed. It is encoded once for all requests.
+     */
     private static class StatHandler implements HttpHandler {
         private final Formatter formatter;
+        private String html = null;
+        private byte[] bytes = null;
 
         public StatHandler(Formatter formatter) {
             this.formatter = formatter;
         }
 
+        private synchronized byte[] encode(String html) {
+            if (this.bytes == null || html != this.html) {
+                this.bytes = (html == null ? "" : html).getBytes(Constant.CHARSET);
+                this.html = html;
+            }
+            return this.bytes;
+        }
+
         @Override
         public void handle(HttpExchange t) throws IOException {
-            String statString = formatter.toHtmlString();
+            byte[] bytes = encode(formatter.toHtmlString());
+
+            t.sendResponseHeaders(200, bytes.length);
+            OutputStream os = t.getResponseBody();
+            os.write(bytes);
+            os.close();
+        }
+    }
+
+    private static class StreamHandler implements HttpHandler {
+        private final TableStat tableStat;
+        private final StreamPublisher streamPublisher;
+
+        StreamHandler(TableStat tableStat, StreamPublisher streamPublisher) {
+            this.tableStat = tableStat;
+            this.streamPublisher = streamPublisher;
+        }
+
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            if (streamPublisher.isFull()) {
+                t.sendResponseHeaders(503, -1);
+                t.close();
+                return;
+            }
+
+            t.getResponseHeaders().set("Content-Type", "text/event-stream; charset=" + Constant.CHARSET.name());
+            t.getResponseHeaders().set("Cache-Control", "no-cache");
+            t.sendResponseHeaders(200, 0);
+
+            // the response body is kept open and written by the publisher
+            synchronized (tableStat) {
+                streamPublisher.subscribe(t.getResponseBody(), tableStat.getFormatter().getLoad());
+            }
+        }
+    }
+
+    private static class ExportHandler implements HttpHandler {
+        private final TableStat tableStat;
+        private final LoadExporter loadExporter;
+        private final LoadExporter.Format format;
+
+        ExportHandler(TableStat tableStat, LoadExporter loadExporter, LoadExporter.Format format) {
+            this.tableStat = tableStat;
+            this.loadExporter = loadExporter;
+            this.format = format;
+        }
+
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            byte[] bytes;
+            synchronized (tableStat) {
+                bytes = loadExporter.export(tableStat.getFormatter().getLoad(), format);
+            }
 
-            t.sendResponseHeaders(200, statString.getBytes(Constant.CHARSET).length);
+            t.getResponseHeaders().set("Content-Type", format.getContentType());
+            t.sendResponseHeaders(200, bytes.length);
             OutputStream os = t.getResponseBody();
-            os.write(statString.getBytes(Constant.CHARSET));
+            os.write(bytes);
             os.close();
         }
     }
@@ -165,7 +252,8 @@ public class WebApp {
             String keyInput = URLDecoder.decode(reader.readLine().replace("key=", ""), Constant.CHARSET.displayName());
 
             String result;
-            if (keyInput.equals("q") || keyInput.equals("S") || keyInput.equals("L")) {
+            if (keyInput.equals("q") || keyInput.equals("S") || keyInput.equals("L")
+                || keyInput.equals("T")) {
                 result = "";
             } else {
                 result = KeyInputListener.doAction(keyInput, tableStat);
@@ -76,6 +76,24 @@ public class TableStatOptionTest extends StatTestBase {
         assertNull(command.getLoad().getLoadMapPrev().get(new Level(new TableName(tableName))));
     }
 
+    @Test
+    public void testIncremental() throws Exception {
+        String[] args = {"zookeeper", tableName, "--region", "--interval=0", "--incremental"};
+        TableStat command = new TableStat(admin, new StatArgs(args));
+
+        command.run();
+        assertEquals(1, command.getLoad().getLoadMap().size());
+
+        // region set is not changed
+        command.run();
+        assertEquals(1, command.getLoad().getLoadMap().size());
+
+        // region set is changed
+        splitTable("a".getBytes());
+        command.run();
+        assertEquals(2, command.getLoad().getLoadMap().size());
+    }
+
     @Test
     public void testSort() throws Exception {
         String[] args = {"zookeeper", "--interval=0"};
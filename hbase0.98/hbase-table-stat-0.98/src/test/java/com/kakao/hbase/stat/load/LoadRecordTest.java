@@ -0,0 +1,170 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.common.RatioNumber;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class LoadRecordTest {
+    @Test
+    public void testPutGet() throws Exception {
+        LoadRecord loadRecord = new LoadRecord();
+        assertEquals(0, loadRecord.size());
+        assertNull(loadRecord.get(LoadEntry.Writes));
+
+        loadRecord.put(LoadEntry.Writes, 3);
+        loadRecord.put(LoadEntry.Regions, 2L);
+        loadRecord.put(LoadEntry.DataLocality, new RatioNumber(10, 0.5));
+        assertEquals(3, loadRecord.size());
+        assertEquals(3L, loadRecord.get(LoadEntry.Writes));
+        assertEquals(2, loadRecord.get(LoadEntry.Regions));
+        assertEquals(new RatioNumber(10, 0.5), loadRecord.get(LoadEntry.DataLocality));
+
+        loadRecord.put(LoadEntry.Writes, null);
+        assertEquals(2, loadRecord.size());
+        assertFalse(loadRecord.contains(LoadEntry.Writes));
+        assertNull(loadRecord.get(LoadEntry.Writes));
+    }
+
+    @Test
+    public void testChanged() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        Level level = new Level("table");
+        Map<Level, LoadRecord> loadMap;
+        LoadRecord loadRecord;
+
+        // iteration 1
+        loadMap = new TreeMap<>();
+        loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Writes, 1);
+        loadRecord.put(LoadEntry.Reads, 1);
+        loadMap.put(level, loadRecord);
+        load.setLoadMap(loadMap);
+        load.updateChangeMap();
+        assertTrue(load.isRecordChanged(level));
+
+        // iteration 2
+        load.prepare();
+        loadMap = new TreeMap<>();
+        loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Writes, 2);
+        loadRecord.put(LoadEntry.Reads, 1);
+        loadMap.put(level, loadRecord);
+        load.setLoadMap(loadMap);
+        load.updateChangeMap();
+        assertTrue(load.isRecordChanged(level));
+        assertTrue(load.isValueChanged(level, LoadEntry.Writes));
+        assertFalse(load.isValueChanged(level, LoadEntry.Reads));
+        assertTrue(load.isSummaryChanged(LoadEntry.Writes));
+        assertFalse(load.isSummaryChanged(LoadEntry.Reads));
+
+        // iteration 3
+        load.prepare();
+        loadMap = new TreeMap<>();
+        loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Writes, 2);
+        loadRecord.put(LoadEntry.Reads, 1);
+        loadMap.put(level, loadRecord);
+        load.setLoadMap(loadMap);
+        load.updateChangeMap();
+        assertFalse(load.isRecordChanged(level));
+        assertFalse(load.isValueChanged(level, LoadEntry.Writes));
+        assertFalse(load.isSummaryChanged(LoadEntry.Writes));
+    }
+
+    @Test
+    public void testDiffString() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        Level level = new Level("table");
+        Map<Level, LoadRecord> loadMap;
+        LoadRecord loadRecord;
+
+        loadMap = new TreeMap<>();
+        loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Reads, 10L);
+        loadRecord.put(LoadEntry.Regions, 3);
+        loadRecord.put(LoadEntry.FileSize, 100);
+        loadRecord.put(LoadEntry.DataLocality, new RatioNumber(100, 0.5));
+        loadMap.put(level, loadRecord);
+        load.setLoadMap(loadMap);
+        load.setSummary(loadRecord);
+
+        load.prepare();
+        loadMap = new TreeMap<>();
+        loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Reads, 35L);
+        loadRecord.put(LoadEntry.Regions, 2);
+        loadRecord.put(LoadEntry.FileSize, 1300);
+        loadRecord.put(LoadEntry.DataLocality, new RatioNumber(1300, 0.75));
+        loadRecord.put(LoadEntry.Writes, 4L);
+        loadMap.put(level, loadRecord);
+        load.setLoadMap(loadMap);
+        load.setSummary(loadRecord);
+        load.setDuration(4000);
+
+        // same as formatting the boxed diff
+        for (int i = 0; i < 2; i++) {
+            for (LoadEntry loadEntry : LoadEntry.values()) {
+                Number valueDiff = load.getValueDiff(level, loadEntry);
+                String expected = valueDiff == null ? LoadEntry.NOT_AVAILABLE : load.isShowRate()
+                    ? loadEntry.toRateString(valueDiff, load.getDuration()) : loadEntry.toString(valueDiff);
+                assertEquals(loadEntry.name(), expected, load.getValueDiffString(level, loadEntry));
+            }
+            load.toggleShowRate();
+        }
+
+        assertEquals("25", load.getValueDiffString(level, LoadEntry.Reads));
+        assertEquals("-1", load.getValueDiffString(level, LoadEntry.Regions));
+        assertEquals("1200m", load.getValueDiffString(level, LoadEntry.FileSize));
+        assertEquals("25.00%", load.getValueDiffString(level, LoadEntry.DataLocality));
+        assertEquals(LoadEntry.NOT_AVAILABLE, load.getSummaryDiffString(LoadEntry.Writes));
+
+        load.toggleShowRate();
+        assertEquals("6.3/s", load.getValueDiffString(level, LoadEntry.Reads));
+        assertEquals("300m/s", load.getValueDiffString(level, LoadEntry.FileSize));
+        assertEquals("6.3/s", load.getSummaryDiffString(LoadEntry.Reads));
+    }
+
+    @Test
+    public void testReuseSummary() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        load.getSummary().put(LoadEntry.Reads, 1L);
+
+        // the first summary is the diff start point and is not reused
+        load.prepare();
+        LoadRecord summary = load.getSummary();
+        summary.put(LoadEntry.Reads, 2L);
+        load.prepare();
+        load.getSummary().put(LoadEntry.Reads, 3L);
+        assertNotSame(summary, load.getSummary());
+
+        // the summary of the dropped iteration is reused
+        load.prepare();
+        assertSame(summary, load.getSummary());
+        assertEquals(0, load.getSummary().size());
+        assertEquals(3L, load.getSummaryPrev().get(LoadEntry.Reads));
+
+        load.toggleDiffFromStart();
+        assertEquals(1L, load.getSummaryPrev().get(LoadEntry.Reads));
+    }
+}
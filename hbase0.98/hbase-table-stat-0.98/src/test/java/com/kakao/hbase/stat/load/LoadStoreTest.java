@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.load;
+
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.common.RatioNumber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class LoadStoreTest {
+    private static final long MINUTE = 60 * 1000L;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("LoadStoreTest").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        delete(directory);
+    }
+
+    private void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        assertTrue(file.delete());
+    }
+
+    private Map<Level, LoadRecord> loadMap(long writes, int regions) {
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        for (String table : new String[]{"table1", "table2"}) {
+            LoadRecord loadRecord = new LoadRecord();
+            loadRecord.put(LoadEntry.Writes, writes);
+            loadRecord.put(LoadEntry.Regions, regions);
+            loadRecord.put(LoadEntry.DataLocality, new RatioNumber(writes, 0.5));
+            loadMap.put(new Level(table), loadRecord);
+        }
+        return loadMap;
+    }
+
+    @Test
+    public void testAppendRead() throws Exception {
+        try (LoadStore loadStore = new LoadStore(directory, LoadStore.SEGMENT_SIZE, Long.MAX_VALUE)) {
+            loadStore.append(10 * MINUTE, loadMap(100, 2));
+            loadStore.append(10 * MINUTE + 10000, loadMap(90, 3));
+            loadStore.append(10 * MINUTE + 20000, loadMap(200, 3));
+
+            assertNull(loadStore.read(10 * MINUTE - 1));
+
+            LoadStore.Sample sample = loadStore.read(10 * MINUTE + 15000);
+            assertEquals(10 * MINUTE + 10000, sample.getTimestamp());
+            assertEquals(2, sample.getLoadMap().size());
+            LoadRecord loadRecord = sample.getLoadMap().get("table2");
+            assertEquals(90L, loadRecord.get(LoadEntry.Writes));
+            assertEquals(3, loadRecord.get(LoadEntry.Regions));
+            assertEquals(new RatioNumber(90, 0.5), loadRecord.get(LoadEntry.DataLocality));
+            assertFalse(loadRecord.contains(LoadEntry.Reads));
+
+            sample = loadStore.read(Long.MAX_VALUE);
+            assertEquals(10 * MINUTE + 20000, sample.getTimestamp());
+            assertEquals(200L, sample.getLoadMap().get("table1").get(LoadEntry.Writes));
+        }
+
+        // new segment is started after reopening
+        try (LoadStore loadStore = new LoadStore(directory, LoadStore.SEGMENT_SIZE, Long.MAX_VALUE)) {
+            loadStore.append(11 * MINUTE, loadMap(300, 4));
+            assertEquals(2, loadStore.segments(LoadStore.Resolution.raw).size());
+            assertEquals(200L, loadStore.read(11 * MINUTE - 1).getLoadMap().get("table1").get(LoadEntry.Writes));
+            assertEquals(300L, loadStore.read(11 * MINUTE).getLoadMap().get("table1").get(LoadEntry.Writes));
+        }
+    }
+
+    @Test
+    public void testRollupRetention() throws Exception {
+        try (LoadStore loadStore = new LoadStore(directory, 1, 3000)) {
+            for (int i = 0; i < 120; i++) {
+                loadStore.append(i * 10000L, loadMap(i, 1));
+            }
+
+            // every sample rolls the segment over and the oldest raw segments are deleted
+            assertTrue(loadStore.segments(LoadStore.Resolution.raw).size() < 120);
+            assertEquals(20, loadStore.segments(LoadStore.Resolution.oneMinute).size());
+            assertEquals(2, loadStore.segments(LoadStore.Resolution.tenMinutes).size());
+            assertEquals(1, loadStore.segments(LoadStore.Resolution.oneHour).size());
+
+            // old raw samples are deleted and found in the coarser resolutions
+            LoadStore.Sample sample = loadStore.read(10000 + 5000);
+            assertEquals(0, sample.getTimestamp());
+            assertEquals(0L, sample.getLoadMap().get("table1").get(LoadEntry.Writes));
+
+            sample = loadStore.read(119 * 10000L);
+            assertEquals(119 * 10000L, sample.getTimestamp());
+            assertEquals(119L, sample.getLoadMap().get("table1").get(LoadEntry.Writes));
+        }
+    }
+
+    @Test
+    public void testParseTimestamp() throws Exception {
+        long now = 100 * 24 * 60 * MINUTE;
+        assertEquals(now - 30 * 1000L, LoadStore.parseTimestamp("30s", now));
+        assertEquals(now - 10 * MINUTE, LoadStore.parseTimestamp("10m", now));
+        assertEquals(now - 2 * 60 * MINUTE, LoadStore.parseTimestamp("2h", now));
+        assertEquals(now - 24 * 60 * MINUTE, LoadStore.parseTimestamp(" 1d ", now));
+
+        long timestamp = LoadStore.parseTimestamp("2015-03-04 05:06:07", now);
+        assertEquals("2015-03-04 05:06:07", LoadStore.formatTimestamp(timestamp));
+    }
+}
@@ -897,4 +897,108 @@ public class FormatterTest {
                 "<b> Total: 2</b>     N/A | N/A  <span style=\"color:yellow\">4</span> | <span style=\"color:yellow\">1</span>   N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A        1m |  0m     N/A | N/A     \n";
         Assert.assertEquals(expected, resultString);
     }
+
+    @Test
+    public void testPaging() throws Exception {
+        String resultString;
+        String expected;
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        LoadRecord summary = new LoadRecord();
+        for (int i = 1; i <= 3; i++) {
+            LoadRecord rec = new LoadRecord();
+            rec.put(LoadEntry.Writes, i);
+            loadMap.put(new Level("rec" + i), rec);
+        }
+        summary.put(LoadEntry.Writes, 6);
+
+        Load load = new Load(new LevelClass(ServerName.class));
+        load.setLoadMap(loadMap);
+        load.setSummary(summary);
+        load.setRowsPerPage(2);
+        load.setSortKey(new SortKey("2"));
+
+        Formatter formatter = new Formatter("testTable", load);
+
+        // page 1
+        resultString = formatter.buildString(false, Formatter.Type.ANSI);
+        System.out.println(resultString);
+        expected = "RegionServer  Reads      Writes   Regions    Files      FileSize   FileSizeUncomp  MemstoreSize  CompactedKVs  \n" +
+                " rec1         N/A | N/A  1 | N/A  N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A       N/A | N/A     N/A | N/A     \n" +
+                " rec2         N/A | N/A  2 | N/A  N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A       N/A | N/A     N/A | N/A     \n" +
+                " Total: 3     N/A | N/A  6 | N/A  N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A       N/A | N/A     N/A | N/A     \n";
+        Assert.assertEquals(expected, Color.clearColor(resultString, Formatter.Type.ANSI));
+        Assert.assertEquals(2, load.getPageCount());
+
+        // page 2
+        Assert.assertEquals(2, load.nextPage());
+        Assert.assertEquals(2, load.nextPage());
+        resultString = formatter.buildString(false, Formatter.Type.ANSI);
+        System.out.println(resultString);
+        expected = "RegionServer  Reads      Writes   Regions    Files      FileSize   FileSizeUncomp  MemstoreSize  CompactedKVs  \n" +
+                " rec3         N/A | N/A  3 | N/A  N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A       N/A | N/A     N/A | N/A     \n" +
+                " Total: 3     N/A | N/A  6 | N/A  N/A | N/A  N/A | N/A  N/A | N/A  N/A | N/A       N/A | N/A     N/A | N/A     \n";
+        Assert.assertEquals(expected, Color.clearColor(resultString, Formatter.Type.ANSI));
+
+        Assert.assertEquals(1, load.previousPage());
+        Assert.assertEquals(1, load.previousPage());
+    }
+
+    @Test
+    public void testBuildWhileUpdating() throws Exception {
+        Load load = new Load(new LevelClass(ServerName.class));
+        Formatter formatter = new Formatter("testTable", load);
+        formatter.buildString(false, Formatter.Type.ANSI);
+
+        // the first request of a format type during an update is built
+        load.setIsUpdating(true);
+        Assert.assertNotNull(formatter.buildString(false, Formatter.Type.HTML));
+        load.setIsUpdating(false);
+
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        LoadRecord rec1 = new LoadRecord();
+        rec1.put(LoadEntry.Writes, 1);
+        loadMap.put(new Level("rec1"), rec1);
+        load.prepare();
+        load.setLoadMap(loadMap);
+        load.setSummary(rec1);
+
+        // a format type built before the last completed update is built again during an update
+        formatter.buildString(false, Formatter.Type.ANSI);
+        load.setIsUpdating(true);
+        Assert.assertTrue(formatter.buildString(false, Formatter.Type.HTML).contains("rec1"));
+        load.setIsUpdating(false);
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        LoadRecord rec1 = new LoadRecord();
+        rec1.put(LoadEntry.Writes, 1);
+        loadMap.put(new Level("rec1"), rec1);
+
+        Load load = new Load(new LevelClass(ServerName.class));
+        load.setLoadMap(loadMap);
+        load.setSummary(rec1);
+        Formatter formatter = new Formatter("testTable", load);
+
+        // reused while the revision is not changed
+        String ansi = formatter.buildString(false, Formatter.Type.ANSI);
+        Assert.assertSame(ansi, formatter.buildString(false, Formatter.Type.ANSI));
+        String html = formatter.buildString(false, Formatter.Type.HTML);
+        Assert.assertSame(html, formatter.buildString(false, Formatter.Type.HTML));
+        Assert.assertSame(ansi, formatter.buildString(false, Formatter.Type.ANSI));
+
+        // a change of the view options is a new revision
+        load.setSortKey(new SortKey("2"));
+        String ansiSorted = formatter.buildString(false, Formatter.Type.ANSI);
+        Assert.assertNotSame(ansi, ansiSorted);
+        Assert.assertNotEquals(ansi, ansiSorted);
+
+        // the string of the last completed update is returned during an update
+        load.setIsUpdating(true);
+        load.prepare();
+        Assert.assertSame(ansiSorted, formatter.buildString(false, Formatter.Type.ANSI));
+        load.setIsUpdating(false);
+        Assert.assertNotSame(ansiSorted, formatter.buildString(false, Formatter.Type.ANSI));
+    }
 }
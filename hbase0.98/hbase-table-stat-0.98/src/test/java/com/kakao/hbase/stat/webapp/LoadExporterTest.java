@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.webapp;
+
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.stat.load.*;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class LoadExporterTest {
+    private void update(Load load, long writes) {
+        load.prepare();
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        LoadRecord loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Writes, writes);
+        loadMap.put(new Level("ta\"ble"), loadRecord);
+        load.setLoadMap(loadMap);
+        LoadRecord summary = new LoadRecord();
+        summary.put(LoadEntry.Writes, writes);
+        load.setSummary(summary);
+        load.updateChangeMap();
+    }
+
+    @Test
+    public void testMetricName() throws Exception {
+        assertEquals("hbase_table_stat_memstore_size", LoadExporter.metricName(LoadEntry.MemstoreSize));
+        assertEquals("hbase_table_stat_compacted_kvs", LoadExporter.metricName(LoadEntry.CompactedKVs));
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        LoadExporter loadExporter = new LoadExporter();
+        String string;
+
+        update(load, 10);
+        load.setDuration(2000);
+        string = new String(loadExporter.export(load, LoadExporter.Format.PROMETHEUS), Constant.CHARSET);
+        assertTrue(string.contains("# TYPE hbase_table_stat_writes gauge\n"));
+        assertTrue(string.contains("hbase_table_stat_writes{level=\"ta\\\"ble\"} 10\n"));
+        assertTrue(string.contains("hbase_table_stat_writes_all 10\n"));
+        assertFalse(string.contains("hbase_table_stat_writes_rate{"));
+
+        update(load, 30);
+        load.setDuration(4000);
+        byte[] bytes = loadExporter.export(load, LoadExporter.Format.PROMETHEUS);
+        string = new String(bytes, Constant.CHARSET);
+        assertTrue(string.contains("hbase_table_stat_writes_rate{level=\"ta\\\"ble\"} 5.0\n"));
+
+        // cached
+        assertSame(bytes, loadExporter.export(load, LoadExporter.Format.PROMETHEUS));
+
+        string = new String(loadExporter.export(load, LoadExporter.Format.JSON), Constant.CHARSET);
+        assertEquals("{\"timestamp\":4000,\"duration\":4000,\"levelType\":\"Table\",\"levels\":["
+            + "{\"name\":\"ta\\\"ble\",\"values\":{\"Writes\":30},\"rates\":{\"Writes\":5.0}}],"
+            + "\"summary\":{\"values\":{\"Writes\":30},\"rates\":{\"Writes\":5.0}}}", string);
+    }
+
+    @Test
+    public void testExportAfterDiffStartPointChanged() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        LoadExporter loadExporter = new LoadExporter();
+        String string;
+
+        update(load, 10);
+        update(load, 30);
+        load.setDuration(4000);
+        load.toggleDiffFromStart();
+        string = new String(loadExporter.export(load, LoadExporter.Format.PROMETHEUS), Constant.CHARSET);
+        assertTrue(string.contains("hbase_table_stat_writes_rate{level=\"ta\\\"ble\"} 5.0\n"));
+
+        // the diff start point is moved to the current iteration. rates are not available any more.
+        load.initializeTimestamp();
+        assertEquals(load.getTimestampIteration(), load.getTimestampStart());
+        string = new String(loadExporter.export(load, LoadExporter.Format.PROMETHEUS), Constant.CHARSET);
+        assertFalse(string.contains("hbase_table_stat_writes_rate{"));
+    }
+}
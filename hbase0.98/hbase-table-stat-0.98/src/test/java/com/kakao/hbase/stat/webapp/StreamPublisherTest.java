@@ -0,0 +1,195 @@
+/*
+ * Copyright 2015 Kakao Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kakao.hbase.stat.webapp;
+
+import com.kakao.hbase.common.Constant;
+import com.kakao.hbase.common.LoadEntry;
+import com.kakao.hbase.stat.load.*;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class StreamPublisherTest {
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private void update(Load load, long writes1, Long writes2) {
+        load.prepare();
+        Map<Level, LoadRecord> loadMap = new TreeMap<>();
+        LoadRecord loadRecord = new LoadRecord();
+        loadRecord.put(LoadEntry.Writes, writes1);
+        loadMap.put(new Level("table1"), loadRecord);
+        if (writes2 != null) {
+            loadRecord = new LoadRecord();
+            loadRecord.put(LoadEntry.Writes, writes2);
+            loadMap.put(new Level("table2"), loadRecord);
+        }
+        load.setLoadMap(loadMap);
+        load.updateChangeMap();
+    }
+
+    private String read(ByteArrayOutputStream outputStream) {
+        String string = new String(outputStream.toByteArray(), Constant.CHARSET);
+        outputStream.reset();
+        return string;
+    }
+
+    @Test
+    public void testPublish() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        StreamPublisher streamPublisher = new StreamPublisher(DIRECT_EXECUTOR, StreamPublisher.WRITE_TIMEOUT_MS);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String event;
+
+        // no subscriber
+        update(load, 1, 1L);
+        streamPublisher.publish(load);
+        assertEquals(0, streamPublisher.getSubscriberCount());
+
+        // snapshot
+        streamPublisher.subscribe(outputStream, load);
+        assertEquals(1, streamPublisher.getSubscriberCount());
+        event = read(outputStream);
+        assertTrue(event.startsWith("event: snapshot\ndata: {"));
+        assertTrue(event.endsWith("}\n\n"));
+        assertTrue(event.contains("\"table1\":"));
+        assertTrue(event.contains("\"table2\":"));
+
+        // both rows are changed
+        update(load, 2, 1L);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.startsWith("event: delta\ndata: {"));
+        assertTrue(event.contains("\"table1\":"));
+        assertTrue(event.contains("\"table2\":"));
+
+        // only the diff of table1 is changed
+        update(load, 2, 1L);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"table1\":"));
+        assertFalse(event.contains("\"table2\":"));
+        assertTrue(event.contains("\"removed\":[]"));
+
+        // nothing is changed
+        update(load, 2, 1L);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"rows\":{}"));
+
+        // table2 is removed
+        update(load, 2, null);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"removed\":[\"table2\"]"));
+    }
+
+    @Test
+    public void testVisibleLevels() throws Exception {
+        Load load = new Load(new LevelClass(TableName.class));
+        StreamPublisher streamPublisher = new StreamPublisher(DIRECT_EXECUTOR, StreamPublisher.WRITE_TIMEOUT_MS);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String event;
+
+        update(load, 1, 1L);
+        streamPublisher.subscribe(outputStream, load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"visible\":[\"table1\",\"table2\"]"));
+        assertTrue(event.contains("\"colors\":[\"green\",\"cyan\","));
+        assertFalse(event.contains("\"page\":"));
+
+        // sorted by the diff of writes and changed cells are flagged
+        load.setSortKey(new SortKey("@"));
+        update(load, 3, 2L);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"visible\":[\"table2\",\"table1\"]"));
+        assertTrue(event.contains("\"colors\":[\"cyan\",\"cyan\",\"greenBg\","));
+        assertTrue(event.contains("[\"3\",\"2\",true]"));
+
+        // changed only and paged
+        load.toggleShowChangedOnly();
+        load.setRowsPerPage(1);
+        update(load, 4, 2L);
+        streamPublisher.publish(load);
+        event = read(outputStream);
+        assertTrue(event.contains("\"showChangedOnly\":true"));
+        assertTrue(event.contains("\"page\":1,\"pageCount\":1"));
+        assertTrue(event.contains("\"visible\":[\"table1\"]"));
+    }
+
+    @Test
+    public void testEvictSlowSubscriber() throws Exception {
+        // writes are held until they are run explicitly, as if the subscribers are stalled
+        final List<Runnable> writes = new ArrayList<>();
+        Executor holdingExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                writes.add(command);
+            }
+        };
+        Load load = new Load(new LevelClass(TableName.class));
+        StreamPublisher streamPublisher = new StreamPublisher(holdingExecutor, 10);
+        final boolean[] closed = new boolean[1];
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        update(load, 1, 1L);
+        streamPublisher.subscribe(outputStream, load);
+        assertEquals(1, writes.size());
+
+        // still writing within the timeout. the event is skipped.
+        update(load, 2, 1L);
+        streamPublisher.publish(load);
+        assertEquals(1, writes.size());
+        assertEquals(1, streamPublisher.getSubscriberCount());
+
+        // still writing after the timeout. evicted but counted until the write returns.
+        Thread.sleep(20);
+        update(load, 3, 1L);
+        streamPublisher.publish(load);
+        assertEquals(0, streamPublisher.getSubscriberCount());
+        assertEquals(1, streamPublisher.getEvictedWritingCount());
+        assertFalse(closed[0]);
+
+        writes.get(0).run();
+        assertEquals(0, streamPublisher.getEvictedWritingCount());
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    public void testJson() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        Json.appendString(sb, "a\"b\\c\nd\u0001e\u2028");
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001e\\u2028\"", sb.toString());
+    }
+}
@@ -19,8 +19,14 @@ package com.kakao.hbase.specific;
 import com.kakao.hbase.common.Args;
 import com.kakao.hbase.common.util.Util;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.ClusterStatus;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
@@ -30,7 +36,9 @@ import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
 import org.apache.hadoop.hbase.master.RegionPlan;
 import org.apache.hadoop.hbase.master.balancer.StochasticLoadBalancer;
 import org.apache.hadoop.hbase.protobuf.generated.AdminProtos.GetRegionInfoResponse.CompactionState;
+import org.apache.hadoop.hbase.regionserver.StoreFileInfo;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.security.UserGroupInformation;
 
 import javax.security.auth.Subject;
@@ -41,8 +49,15 @@ import java.util.*;
  * For HBase 1.0
  */
 public class CommandAdapter {
+    // keyed by the Args of each command invocation so that a cached map never outlives the invocation
+    private static final Map<Args, Map<ServerName, List<HRegionInfo>>> onlineRegionsMaps = new WeakHashMap<>();
 
     public static List<RegionPlan> makePlan(HBaseAdmin admin, Map<ServerName, List<HRegionInfo>> clusterState, Configuration conf) throws IOException {
+        return makePlan(admin.getClusterStatus(), clusterState, conf);
+    }
+
+    public static List<RegionPlan> makePlan(ClusterStatus clusterStatus,
+        Map<ServerName, List<HRegionInfo>> clusterState, Configuration conf) throws IOException {
         StochasticLoadBalancer balancer = new StochasticLoadBalancer() {
             @Override
             protected boolean needsBalance(Cluster c) {
@@ -50,7 +65,7 @@ public class CommandAdapter {
             }
         };
         balancer.setConf(conf);
-        balancer.setClusterStatus(admin.getClusterStatus());
+        balancer.setClusterStatus(clusterStatus);
         List<RegionPlan> regionPlanList = balancer.balanceCluster(clusterState);
         return regionPlanList == null ? new ArrayList<RegionPlan>() : regionPlanList;
     }
@@ -78,14 +93,33 @@ public class CommandAdapter {
     // contains catalog tables
     private static Map<HRegionInfo, ServerName> createRegionAssignmentMap(HBaseAdmin admin) throws IOException {
         Map<HRegionInfo, ServerName> regionMap = new HashMap<>();
-        for (ServerName serverName : admin.getClusterStatus().getServers()) {
-            for (HRegionInfo hRegionInfo : admin.getOnlineRegions(serverName)) {
-                regionMap.put(hRegionInfo, serverName);
+        for (Map.Entry<ServerName, List<HRegionInfo>> entry : getOnlineRegionsMap(null, admin).entrySet()) {
+            for (HRegionInfo hRegionInfo : entry.getValue()) {
+                regionMap.put(hRegionInfo, entry.getKey());
             }
         }
         return regionMap;
     }
 
+    /**
+     * Online regions of all region servers. Cached per args until regions are moved by this process.
+     * Not cached if args is null.
+     */
+    public static synchronized Map<ServerName, List<HRegionInfo>> getOnlineRegionsMap(Args args, HBaseAdmin admin)
+        throws IOException {
+        Map<ServerName, List<HRegionInfo>> onlineRegionsMap = args == null ? null : onlineRegionsMaps.get(args);
+        if (onlineRegionsMap == null) {
+            onlineRegionsMap = Collections.unmodifiableMap(
+                OnlineRegionsCollector.collect(args, admin, admin.getClusterStatus().getServers()));
+            if (args != null) onlineRegionsMaps.put(args, onlineRegionsMap);
+        }
+        return onlineRegionsMap;
+    }
+
+    public static synchronized void invalidateOnlineRegionsMap() {
+        onlineRegionsMaps.clear();
+    }
+
     public static List<HRegionInfo> getOnlineRegions(Args args, HBaseAdmin admin, ServerName serverName)
         throws IOException {
         long startTimestamp = System.currentTimeMillis();
@@ -214,6 +248,36 @@ public class CommandAdapter {
         return regions;
     }
 
+    /**
+     * Regions of the table in the key range from the region containing the start key.
+     *
+     * @param endKey exclusive. empty for the end of the table.
+     */
+    public static NavigableMap<HRegionInfo, ServerName> regionServerMap(Args args, Configuration conf,
+        HConnection connection, final String tableNameParam, byte[] startKey, final byte[] endKey,
+        final boolean offlined) throws IOException {
+        long timestamp = System.currentTimeMillis();
+
+        final NavigableMap<HRegionInfo, ServerName> regions = new TreeMap<>();
+        TableName tableName = TableName.valueOf(tableNameParam);
+        MetaScanner.MetaScannerVisitor visitor = new MetaScanner.TableMetaScannerVisitor(tableName) {
+            @Override
+            public boolean processRowInternal(Result rowResult) throws IOException {
+                HRegionInfo info = HRegionInfo.getHRegionInfo(rowResult);
+                ServerName serverName = HRegionInfo.getServerName(rowResult);
+
+                if (endKey.length > 0 && Bytes.compareTo(info.getStartKey(), endKey) >= 0) return false;
+                if (info.isOffline() && !offlined) return true;
+                regions.put(info, serverName);
+                return true;
+            }
+        };
+        MetaScanner.metaScan(connection, visitor, tableName, startKey, Integer.MAX_VALUE);
+
+        Util.printVerboseMessage(args, "CommandAdapter.regionServerMap", timestamp);
+        return regions;
+    }
+
     public static String getTableName(HRegionInfo hRegionInfo) {
         return hRegionInfo.getTable().getNameAsString();
     }
@@ -231,6 +295,39 @@ public class CommandAdapter {
         }
     }
 
+    /**
+     * Encoded names of the regions of the table that have merge qualifiers in the meta table. A merged region holds
+     * reference files to its parents until they are compacted and CatalogJanitor cleans up the parents. Until then
+     * the region server refuses to merge it again.
+     */
+    public static Set<String> mergeQualifiedRegions(Args args, Configuration conf, HConnection connection,
+        String tableNameParam) throws IOException {
+        long timestamp = System.currentTimeMillis();
+
+        final Set<String> regions = new HashSet<>();
+        TableName tableName = TableName.valueOf(tableNameParam);
+        MetaScanner.MetaScannerVisitor visitor = new MetaScanner.TableMetaScannerVisitor(tableName) {
+            @Override
+            public boolean processRowInternal(Result rowResult) throws IOException {
+                if (rowResult.getValue(HConstants.CATALOG_FAMILY, HConstants.MERGEA_QUALIFIER) != null
+                    || rowResult.getValue(HConstants.CATALOG_FAMILY, HConstants.MERGEB_QUALIFIER) != null)
+                    regions.add(HRegionInfo.getHRegionInfo(rowResult).getEncodedName());
+                return true;
+            }
+        };
+        MetaScanner.metaScan(connection, visitor, tableName);
+
+        Util.printVerboseMessage(args, "CommandAdapter.mergeQualifiedRegions", timestamp);
+        return regions;
+    }
+
+    /**
+     * Runs CatalogJanitor to clean up the merged or split parents now.
+     */
+    public static void runCatalogScan(HBaseAdmin admin) throws IOException {
+        admin.runCatalogScan();
+    }
+
     public static List<HRegionInfo> adjacentEmptyRegions(List<HRegionInfo> emptyRegions) {
         List<HRegionInfo> adjacentEmptyRegions = new ArrayList<>();
         for (int i = 0; i < emptyRegions.size() - 1; i++) {
@@ -251,6 +348,25 @@ public class CommandAdapter {
         return !(compactionState == CompactionState.NONE || compactionState == CompactionState.MINOR);
     }
 
+    public static boolean isMajorCompacting(Args args, HBaseAdmin admin, byte[] tableNameOrRegionName)
+        throws IOException, InterruptedException {
+        CompactionState compactionState = admin.getCompactionState(tableNameOrRegionName);
+        return !(compactionState == CompactionState.NONE || compactionState == CompactionState.MINOR);
+    }
+
+    /**
+     * @return sum of the key lengths and the value lengths of a result scanned with KeyOnlyFilter(true)
+     */
+    public static long keyOnlyResultSize(Result result) {
+        long size = 0;
+        for (Cell cell : result.rawCells()) {
+            // the value is replaced with its length by the filter
+            size += KeyValue.KEY_INFRASTRUCTURE_SIZE + cell.getRowLength() + cell.getFamilyLength()
+                + cell.getQualifierLength() + Bytes.toInt(cell.getValueArray(), cell.getValueOffset());
+        }
+        return size;
+    }
+
     public static boolean isReallyEmptyRegion(HConnection connection,
         String tableName, HRegionInfo regionInfo) throws IOException {
         boolean emptyRegion = false;
@@ -272,6 +388,24 @@ public class CommandAdapter {
         return emptyRegion;
     }
 
+    /**
+     * Reference files are left in the daughters of a split until they are compacted.
+     * A region holding them can not be split again.
+     */
+    public static boolean hasReferences(Configuration conf, HRegionInfo regionInfo) throws IOException {
+        FileSystem fs = FSUtils.getCurrentFileSystem(conf);
+        Path regionDir = new Path(FSUtils.getTableDir(FSUtils.getRootDir(conf), regionInfo.getTable()),
+            regionInfo.getEncodedName());
+        if (!fs.exists(regionDir)) return false;
+
+        for (Path familyDir : FSUtils.getFamilyDirs(fs, regionDir)) {
+            for (FileStatus fileStatus : fs.listStatus(familyDir)) {
+                if (StoreFileInfo.isReference(fileStatus.getPath())) return true;
+            }
+        }
+        return false;
+    }
+
     public static Map<String, Map<String, String>> versionedRegionMap(HBaseAdmin admin, long timestamp)
         throws IOException {
         Map<String, Map<String, String>> regionLocationMap = new HashMap<>();
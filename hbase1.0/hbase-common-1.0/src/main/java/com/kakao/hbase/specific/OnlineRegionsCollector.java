@@ -0,0 +1 @@
+../../../../../../../../../hbase0.98/hbase-common-0.98/src/main/java/com/kakao/hbase/specific/OnlineRegionsCollector.java
\ No newline at end of file
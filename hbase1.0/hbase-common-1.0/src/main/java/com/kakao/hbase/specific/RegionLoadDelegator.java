@@ -36,6 +36,10 @@ public class RegionLoadDelegator {
         return regionLoad.getStorefiles();
     }
 
+    public int getStores() {
+        return regionLoad.getStores();
+    }
+
     public int getStoreUncompressedSizeMB() {
         return regionLoad.getStoreUncompressedSizeMB();
     }
@@ -60,6 +64,15 @@ public class RegionLoadDelegator {
         return regionLoad.getCurrentCompactedKVs();
     }
 
+    public long getTotalCompactingKVs() {
+        return regionLoad.getTotalCompactingKVs();
+    }
+
+    public long getLastMajorCompactionTs() {
+        // not supported
+        return 0;
+    }
+
     public int getRegions() {
         return 1;
     }
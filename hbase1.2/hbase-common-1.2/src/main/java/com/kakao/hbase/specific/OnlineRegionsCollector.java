@@ -0,0 +1 @@
+../../../../../../../../../hbase1.0/hbase-common-1.0/src/main/java/com/kakao/hbase/specific/OnlineRegionsCollector.java
\ No newline at end of file
@@ -36,6 +36,10 @@ public class RegionLoadDelegator {
         return regionLoad.getStorefiles();
     }
 
+    public int getStores() {
+        return regionLoad.getStores();
+    }
+
     public int getStoreUncompressedSizeMB() {
         return regionLoad.getStoreUncompressedSizeMB();
     }
@@ -60,6 +64,14 @@ public class RegionLoadDelegator {
         return regionLoad.getCurrentCompactedKVs();
     }
 
+    public long getTotalCompactingKVs() {
+        return regionLoad.getTotalCompactingKVs();
+    }
+
+    public long getLastMajorCompactionTs() {
+        return regionLoad.getLastMajorCompactionTs();
+    }
+
     public int getRegions() {
         return 1;
     }